@@ -0,0 +1,163 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.service.AdEvaluationService;
+import com.example.kafkaExercise.service.Producer;
+import com.example.kafkaExercise.util.AdSerdes;
+import com.example.kafkaExercise.util.ArchiveProcessor;
+import com.example.kafkaExercise.util.SegmentArchive;
+import com.example.kafkaExercise.util.SegmentArchiveReader;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// ad-evaluation.archive 로 남긴 adLog / purchaseLog 를 broker 없이 AdEvaluationService topology 에 다시 넣습니다.
+// 설정을 바꿔 (split-mode, join-mode, dedup 등) 같은 입력의 결과를 비교하거나, 지난 기간을 backfill 할 때 씁니다.
+// mvn -Pjmh test-compile exec:exec@archive-replay -Dload.args="--archive-dir=/tmp/ad-evaluation-archive --join-mode=WINDOWED"
+// segment 는 map 한 buffer 에서 바로 읽고, TopologyTestDriver 가 byte[] 를 받으므로 record 마다 key / value 를 한 번만 복사합니다.
+// TopologyTestDriver 는 record 마다 commit 하므로 처리 속도는 archive scan 속도보다 한참 낮습니다. (TopologyLoadHarness 참고)
+// 여러 서버의 archive 를 합치려면 <archive-dir>/<topic>/partition-N 디렉터리를 한 곳에 모으면 됩니다.
+//
+// 옵션 (--key=value)
+//   archive-dir                   : archive 위치 (ad-evaluation.archive.dir)
+//   from, to                      : replay 할 record timestamp 범위 (ISO-8601, 기본 전체)
+//   generate                      : archive-dir 에 RecordGenerator 로 이 건수만큼 먼저 씁니다. (기본 0, 나머지 옵션은 RecordGenerator 참고)
+//   split-mode, join-mode, wire-format, dedup : AdEvaluationProperties 와 동일
+//   dsl-store                     : rocksDB (기본) | in_memory
+//   state-dir                     : state store 위치. 기본은 /dev/shm (있을 때) 이고, 그 아래 만든 임시 디렉터리는 끝나면 지웁니다.
+//   report-every                  : 중간 보고 주기
+public class ArchiveReplay {
+
+    static final List<String> TOPICS = List.of("adLog", "purchaseLog");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BenchmarkSupport.parse(args);
+        Path archiveDir = Paths.get(options.getOrDefault("archive-dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "ad-evaluation-archive").toString()));
+        long from = options.containsKey("from") ? Instant.parse(options.get("from")).toEpochMilli() : Long.MIN_VALUE;
+        long to = options.containsKey("to") ? Instant.parse(options.get("to")).toEpochMilli() : Long.MAX_VALUE;
+        long reportEvery = Long.parseLong(options.getOrDefault("report-every", "100000"));
+
+        long generate = Long.parseLong(options.getOrDefault("generate", "0"));
+        if (generate > 0) {
+            generate(archiveDir, generate, options);
+        }
+
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.valueOf(options.getOrDefault("split-mode", "FLAT_MAP")));
+        properties.setJoinMode(AdEvaluationProperties.JoinMode.valueOf(options.getOrDefault("join-mode", "TABLE")));
+        properties.setWireFormat(AdEvaluationProperties.WireFormat.valueOf(options.getOrDefault("wire-format", "JSON")));
+        properties.getDedup().setEnabled(Boolean.parseBoolean(options.getOrDefault("dedup", "false")));
+
+        // archive 만 읽는 속도 (map 한 segment 의 scan + merge) 를 topology 비용과 나눠 봅니다.
+        long[] scanned = {0};
+        long scanStart = System.nanoTime();
+        long scannedRecords = SegmentArchiveReader.replay(archiveDir, TOPICS, from, to, r -> {
+            ByteBuffer value = r.value();
+            scanned[0] += value == null ? 0 : value.remaining();
+        });
+        long scanNanos = System.nanoTime() - scanStart;
+        System.out.printf("archive scan : %,d records, %,.0f records/s, %,.1f MB/s%n",
+                scannedRecords, scannedRecords * 1e9 / scanNanos, scanned[0] * 1e3 / scanNanos);
+
+        Path stateDir = Files.createTempDirectory(BenchmarkSupport.defaultStateRoot(options), "ad-evaluation-replay");
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "ad-evaluation-replay");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        config.put(StreamsConfig.DEFAULT_DSL_STORE_CONFIG, options.getOrDefault("dsl-store", StreamsConfig.ROCKS_DB));
+
+        BenchmarkSupport.LoopbackProducer producer = new BenchmarkSupport.LoopbackProducer();
+        StreamsBuilder sb = new StreamsBuilder(new TopologyConfig(new StreamsConfig(config)));
+        new AdEvaluationService(producer, properties).buildPipeline(sb);
+
+        // 측정 중의 console 출력이 결과를 덮지 않도록 버립니다.
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        report.printf("archive=%s options=%s state.dir=%s%n", archiveDir, options, stateDir);
+        try (TopologyTestDriver driver = new TopologyTestDriver(sb.build(), config)) {
+            Map<String, TestInputTopic<byte[], byte[]>> inputs = new HashMap<>();
+            for (String topic : TOPICS) {
+                inputs.put(topic, driver.createInputTopic(topic, Serdes.ByteArray().serializer(), Serdes.ByteArray().serializer()));
+            }
+            TestInputTopic<String, PurchaseLogOneProduct> purchaseLogOneProduct = driver.createInputTopic("purchaseLogOneProduct",
+                    Serdes.String().serializer(), AdSerdes.purchaseLogOneProduct(properties.getWireFormat()).serializer());
+            TestOutputTopic<String, byte[]> output = driver.createOutputTopic("AdEvaluationComplete",
+                    Serdes.String().deserializer(), Serdes.ByteArray().deserializer());
+
+            long[] bytes = {0};
+            long[] outputs = {0};
+            long[] piped = {0};
+            long start = System.nanoTime();
+            long replayed = SegmentArchiveReader.replay(archiveDir, TOPICS, from, to, r -> {
+                byte[] value = r.valueBytes();
+                bytes[0] += value == null ? 0 : value.length;
+                inputs.get(r.topic()).pipeInput(r.keyBytes(), value, r.timestamp());
+                for (PurchaseLogOneProduct one : producer.sent) {
+                    purchaseLogOneProduct.pipeInput(Producer.keyOf(one), one, r.timestamp());
+                }
+                producer.sent.clear();
+                if (!output.isEmpty()) {
+                    outputs[0] += output.getQueueSize();
+                    output.readRecordsToList();
+                }
+                if (++piped[0] % reportEvery == 0) {
+                    report.printf("  %,d records, %,.0f records/s%n", piped[0], piped[0] * 1e9 / (System.nanoTime() - start));
+                }
+            });
+            long totalNanos = System.nanoTime() - start;
+
+            report.println("---- result ----");
+            report.printf("replayed     : %,d records (%,d value bytes) in %.2f s%n", replayed, bytes[0], totalNanos / 1e9);
+            report.printf("throughput   : %,.0f records/s, %,.1f MB/s%n", replayed * 1e9 / totalNanos, bytes[0] * 1e3 / totalNanos);
+            report.printf("join outputs : %,d%n", outputs[0]);
+        } finally {
+            System.setOut(report);
+            BenchmarkSupport.deleteStateDir(stateDir);
+        }
+    }
+
+    // 실제 archive 와 같은 형식 (BINARY value, Producer.keyOf key) 으로 partition 0 에 씁니다.
+    private static void generate(Path archiveDir, long records, Map<String, String> options) throws Exception {
+        Serializer<WatchingAdLog> adSerializer = AdSerdes.watchingAdLog(AdEvaluationProperties.WireFormat.BINARY).serializer();
+        Serializer<PurchaseLog> purchaseSerializer = AdSerdes.purchaseLog(AdEvaluationProperties.WireFormat.BINARY).serializer();
+        RecordGenerator generator = new RecordGenerator(options);
+        long start = System.nanoTime();
+        try (SegmentArchive adLog = SegmentArchive.open(ArchiveProcessor.partitionDir(archiveDir, "adLog", 0), 128 * 1024 * 1024, 4096);
+             SegmentArchive purchaseLog = SegmentArchive.open(ArchiveProcessor.partitionDir(archiveDir, "purchaseLog", 0), 128 * 1024 * 1024, 4096)) {
+            for (long i = 0; i < records; i++) {
+                Object record = generator.next();
+                byte[] key = Producer.keyOf(record).getBytes(StandardCharsets.UTF_8);
+                if (record instanceof WatchingAdLog) {
+                    adLog.append(generator.eventTimeMs(), 0, adLog.nextSequence(), key, adSerializer.serialize("adLog", (WatchingAdLog) record));
+                } else {
+                    purchaseLog.append(generator.eventTimeMs(), 0, purchaseLog.nextSequence(), key,
+                            purchaseSerializer.serialize("purchaseLog", (PurchaseLog) record));
+                }
+            }
+        }
+        System.out.printf("generated %,d records in %.2f s%n", records, (System.nanoTime() - start) / 1e9);
+    }
+}
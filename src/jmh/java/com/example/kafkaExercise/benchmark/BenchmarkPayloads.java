@@ -0,0 +1,55 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+// VO 주석의 SAMPLE DATA 와 같은 모양의 payload 를 만듭니다.
+public final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    // {"userId": "uid-0005", "productId": "pg-0022", "adId": "ad-101", "adType": "banner", "watchingTime": "30", "watchingDt": "20230201070000"}
+    public static WatchingAdLog watchingAdLog() {
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId("uid-0005");
+        ad.setProductId("pg-0022");
+        ad.setAdId("ad-101");
+        ad.setAdType("banner");
+        ad.setWatchingTime("30");
+        ad.setWatchingDt("20230201070000");
+        return ad;
+    }
+
+    // { "orderId": "od-0005", "userId": "uid-0005",  "productInfo": [{"productId": "pg-0023", "price":"12000"}, ...],  "purchasedDt": "20230201070000"}
+    public static PurchaseLog purchaseLog(int productCount) {
+        PurchaseLog purchase = new PurchaseLog();
+        purchase.setOrderId("od-0005");
+        purchase.setUserId("uid-0005");
+        purchase.setPurchasedDt("20230201070000");
+        ArrayList<Map<String, String>> productInfo = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            Map<String, String> prod = new HashMap<>();
+            prod.put("productId", "pg-" + String.format("%04d", 22 + i));
+            prod.put("price", String.valueOf(12000 + i * 1500));
+            productInfo.add(prod);
+        }
+        purchase.setProductInfo(productInfo);
+        return purchase;
+    }
+
+    public static PurchaseLogOneProduct purchaseLogOneProduct() {
+        PurchaseLogOneProduct one = new PurchaseLogOneProduct();
+        one.setOrderId("od-0005");
+        one.setUserId("uid-0005");
+        one.setProductId("pg-0022");
+        one.setPurchasedDt("20230201070000");
+        one.setPrice("12000");
+        return one;
+    }
+}
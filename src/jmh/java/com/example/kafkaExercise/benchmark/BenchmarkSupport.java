@@ -0,0 +1,89 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.service.Producer;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// 부하 측정 도구들이 함께 쓰는 옵션 parsing, state.dir, Producer 대역입니다.
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    // REPUBLISH 모드에서 KafkaTemplate 으로 나가는 메세지를 담아두었다가 purchaseLogOneProduct 로 다시 넣습니다.
+    static class LoopbackProducer extends Producer {
+        final List<PurchaseLogOneProduct> sent = new ArrayList<>();
+
+        @Override
+        public void sendJoinedMsg(String topicNm, Object msg) {
+            sent.add((PurchaseLogOneProduct) msg);
+        }
+    }
+
+    // REPUBLISH 모드에서 foreach 안의 send 를 KafkaTemplate 대신 측정용 producer 로 바로 보냅니다.
+    static class DirectProducer extends Producer {
+        final KafkaProducer<String, Object> producer;
+
+        DirectProducer(KafkaProducer<String, Object> producer) {
+            this.producer = producer;
+        }
+
+        @Override
+        public void sendJoinedMsg(String topicNm, Object msg) {
+            producer.send(new ProducerRecord<>(topicNm, Producer.keyOf(msg), msg));
+        }
+    }
+
+    // 실제 broker 에서 띄우는 KafkaStreams 의 공통 설정. 측정마다 다른 설정은 호출한 쪽에서 더합니다.
+    static Properties streamsConfig(String bootstrapServers, String applicationId, Path stateDir, StreamsTuningProperties tuning) {
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        config.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        config.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, tuning.getNumStreamThreads());
+        config.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, tuning.effectiveCommitIntervalMs());
+        return config;
+    }
+
+    // --key=value 형식의 옵션
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    static Path defaultStateRoot(Map<String, String> options) {
+        if (options.containsKey("state-dir")) {
+            return Paths.get(options.get("state-dir"));
+        }
+        // TopologyTestDriver 는 record 마다 commit/checkpoint 를 하므로 tmpfs 가 있으면 disk fsync 비용을 빼고 측정합니다.
+        Path shm = Paths.get("/dev/shm");
+        return Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    // 측정에 쓴 임시 state.dir 을 지웁니다. /dev/shm 은 메모리라 남겨두면 다음 측정까지 그만큼 차지합니다.
+    static void deleteStateDir(Path stateDir) throws IOException {
+        Utils.delete(stateDir.toFile());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.service.AdEvaluationService;
+import com.example.kafkaExercise.service.Producer;
+import com.example.kafkaExercise.util.TypeDispatchingSerializer;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.clients.admin.ReplicaInfo;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 실제 broker 에서 co-partitioned-sources 를 끈 경우와 켠 경우의 repartition topic byte 와 end-to-end 지연을 비교합니다.
+// 모드마다 새 application.id 로 Streams 를 띄운 뒤 adLog / purchaseLog 에 rate 건/초로 record 를 넣고,
+// AdEvaluationComplete 를 읽어 (읽은 시각 - record timestamp) 를 지연으로 봅니다. join 결과의 timestamp 는 구매를 보낸 시각입니다.
+// 끝나면 broker log dir 에서 application 의 *-repartition topic 크기를 합산합니다.
+// adLog, purchaseLog, purchaseLogOneProduct 는 partition 수가 같아야 합니다. (co-partitioned 는 시작할 때 검사합니다.)
+// mvn -Pjmh test-compile exec:exec@copartition-load -Dload.args="--bootstrap-servers=localhost:9092 --records=200000 --rate=5000"
+//
+// 옵션 (--key=value)
+//   bootstrap-servers : 기본 localhost:9092
+//   records           : 모드마다 넣을 record 수
+//   rate              : 초당 보낼 record 수 (기본 5000)
+//   modes             : 비교할 co-partitioned 값 목록 (기본 false,true)
+//   drain-seconds     : 다 보낸 뒤 결과를 더 기다리는 시간 (기본 10)
+//   split-mode, wire-format, num-stream-threads
+//   나머지 옵션은 RecordGenerator 참고
+public class CoPartitionLoadTest {
+
+    static final String OUTPUT_TOPIC = "AdEvaluationComplete";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BenchmarkSupport.parse(args);
+        String bootstrapServers = options.getOrDefault("bootstrap-servers", "localhost:9092");
+        long records = Long.parseLong(options.getOrDefault("records", "200000"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "5000"));
+        long drainMs = Duration.ofSeconds(Long.parseLong(options.getOrDefault("drain-seconds", "10"))).toMillis();
+
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.valueOf(options.getOrDefault("split-mode", "REPUBLISH")));
+        properties.setWireFormat(AdEvaluationProperties.WireFormat.valueOf(options.getOrDefault("wire-format", "JSON")));
+        StreamsTuningProperties tuning = new StreamsTuningProperties();
+        tuning.setNumStreamThreads(Integer.parseInt(options.getOrDefault("num-stream-threads", "1")));
+
+        Properties producerConfig = new Properties();
+        producerConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerConfig.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+             KafkaProducer<String, Object> producer = new KafkaProducer<>(producerConfig, new StringSerializer(),
+                     TypeDispatchingSerializer.forWireFormat(properties.getWireFormat()))) {
+            System.out.printf("records=%,d rate=%,d/s options=%s%n", records, rate, options);
+
+            for (String mode : options.getOrDefault("modes", "false,true").split(",")) {
+                properties.setCoPartitionedSources(Boolean.parseBoolean(mode.trim()));
+                String applicationId = "copartition-load-" + mode.trim() + "-" + System.currentTimeMillis();
+                StreamsBuilder sb = new StreamsBuilder();
+                new AdEvaluationService(new BenchmarkSupport.DirectProducer(producer), properties, tuning).buildPipeline(sb);
+
+                LatencyHistogram histogram = new LatencyHistogram();
+                Path stateDir = Files.createTempDirectory("copartition-load");
+                try (KafkaStreams streams = new KafkaStreams(sb.build(), streamsConfig(bootstrapServers, applicationId, stateDir, tuning));
+                     KafkaConsumer<byte[], byte[]> output = outputConsumer(bootstrapServers)) {
+                    streams.start();
+                    waitForRunning(streams);
+
+                    RecordGenerator generator = new RecordGenerator(options);
+                    long intervalNs = TimeUnit.SECONDS.toNanos(1) / rate;
+                    long next = System.nanoTime();
+                    for (long i = 0; i < records; i++) {
+                        Object record = generator.next();
+                        producer.send(new ProducerRecord<>(record instanceof WatchingAdLog ? "adLog" : "purchaseLog",
+                                Producer.keyOf(record), record));
+                        next += intervalNs;
+                        while (System.nanoTime() < next) {
+                            poll(output, histogram, Duration.ZERO);
+                        }
+                    }
+                    producer.flush();
+                    long drainUntil = System.currentTimeMillis() + drainMs;
+                    while (System.currentTimeMillis() < drainUntil) {
+                        poll(output, histogram, Duration.ofMillis(100));
+                    }
+                    streams.close(Duration.ofSeconds(30));
+                } finally {
+                    BenchmarkSupport.deleteStateDir(stateDir);
+                }
+
+                System.out.printf("co-partitioned=%-5s : repartition=%,d bytes joins=%,d e2e p50=%,d ms p99=%,d ms max=%,d ms%n",
+                        mode.trim(), repartitionBytes(admin, applicationId), histogram.count(),
+                        TimeUnit.NANOSECONDS.toMillis(histogram.percentile(50)),
+                        TimeUnit.NANOSECONDS.toMillis(histogram.percentile(99)),
+                        TimeUnit.NANOSECONDS.toMillis(histogram.max()));
+            }
+        }
+    }
+
+    private static void poll(KafkaConsumer<byte[], byte[]> output, LatencyHistogram histogram, Duration timeout) {
+        for (ConsumerRecord<byte[], byte[]> record : output.poll(timeout)) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - record.timestamp())));
+        }
+    }
+
+    // 이번 모드의 결과만 보도록 AdEvaluationComplete 의 현재 끝부터 읽습니다.
+    private static KafkaConsumer<byte[], byte[]> outputConsumer(String bootstrapServers) {
+        Properties config = new Properties();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(config, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+        List<TopicPartition> partitions = consumer.partitionsFor(OUTPUT_TOPIC).stream()
+                .map(p -> new TopicPartition(p.topic(), p.partition()))
+                .collect(Collectors.toList());
+        consumer.assign(partitions);
+        consumer.seekToEnd(partitions);
+        partitions.forEach(consumer::position);
+        return consumer;
+    }
+
+    private static void waitForRunning(KafkaStreams streams) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (streams.state() != KafkaStreams.State.RUNNING) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Streams did not reach RUNNING: " + streams.state());
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    // 모든 broker 의 log dir 에서 application 의 repartition topic replica 크기를 더합니다. (replication 포함 broker 디스크 기준)
+    private static long repartitionBytes(Admin admin, String applicationId) throws Exception {
+        List<Integer> brokers = admin.describeCluster().nodes().get().stream().map(Node::id).collect(Collectors.toList());
+        Map<Integer, Map<String, LogDirDescription>> logDirs = admin.describeLogDirs(brokers).allDescriptions().get();
+        Map<String, Long> bytes = new HashMap<>();
+        for (Map<String, LogDirDescription> dirs : logDirs.values()) {
+            for (LogDirDescription dir : dirs.values()) {
+                for (Map.Entry<TopicPartition, ReplicaInfo> replica : dir.replicaInfos().entrySet()) {
+                    String topic = replica.getKey().topic();
+                    if (topic.startsWith(applicationId) && topic.endsWith("-repartition")) {
+                        bytes.merge(topic, replica.getValue().size(), Long::sum);
+                    }
+                }
+            }
+        }
+        bytes.forEach((topic, size) -> System.out.printf("  %s : %,d bytes%n", topic, size));
+        return bytes.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static Properties streamsConfig(String bootstrapServers, String applicationId, Path stateDir, StreamsTuningProperties tuning) {
+        Properties config = BenchmarkSupport.streamsConfig(bootstrapServers, applicationId, stateDir, tuning);
+        // 지연을 재므로 record cache 로 결과를 모아두지 않습니다.
+        config.put(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG, 0);
+        config.put(StreamsConfig.consumerPrefix(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG), "latest");
+        return config;
+    }
+}
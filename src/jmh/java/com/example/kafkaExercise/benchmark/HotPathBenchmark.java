@@ -0,0 +1,65 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.service.AdEvaluationService;
+import com.example.kafkaExercise.util.*;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// record 1건이 topology 앞단에서 거치는 과정 (deserialize -> filter / split -> join key -> join) 의 처리량과 할당량을 측정합니다.
+// 할당량은 -prof gc 의 gc.alloc.rate.norm (B/op) 을 봅니다.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotPathBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    String format;
+
+    @Param({"2", "10"})
+    int productsPerOrder;
+
+    AdEvaluationService service;
+    Deserializer<WatchingAdLog> watchingAdLogDeserializer = new WatchingAdLogDeserializer();
+    Deserializer<PurchaseLog> purchaseLogDeserializer = new PurchaseLogDeserializer();
+    WatchingAdLog storedAd;
+    byte[] watchingAdLogBytes;
+    byte[] purchaseLogBytes;
+
+    @Setup
+    public void setUp() {
+        service = new AdEvaluationService(null, new AdEvaluationProperties());
+        boolean binary = "BINARY".equals(format);
+        watchingAdLogBytes = (binary ? new WatchingAdLogBinarySerializer() : new WatchingAdLogSerializer())
+                .serialize("adLog", BenchmarkPayloads.watchingAdLog());
+        purchaseLogBytes = (binary ? new PurchaseLogBinarySerializer() : new PurchaseLogSerializer())
+                .serialize("purchaseLog", BenchmarkPayloads.purchaseLog(productsPerOrder));
+        storedAd = watchingAdLogDeserializer.deserialize("adLog", watchingAdLogBytes);
+    }
+
+    // adLog : deserialize -> 시청시간 filter -> join key
+    @Benchmark
+    public String adLog() {
+        WatchingAdLog v = watchingAdLogDeserializer.deserialize("adLog", watchingAdLogBytes);
+        return v.watchingSeconds() > 10 ? JoinKeys.of(v.getUserId(), v.getProductId()) : null;
+    }
+
+    // purchaseLog : deserialize -> 상품별 split -> join key -> 광고와 join
+    @Benchmark
+    public void purchaseLog(Blackhole bh) {
+        PurchaseLog v = purchaseLogDeserializer.deserialize("purchaseLog", purchaseLogBytes);
+        for (PurchaseLogOneProduct one : service.splitPurchaseLog(v)) {
+            bh.consume(JoinKeys.of(one.getUserId(), one.getProductId()));
+            bh.consume(service.joinAdWithPurchase(storedAd, one));
+        }
+    }
+}
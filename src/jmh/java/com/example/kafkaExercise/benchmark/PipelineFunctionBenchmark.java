@@ -0,0 +1,48 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.service.AdEvaluationService;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// AdEvaluationService 의 per-record 함수 (join ValueJoiner, 구매이력 상품 분리) 를 측정합니다.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineFunctionBenchmark {
+
+    @Param({"2", "10"})
+    int productsPerOrder;
+
+    AdEvaluationService service;
+    WatchingAdLog watchingAdLog;
+    PurchaseLog purchaseLog;
+    PurchaseLogOneProduct purchaseLogOneProduct;
+
+    @Setup
+    public void setUp() {
+        service = new AdEvaluationService(null, new AdEvaluationProperties());
+        watchingAdLog = BenchmarkPayloads.watchingAdLog();
+        purchaseLog = BenchmarkPayloads.purchaseLog(productsPerOrder);
+        purchaseLogOneProduct = BenchmarkPayloads.purchaseLogOneProduct();
+    }
+
+    @Benchmark
+    public EffectOrNot tableStreamJoiner() {
+        return service.joinAdWithPurchase(watchingAdLog, purchaseLogOneProduct);
+    }
+
+    @Benchmark
+    public List<PurchaseLogOneProduct> splitPurchaseLog() {
+        return service.splitPurchaseLog(purchaseLog);
+    }
+}
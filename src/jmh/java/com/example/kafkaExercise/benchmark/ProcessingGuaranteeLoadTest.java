@@ -0,0 +1,154 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.service.AdEvaluationService;
+import com.example.kafkaExercise.service.Producer;
+import com.example.kafkaExercise.util.TypeDispatchingSerializer;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+// 실제 broker 에서 at_least_once 와 exactly_once_v2 의 처리량을 비교합니다.
+// adLog / purchaseLog 에 records 건을 넣어두고, guarantee 마다 새 application.id 로 처음부터 읽어
+// 두 Topic 의 offset 이 끝까지 commit 될 때까지 걸린 시간을 잽니다. (exactly_once_v2 는 transaction commit 포함)
+// mvn -Pjmh test-compile exec:exec@guarantee-load -Dload.args="--bootstrap-servers=localhost:9092 --records=500000"
+//
+// 옵션 (--key=value)
+//   bootstrap-servers  : 기본 localhost:9092
+//   records            : 미리 넣을 record 수. produce=false 면 Topic 에 이미 있는 record 를 사용합니다.
+//   guarantees         : 비교할 processing.guarantee 목록 (기본 at_least_once,exactly_once_v2)
+//   commit-interval-ms : 비워두면 guarantee 별 Kafka 기본값 (30000 / 100)
+//                        끝나는 시점을 commit 으로 보므로 기본값 그대로면 at_least_once 쪽에 commit 주기가 더해집니다.
+//                        transaction 비용만 보려면 같은 값을 주거나 records 를 충분히 크게 합니다.
+//   transaction-timeout-ms, num-stream-threads, split-mode, wire-format, timeout-seconds
+//   나머지 옵션은 RecordGenerator 참고
+public class ProcessingGuaranteeLoadTest {
+
+    static final List<String> INPUT_TOPICS = List.of("adLog", "purchaseLog");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BenchmarkSupport.parse(args);
+        String bootstrapServers = options.getOrDefault("bootstrap-servers", "localhost:9092");
+        long records = Long.parseLong(options.getOrDefault("records", "200000"));
+        long timeoutMs = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "600"))).toMillis();
+
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.valueOf(options.getOrDefault("split-mode", "REPUBLISH")));
+        properties.setWireFormat(AdEvaluationProperties.WireFormat.valueOf(options.getOrDefault("wire-format", "JSON")));
+
+        Properties producerConfig = new Properties();
+        producerConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerConfig.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        producerConfig.put(ProducerConfig.BATCH_SIZE_CONFIG, 262144);
+
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+             KafkaProducer<String, Object> producer = new KafkaProducer<>(producerConfig, new StringSerializer(),
+                     TypeDispatchingSerializer.forWireFormat(properties.getWireFormat()))) {
+
+            if (Boolean.parseBoolean(options.getOrDefault("produce", "true"))) {
+                RecordGenerator generator = new RecordGenerator(options);
+                for (long i = 0; i < records; i++) {
+                    Object record = generator.next();
+                    producer.send(new ProducerRecord<>(record instanceof WatchingAdLog ? "adLog" : "purchaseLog", Producer.keyOf(record), record));
+                }
+                producer.flush();
+            }
+            Map<TopicPartition, Long> endOffsets = endOffsets(admin);
+            long inputRecords = endOffsets.values().stream().mapToLong(Long::longValue).sum();
+            System.out.printf("input records=%,d options=%s%n", inputRecords, options);
+
+            Map<String, Double> throughputs = new HashMap<>();
+            for (String guarantee : options.getOrDefault("guarantees", "at_least_once,exactly_once_v2").split(",")) {
+                StreamsTuningProperties tuning = new StreamsTuningProperties();
+                tuning.setProcessingGuarantee(StreamsTuningProperties.ProcessingGuarantee.valueOf(guarantee.trim().toUpperCase()));
+                if (options.containsKey("commit-interval-ms")) {
+                    tuning.setCommitIntervalMs(Long.parseLong(options.get("commit-interval-ms")));
+                }
+                tuning.setTransactionTimeoutMs(Long.parseLong(options.getOrDefault("transaction-timeout-ms", "10000")));
+                tuning.setNumStreamThreads(Integer.parseInt(options.getOrDefault("num-stream-threads", "1")));
+                tuning.validate();
+
+                String applicationId = "guarantee-load-" + guarantee.trim() + "-" + System.currentTimeMillis();
+                StreamsBuilder sb = new StreamsBuilder();
+                new AdEvaluationService(new BenchmarkSupport.DirectProducer(producer), properties, tuning).buildPipeline(sb);
+
+                long elapsedMs;
+                Path stateDir = Files.createTempDirectory("guarantee-load");
+                try (KafkaStreams streams = new KafkaStreams(sb.build(), streamsConfig(bootstrapServers, applicationId, stateDir, tuning))) {
+                    long start = System.currentTimeMillis();
+                    streams.start();
+                    while (committed(admin, applicationId, endOffsets) < inputRecords) {
+                        if (System.currentTimeMillis() - start > timeoutMs) {
+                            throw new IllegalStateException(guarantee + " did not finish within " + timeoutMs + " ms");
+                        }
+                        Thread.sleep(200);
+                    }
+                    elapsedMs = System.currentTimeMillis() - start;
+                    streams.close(Duration.ofSeconds(30));
+                } finally {
+                    BenchmarkSupport.deleteStateDir(stateDir);
+                }
+                double throughput = inputRecords * 1000.0 / elapsedMs;
+                throughputs.put(guarantee.trim(), throughput);
+                System.out.printf("%-16s: %,.0f records/s (%,d ms, commit.interval.ms=%d)%n",
+                        guarantee.trim(), throughput, elapsedMs, tuning.effectiveCommitIntervalMs());
+            }
+
+            Double atLeastOnce = throughputs.get(StreamsConfig.AT_LEAST_ONCE);
+            Double exactlyOnce = throughputs.get(StreamsConfig.EXACTLY_ONCE_V2);
+            if (atLeastOnce != null && exactlyOnce != null) {
+                System.out.printf("exactly_once_v2 cost : %.1f%% of at_least_once throughput%n", (1 - exactlyOnce / atLeastOnce) * 100);
+            }
+        }
+    }
+
+    private static Properties streamsConfig(String bootstrapServers, String applicationId, Path stateDir, StreamsTuningProperties tuning) {
+        Properties config = BenchmarkSupport.streamsConfig(bootstrapServers, applicationId, stateDir, tuning);
+        config.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, tuning.getProcessingGuarantee().configValue());
+        config.put(StreamsConfig.producerPrefix(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG), tuning.getTransactionTimeoutMs());
+        config.put(StreamsConfig.consumerPrefix(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG), "earliest");
+        return config;
+    }
+
+    private static Map<TopicPartition, Long> endOffsets(Admin admin) throws Exception {
+        Map<TopicPartition, OffsetSpec> request = admin.describeTopics(INPUT_TOPICS).allTopicNames().get().values().stream()
+                .flatMap(topic -> topic.partitions().stream().map(p -> new TopicPartition(topic.name(), p.partition())))
+                .collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.latest()));
+        return admin.listOffsets(request).all().get().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().offset()));
+    }
+
+    // application.id (consumer group) 가 입력 Topic 에 commit 한 offset 합계. 측정 시작 시점의 end offset 까지만 셉니다.
+    private static long committed(Admin admin, String applicationId, Map<TopicPartition, Long> endOffsets) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(applicationId).partitionsToOffsetAndMetadata().get();
+        long committed = 0;
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            OffsetAndMetadata offset = offsets.get(end.getKey());
+            if (offset != null) {
+                committed += Math.min(offset.offset(), end.getValue());
+            }
+        }
+        return committed;
+    }
+}
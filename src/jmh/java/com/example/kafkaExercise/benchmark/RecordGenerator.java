@@ -0,0 +1,123 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// 재현 가능한(seed 고정) 광고/구매 이력 생성기입니다.
+// key cardinality, 주문당 상품 수, 시청시간/가격 분포를 조절할 수 있습니다.
+public class RecordGenerator {
+
+    private static final DateTimeFormatter DT_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String[] AD_TYPES = {"banner", "clip", "main", "live"};
+
+    final int users;
+    final int products;
+    final int ads;
+    final int minProductsPerOrder;
+    final int maxProductsPerOrder;
+    final double watchTimeMeanSec;   // 지수분포 평균
+    final double priceMedian;        // 로그정규분포 중앙값
+    final double priceSigma;
+    final double purchaseRatio;      // 생성되는 record 중 구매이력 비율
+    final long eventsPerSecond;      // event time 이 진행되는 속도
+
+    private final SplittableRandom rd;
+    private long eventTimeMs;
+    private long generated;
+    private long lastDtSecond = Long.MIN_VALUE;
+    private String lastDt;
+
+    public RecordGenerator(Map<String, String> options) {
+        this.users = intOption(options, "users", 100_000);
+        this.products = intOption(options, "products", 10_000);
+        this.ads = intOption(options, "ads", 1_000);
+        this.minProductsPerOrder = intOption(options, "min-products", 1);
+        this.maxProductsPerOrder = intOption(options, "max-products", 10);
+        this.watchTimeMeanSec = Double.parseDouble(options.getOrDefault("watch-time-mean", "15"));
+        this.priceMedian = Double.parseDouble(options.getOrDefault("price-median", "30000"));
+        this.priceSigma = Double.parseDouble(options.getOrDefault("price-sigma", "1.0"));
+        this.purchaseRatio = Double.parseDouble(options.getOrDefault("purchase-ratio", "0.3"));
+        this.eventsPerSecond = Long.parseLong(options.getOrDefault("events-per-second", "1000"));
+        this.rd = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+        this.eventTimeMs = LocalDateTime.of(2023, 2, 1, 7, 0).toEpochSecond(java.time.ZoneOffset.UTC) * 1000;
+    }
+
+    public long eventTimeMs() {
+        return eventTimeMs;
+    }
+
+    // 다음 record 를 만듭니다. WatchingAdLog 또는 PurchaseLog 입니다.
+    public Object next() {
+        generated++;
+        eventTimeMs += Math.max(1, 1000 / Math.max(1, eventsPerSecond));
+        String userId = id("uid-", rd.nextInt(users));
+        if (rd.nextDouble() < purchaseRatio) {
+            return purchase(userId);
+        }
+        return ad(userId, id("pg-", rd.nextInt(products)));
+    }
+
+    private WatchingAdLog ad(String userId, String productId) {
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId(userId);
+        ad.setProductId(productId);
+        ad.setAdId(id("ad-", rd.nextInt(ads)));
+        ad.setAdType(AD_TYPES[rd.nextInt(AD_TYPES.length)]);
+        ad.setWatchingTime(String.valueOf((int) Math.round(-Math.log(1 - rd.nextDouble()) * watchTimeMeanSec)));
+        ad.setWatchingDt(dt());
+        return ad;
+    }
+
+    private PurchaseLog purchase(String userId) {
+        PurchaseLog purchase = new PurchaseLog();
+        purchase.setOrderId(id("od-", generated));
+        purchase.setUserId(userId);
+        purchase.setPurchasedDt(dt());
+        int count = minProductsPerOrder + rd.nextInt(maxProductsPerOrder - minProductsPerOrder + 1);
+        ArrayList<Map<String, String>> productInfo = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> prod = new HashMap<>(4);
+            prod.put("productId", id("pg-", rd.nextInt(products)));
+            prod.put("price", String.valueOf(price()));
+            productInfo.add(prod);
+        }
+        purchase.setProductInfo(productInfo);
+        return purchase;
+    }
+
+    private long price() {
+        // Box-Muller 로 정규분포를 만든 뒤 로그정규분포로 바꿉니다.
+        double gaussian = Math.sqrt(-2 * Math.log(1 - rd.nextDouble())) * Math.cos(2 * Math.PI * rd.nextDouble());
+        return Math.max(100, Math.round(priceMedian * Math.exp(priceSigma * gaussian)));
+    }
+
+    private String dt() {
+        long second = eventTimeMs / 1000;
+        if (second != lastDtSecond) {
+            lastDtSecond = second;
+            lastDt = LocalDateTime.ofEpochSecond(second, 0, java.time.ZoneOffset.UTC).format(DT_FORMAT);
+        }
+        return lastDt;
+    }
+
+    private static String id(String prefix, long number) {
+        String digits = Long.toString(number);
+        StringBuilder sb = new StringBuilder(prefix.length() + Math.max(5, digits.length()));
+        sb.append(prefix);
+        for (int i = digits.length(); i < 5; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    static int intOption(Map<String, String> options, String key, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.util.*;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// util 의 Serializer 와 AdEvaluationService 가 쓰는 Deserializer 의 처리량/할당량을 측정합니다.
+// JSON_SPRING : util JSON Serializer + spring-kafka JsonDeserializer (기존 pipeline)
+// JSON        : util JSON Serializer + DualFormatDeserializer
+// BINARY      : BinarySerializer + DualFormatDeserializer
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"JSON_SPRING", "JSON", "BINARY"})
+    String format;
+
+    @Param({"2", "10"})
+    int productsPerOrder;
+
+    Serializer<WatchingAdLog> watchingAdLogSerializer;
+    Serializer<PurchaseLog> purchaseLogSerializer;
+    Serializer<PurchaseLogOneProduct> purchaseLogOneProductSerializer;
+    Deserializer<WatchingAdLog> watchingAdLogDeserializer;
+    Deserializer<PurchaseLog> purchaseLogDeserializer;
+    Deserializer<PurchaseLogOneProduct> purchaseLogOneProductDeserializer;
+
+    WatchingAdLog watchingAdLog;
+    PurchaseLog purchaseLog;
+    PurchaseLogOneProduct purchaseLogOneProduct;
+    byte[] watchingAdLogBytes;
+    byte[] purchaseLogBytes;
+    byte[] purchaseLogOneProductBytes;
+
+    @Setup
+    public void setUp() {
+        if ("BINARY".equals(format)) {
+            watchingAdLogSerializer = new WatchingAdLogBinarySerializer();
+            purchaseLogSerializer = new PurchaseLogBinarySerializer();
+            purchaseLogOneProductSerializer = new PurchaseLogOneProductBinarySerializer();
+        } else {
+            watchingAdLogSerializer = new WatchingAdLogSerializer();
+            purchaseLogSerializer = new PurchaseLogSerializer();
+            purchaseLogOneProductSerializer = new PurchaseLogOneProductSerializer();
+        }
+        if ("JSON_SPRING".equals(format)) {
+            watchingAdLogDeserializer = new org.springframework.kafka.support.serializer.JsonDeserializer<>(WatchingAdLog.class);
+            purchaseLogDeserializer = new org.springframework.kafka.support.serializer.JsonDeserializer<>(PurchaseLog.class);
+            purchaseLogOneProductDeserializer = new org.springframework.kafka.support.serializer.JsonDeserializer<>(PurchaseLogOneProduct.class);
+        } else {
+            watchingAdLogDeserializer = new WatchingAdLogDeserializer();
+            purchaseLogDeserializer = new PurchaseLogDeserializer();
+            purchaseLogOneProductDeserializer = new PurchaseLogOneProductDeserializer();
+        }
+
+        watchingAdLog = BenchmarkPayloads.watchingAdLog();
+        purchaseLog = BenchmarkPayloads.purchaseLog(productsPerOrder);
+        purchaseLogOneProduct = BenchmarkPayloads.purchaseLogOneProduct();
+        watchingAdLogBytes = watchingAdLogSerializer.serialize("adLog", watchingAdLog);
+        purchaseLogBytes = purchaseLogSerializer.serialize("purchaseLog", purchaseLog);
+        purchaseLogOneProductBytes = purchaseLogOneProductSerializer.serialize("purchaseLogOneProduct", purchaseLogOneProduct);
+    }
+
+    @Benchmark
+    public byte[] serializeWatchingAdLog() {
+        return watchingAdLogSerializer.serialize("adLog", watchingAdLog);
+    }
+
+    @Benchmark
+    public WatchingAdLog deserializeWatchingAdLog() {
+        return watchingAdLogDeserializer.deserialize("adLog", watchingAdLogBytes);
+    }
+
+    @Benchmark
+    public byte[] serializePurchaseLog() {
+        return purchaseLogSerializer.serialize("purchaseLog", purchaseLog);
+    }
+
+    @Benchmark
+    public PurchaseLog deserializePurchaseLog() {
+        return purchaseLogDeserializer.deserialize("purchaseLog", purchaseLogBytes);
+    }
+
+    @Benchmark
+    public byte[] serializePurchaseLogOneProduct() {
+        return purchaseLogOneProductSerializer.serialize("purchaseLogOneProduct", purchaseLogOneProduct);
+    }
+
+    @Benchmark
+    public PurchaseLogOneProduct deserializePurchaseLogOneProduct() {
+        return purchaseLogOneProductDeserializer.deserialize("purchaseLogOneProduct", purchaseLogOneProductBytes);
+    }
+}
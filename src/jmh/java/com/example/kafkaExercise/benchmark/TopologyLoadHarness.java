@@ -0,0 +1,166 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.BoundedMemoryRocksDBConfig;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.service.AdEvaluationService;
+import com.example.kafkaExercise.service.Producer;
+import com.example.kafkaExercise.util.AdSerdes;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+// broker 없이 실제 AdEvaluationService topology 에 대량의 record 를 흘려보내는 부하 측정 도구입니다.
+// mvn -Pjmh test-compile exec:exec@load -Dload.args="--records=1000000 --users=50000 --split-mode=FLAT_MAP"
+// TopologyTestDriver 는 record 마다 commit(store flush, checkpoint) 하므로 절대값은 실제 KafkaStreams 보다 낮게 나옵니다.
+// 설정/코드 변경 전후의 상대 비교와 state store 크기 추정 용도로 사용합니다.
+//
+// 옵션 (--key=value)
+//   records, warmup-records, report-every : 측정/워밍업 record 수, 중간 보고 주기
+//   split-mode, wire-format              : AdEvaluationProperties 와 동일
+//   dsl-store                            : rocksDB (기본) | in_memory
+//   ad-store-type                        : AdEvaluationProperties 와 동일 (PERSISTENT, IN_MEMORY, LRU)
+//   rocksdb-bounded                      : true 이면 BoundedMemoryRocksDBConfig 를 기본값으로 적용합니다.
+//   dedup, dedup-bloom-filter            : true 이면 source 뒤의 중복 제거 stage 를 켭니다. (bloom filter 는 기본 true)
+//   co-partitioned                       : true 이면 Producer 의 join key 를 그대로 씁니다. (repartition 없음, 입력은 항상 Producer.keyOf 로 보냅니다.)
+//   state-dir                            : state store 위치. 기본은 /dev/shm (있을 때) 이고, 그 아래 만든 임시 디렉터리는 끝나면 지웁니다.
+//   users, products, ads, min-products, max-products, watch-time-mean, price-median, price-sigma,
+//   purchase-ratio, events-per-second, seed : RecordGenerator 참고
+public class TopologyLoadHarness {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = BenchmarkSupport.parse(args);
+        long records = Long.parseLong(options.getOrDefault("records", "1000000"));
+        long warmupRecords = Long.parseLong(options.getOrDefault("warmup-records", String.valueOf(Math.min(100_000, records / 10))));
+        long reportEvery = Long.parseLong(options.getOrDefault("report-every", "100000"));
+
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.valueOf(options.getOrDefault("split-mode", "FLAT_MAP")));
+        properties.setWireFormat(AdEvaluationProperties.WireFormat.valueOf(options.getOrDefault("wire-format", "JSON")));
+        properties.setAdStoreType(AdEvaluationProperties.StoreType.valueOf(options.getOrDefault("ad-store-type", "PERSISTENT")));
+        properties.getDedup().setEnabled(Boolean.parseBoolean(options.getOrDefault("dedup", "false")));
+        properties.getDedup().setBloomFilter(Boolean.parseBoolean(options.getOrDefault("dedup-bloom-filter", "true")));
+        properties.setCoPartitionedSources(Boolean.parseBoolean(options.getOrDefault("co-partitioned", "false")));
+
+        Path stateDir = Files.createTempDirectory(BenchmarkSupport.defaultStateRoot(options), "ad-evaluation-load");
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "ad-evaluation-load");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        config.put(StreamsConfig.DEFAULT_DSL_STORE_CONFIG, options.getOrDefault("dsl-store", StreamsConfig.ROCKS_DB));
+        if (Boolean.parseBoolean(options.getOrDefault("rocksdb-bounded", "false"))) {
+            config.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfig.class);
+            config.putAll(BoundedMemoryRocksDBConfig.toStreamsConfig(new StreamsTuningProperties.RocksDb()));
+        }
+
+        BenchmarkSupport.LoopbackProducer producer = new BenchmarkSupport.LoopbackProducer();
+        // default.dsl.store 는 StreamsBuilder 의 TopologyConfig 로 넘겨야 Materialized store 에 적용됩니다.
+        StreamsBuilder sb = new StreamsBuilder(new TopologyConfig(new StreamsConfig(config)));
+        new AdEvaluationService(producer, properties).buildPipeline(sb);
+
+        // 측정 중의 console 출력이 결과를 덮지 않도록 버립니다.
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        RecordGenerator generator = new RecordGenerator(options);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long outputs = 0;
+        long start = 0;
+
+        report.printf("records=%,d warmup=%,d options=%s state.dir=%s%n", records, warmupRecords, options, stateDir);
+        try (TopologyTestDriver driver = new TopologyTestDriver(sb.build(), config, Instant.ofEpochMilli(generator.eventTimeMs()))) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    Serdes.String().serializer(), AdSerdes.watchingAdLog(properties.getWireFormat()).serializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    Serdes.String().serializer(), AdSerdes.purchaseLog(properties.getWireFormat()).serializer());
+            TestInputTopic<String, PurchaseLogOneProduct> purchaseLogOneProduct = driver.createInputTopic("purchaseLogOneProduct",
+                    Serdes.String().serializer(), AdSerdes.purchaseLogOneProduct(properties.getWireFormat()).serializer());
+            TestOutputTopic<String, byte[]> output = driver.createOutputTopic("AdEvaluationComplete",
+                    Serdes.String().deserializer(), Serdes.ByteArray().deserializer());
+
+            for (long i = 0; i < warmupRecords + records; i++) {
+                if (i == warmupRecords) {
+                    start = System.nanoTime();
+                    output.readRecordsToList();
+                }
+                Object record = generator.next();
+                long timestamp = generator.eventTimeMs();
+
+                long t0 = System.nanoTime();
+                if (record instanceof WatchingAdLog) {
+                    adLog.pipeInput(Producer.keyOf(record), (WatchingAdLog) record, timestamp);
+                } else {
+                    purchaseLog.pipeInput(Producer.keyOf(record), (PurchaseLog) record, timestamp);
+                    for (PurchaseLogOneProduct one : producer.sent) {
+                        purchaseLogOneProduct.pipeInput(Producer.keyOf(one), one, timestamp);
+                    }
+                    producer.sent.clear();
+                }
+                long elapsed = System.nanoTime() - t0;
+
+                if (i >= warmupRecords) {
+                    histogram.record(elapsed);
+                    if (!output.isEmpty()) {
+                        outputs += output.getQueueSize();
+                        output.readRecordsToList();
+                    }
+                    long measured = i - warmupRecords + 1;
+                    if (measured % reportEvery == 0) {
+                        report.printf("  %,d records, %,.0f records/s%n", measured, measured * 1e9 / (System.nanoTime() - start));
+                    }
+                }
+            }
+            long totalNanos = System.nanoTime() - start;
+
+            report.println("---- result ----");
+            report.printf("throughput      : %,.0f records/s (%,d records in %.2f s)%n",
+                    records * 1e9 / totalNanos, records, totalNanos / 1e9);
+            report.printf("latency p50/p99 : %,.1f us / %,.1f us (max %,.1f us)%n",
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3, histogram.max() / 1e3);
+            report.printf("join outputs    : %,d%n", outputs);
+            for (String storeName : driver.getAllStateStores().keySet()) {
+                KeyValueStore<Object, Object> store = driver.getKeyValueStore(storeName);
+                if (store != null) {
+                    report.printf("store %-16s: ~%,d entries%n", storeName, store.approximateNumEntries());
+                }
+            }
+            report.printf("state.dir size  : %,d bytes%n", directorySize(stateDir));
+            driver.metrics().forEach((name, metric) -> {
+                if (name.group().equals("stream-dedup-metrics") && !name.name().endsWith("-rate")) {
+                    report.printf("%-16s %-18s: %,.0f%n", name.tags().get("dedup-id"), name.name(), ((Number) metric.metricValue()).doubleValue());
+                }
+            });
+            if (BoundedMemoryRocksDBConfig.sharedCacheCapacity() > 0) {
+                report.printf("rocksdb cache   : %,d / %,d bytes (pinned %,d)%n", BoundedMemoryRocksDBConfig.sharedCacheUsage(),
+                        BoundedMemoryRocksDBConfig.sharedCacheCapacity(), BoundedMemoryRocksDBConfig.sharedCachePinnedUsage());
+            }
+        } finally {
+            System.setOut(report);
+            BenchmarkSupport.deleteStateDir(stateDir);
+        }
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+}
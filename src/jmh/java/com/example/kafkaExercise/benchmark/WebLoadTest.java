@@ -0,0 +1,116 @@
+package com.example.kafkaExercise.benchmark;
+
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 실행 중인 application 의 /message, /ingest/adLog 에 동시 요청을 보내 처리량과 지연을 봅니다.
+// web.execution.mode (BLOCKING / ASYNC / VIRTUAL) 를 바꿔 띄운 뒤 같은 옵션으로 비교합니다.
+// VIRTUAL 은 Java 21 이상에서 띄울 때만 따로 잴 수 있습니다. 이 project 의 target 인 Java 17 에서는 ASYNC 로 동작하므로 ASYNC 와 같은 측정이 됩니다.
+// mvn -Pjmh test-compile exec:exec@web-load -Dload.args="--concurrency=2000 --duration-seconds=30"
+//
+// 옵션 (--key=value)
+//   url               : 기본 http://localhost:8080
+//   endpoint          : message (기본) | ingest
+//   concurrency       : 동시에 열어둘 요청 수 (closed loop, 응답을 받으면 바로 다음 요청을 보냅니다.)
+//   duration-seconds  : 측정 시간, warmup-seconds : 측정 전 워밍업 시간
+//   batch-size        : ingest 한 요청에 담을 record 수
+//   나머지 옵션은 RecordGenerator 참고 (ingest body 생성)
+public class WebLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BenchmarkSupport.parse(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        boolean ingest = "ingest".equals(options.getOrDefault("endpoint", "message"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        long durationNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "30"))).toNanos();
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup-seconds", "5"))).toNanos();
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "100"));
+
+        HttpRequest request = ingest
+                ? HttpRequest.newBuilder(URI.create(url + "/ingest/adLog"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(ndjson(options, batchSize)))
+                        .build()
+                : HttpRequest.newBuilder(URI.create(url + "/message?msg=load-test"))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        Map<String, AtomicLong> statuses = new TreeMap<>();
+        AtomicLong inFlight = new AtomicLong();
+        AtomicLong maxInFlight = new AtomicLong();
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        CountDownLatch finished = new CountDownLatch(concurrency);
+
+        System.out.printf("%s concurrency=%,d duration=%ds options=%s%n", request.uri(), concurrency, durationNanos / 1_000_000_000L, options);
+        for (int i = 0; i < concurrency; i++) {
+            new Object() {
+                void send() {
+                    long t0 = System.nanoTime();
+                    if (t0 >= end) {
+                        finished.countDown();
+                        return;
+                    }
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+                        inFlight.decrementAndGet();
+                        long t1 = System.nanoTime();
+                        if (t0 >= measureFrom) {
+                            String status = ex != null ? ex.getClass().getSimpleName() : String.valueOf(response.statusCode());
+                            synchronized (histogram) {
+                                histogram.record(t1 - t0);
+                                statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                            }
+                        }
+                        send();
+                    });
+                }
+            }.send();
+        }
+        finished.await();
+
+        long ok;
+        synchronized (histogram) {
+            AtomicLong okCount = statuses.get("200");
+            ok = okCount == null ? 0 : okCount.get();
+        }
+        System.out.println("---- result ----");
+        System.out.printf("requests        : %,d (%,.0f requests/s, 200 : %,.0f requests/s)%n",
+                histogram.count(), histogram.count() * 1e9 / durationNanos, ok * 1e9 / durationNanos);
+        if (ingest) {
+            System.out.printf("records         : %,.0f records/s (200 only)%n", ok * batchSize * 1e9 / durationNanos);
+        }
+        System.out.printf("latency p50/p99 : %,.1f ms / %,.1f ms (max %,.1f ms)%n",
+                histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6, histogram.max() / 1e6);
+        System.out.printf("max in flight   : %,d%n", maxInFlight.get());
+        System.out.printf("status          : %s%n", statuses);
+    }
+
+    private static String ndjson(Map<String, String> options, int batchSize) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RecordGenerator generator = new RecordGenerator(options);
+        StringBuilder body = new StringBuilder();
+        int written = 0;
+        while (written < batchSize) {
+            Object record = generator.next();
+            if (record instanceof WatchingAdLog) {
+                body.append(objectMapper.writeValueAsString(record)).append('\n');
+                written++;
+            }
+        }
+        return body.toString();
+    }
+}
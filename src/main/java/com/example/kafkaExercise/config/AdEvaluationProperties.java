@@ -0,0 +1,169 @@
+package com.example.kafkaExercise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+@Data
+@ConfigurationProperties(prefix = "ad-evaluation")
+public class AdEvaluationProperties {
+
+    // 구매이력을 상품별로 나누는 방식
+    // REPUBLISH : foreach 안에서 Producer로 purchaseLogOneProduct Topic에 다시 produce 후 읽어옵니다. (기존 방식)
+    // FLAT_MAP  : Streams topology 안에서 flatMapValues로 나눕니다. (Topic hop, 추가 Producer 없음)
+    SplitMode splitMode = SplitMode.REPUBLISH;
+
+    // Topology 가 쓰는 (state store, 내부 topic, AdEvaluationComplete) 값의 형식이며 Producer 의 value 형식도 따라갑니다.
+    // 읽을 때는 첫 byte 로 구분하므로 JSON 과 BINARY 가 섞여 있어도 됩니다.
+    WireFormat wireFormat = WireFormat.JSON;
+
+    // 광고와 구매를 잇는 방식
+    // TABLE    : adStore, purchaseLogStore 두 KTable 의 join 입니다. (기존 방식, 모든 key 를 계속 보관합니다.)
+    // WINDOWED : watchingDt / purchasedDt 기준으로 광고 시청 후 attributionWindow 안에 일어난 구매만 join 합니다.
+    //            join store 는 attributionWindow + attributionGrace 만큼만 보관합니다.
+    JoinMode joinMode = JoinMode.TABLE;
+    Duration attributionWindow = Duration.ofDays(7);
+    // 늦게 도착한 record 를 받아주는 시간
+    Duration attributionGrace = Duration.ofHours(1);
+    // watchingDt / purchasedDt 의 time zone
+    ZoneId eventTimeZone = ZoneId.of("Asia/Seoul");
+
+    // adLog / purchaseLogOneProduct 가 Producer 에서 join key 로 보내진 경우 (Producer.keyOf) true 로 둡니다.
+    // Streams 에서 key 를 다시 만들지 않아 두 repartition topic 이 없어집니다. 두 Topic 의 partition 수가 같아야 합니다.
+    // topology (processor / 내부 topic 이름) 가 바뀌므로 켜거나 끌 때는 application reset 후 새로 시작해야 합니다.
+    // FLAT_MAP 은 상품 분리를 topology 안에서 하므로 구매 쪽 repartition 은 남습니다. dedup 을 켜도 남습니다. (store 가 있는 process)
+    boolean coPartitionedSources = false;
+
+    // adStore 의 저장 방식
+    // PERSISTENT : RocksDB (기본, kafka.streams.rocksdb.* 로 메모리 상한을 둡니다.)
+    // IN_MEMORY  : heap 의 in-memory store. 광고 이력 전체가 heap 에 들어갈 때 사용합니다.
+    // LRU        : 최근 adStoreLruMaxEntries 건만 heap 에 둡니다. 밀려난 광고와의 join 은 일어나지 않습니다.
+    StoreType adStoreType = StoreType.PERSISTENT;
+    int adStoreLruMaxEntries = 1_000_000;
+
+    // adId / adType 별 시청, 구매, 매출 window 집계 (AdStatsQueryService 로 조회)
+    Stats stats = new Stats();
+
+    // adLog / purchaseLog 의 재전송 중복 제거 (adLog 는 필드 전체의 hash, purchaseLog 는 orderId 기준)
+    Dedup dedup = new Dedup();
+
+    // 읽을 수 없거나 처리 중 예외가 나는 record 를 source 별 dead letter Topic (adLog-dlq 등) 으로 보내고 다음 record 를 처리합니다.
+    DeadLetter deadLetter = new DeadLetter();
+
+    // buildPipeline 단계별 counter / timer (PipelineMetrics)
+    Metrics metrics = new Metrics();
+
+    // join 결과의 productInfo 에 상품 catalog (category, brand, margin) 를 붙입니다. (compacted Topic 을 GlobalKTable 로 읽습니다.)
+    Catalog catalog = new Catalog();
+
+    // adId / adType 별 고유 시청자 수 (HyperLogLog) 와 구매가 많은 상품 (CountMinSketch + top-K) 의 근사 window 집계
+    Sketches sketches = new Sketches();
+
+    // 읽은 adLog / purchaseLog 를 이 서버의 디스크에 memory-mapped segment 로 남깁니다. (SegmentArchive)
+    // broker 없이 ArchiveReplay 로 topology 에 다시 넣어 backfill 이나 설정을 바꾼 결과를 비교할 때 씁니다.
+    Archive archive = new Archive();
+
+    @Data
+    public static class Catalog {
+        boolean enabled = false;
+        // key 가 productId 인 compacted Topic
+        String topic = "productCatalog";
+        // GlobalKTable store 앞의 task 별 heap LRU. 자주 팔리는 상품은 store 조회와 역직렬화 없이 붙입니다.
+        boolean nearCache = true;
+        int nearCacheMaxEntries = 10_000;
+        // catalog 가 바뀌어도 near cache 에는 이 시간 동안 이전 값이 남을 수 있습니다.
+        Duration nearCacheTtl = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Metrics {
+        // 단계별 처리 시간과 event time lag 은 이 건수 중 1건만 잽니다. 0 이면 재지 않습니다.
+        int timerSampleEvery = 100;
+    }
+
+    @Data
+    public static class DeadLetter {
+        boolean enabled = false;
+        String topicSuffix = "-dlq";
+        // DeadLetterReplayService 로 source Topic 에 다시 넣는 최대 횟수. 넘긴 record 는 dead letter Topic 에 남겨둡니다.
+        int maxReplays = 3;
+        // replay 한 번에 읽는 최대 record 수
+        int replayBatchSize = 1000;
+    }
+
+    @Data
+    public static class Dedup {
+        boolean enabled = false;
+        // 같은 id 를 중복으로 보는 시간. store 는 이 기간만큼만 보관합니다.
+        Duration window = Duration.ofHours(1);
+        // store 앞에 Bloom filter 를 두어 처음 보는 id 는 store 조회 없이 통과시킵니다.
+        boolean bloomFilter = true;
+        // task 당 window 동안 들어올 id 수와 목표 오탐률. filter 크기(task 당 2세대)가 여기서 정해집니다.
+        long expectedInsertions = 1_000_000;
+        double falsePositiveRate = 0.01;
+    }
+
+    @Data
+    public static class Stats {
+        boolean enabled = false;
+        // tumbling : 겹치지 않는 구간, hopping : hoppingAdvance 마다 시작하는 hoppingSize 길이의 구간
+        Duration tumblingSize = Duration.ofHours(1);
+        Duration hoppingSize = Duration.ofHours(24);
+        Duration hoppingAdvance = Duration.ofHours(1);
+        Duration grace = Duration.ofMinutes(10);
+        // window store 보관 기간. hoppingSize + grace 이상이어야 합니다.
+        Duration retention = Duration.ofDays(7);
+    }
+
+    @Data
+    public static class Sketches {
+        boolean enabled = false;
+        Duration windowSize = Duration.ofDays(1);
+        Duration grace = Duration.ofMinutes(10);
+        Duration retention = Duration.ofDays(7);
+        // ad / adType window 하나의 크기는 2^hllPrecision + 1 byte 입니다. (12 : 4 KB, 오차 약 1.6%)
+        int hllPrecision = 12;
+        // 상품은 productId hash 로 productShards 개의 key 로 나눠 집계합니다. (한 partition 에 몰리지 않게)
+        // shard 마다 window 하나에 width x depth x 4 byte 의 sketch 와 topK 개의 후보를 둡니다.
+        int productShards = 8;
+        int cmsWidth = 1024;
+        int cmsDepth = 4;
+        int topK = 50;
+    }
+
+    @Data
+    public static class Archive {
+        boolean enabled = false;
+        // <dir>/<topic>/partition-N 에 segment 를 씁니다.
+        String dir = "archive";
+        // segment 하나의 크기. 미리 map 하지만 sparse file 이라 쓴 만큼만 disk 를 씁니다.
+        int segmentBytes = 128 * 1024 * 1024;
+        // 이만큼 쓸 때마다 timestamp index 를 하나 남깁니다. 작을수록 seek 후 건너뛰는 양이 줄고 index 가 커집니다.
+        int indexIntervalBytes = 4096;
+        // map 한 내용을 disk 로 내리는 주기 (서버 장애 대비). process 가 죽는 것은 OS 가 써주므로 상관없습니다.
+        Duration flushInterval = Duration.ofSeconds(10);
+    }
+
+    public enum SplitMode {
+        REPUBLISH,
+        FLAT_MAP
+    }
+
+    public enum JoinMode {
+        TABLE,
+        WINDOWED
+    }
+
+    public enum StoreType {
+        PERSISTENT,
+        IN_MEMORY,
+        LRU
+    }
+
+    public enum WireFormat {
+        JSON,
+        BINARY
+    }
+}
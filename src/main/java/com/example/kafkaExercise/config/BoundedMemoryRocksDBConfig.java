@@ -0,0 +1,114 @@
+package com.example.kafkaExercise.config;
+
+import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.WriteBufferManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 한 instance 의 모든 RocksDB store 가 block cache 하나와 write buffer manager 하나를 공유하도록 합니다.
+// store (task) 가 늘어나도 off-heap 사용량은 block-cache-bytes 를 넘지 않습니다.
+// Kafka Streams 가 store 마다 reflection 으로 생성하므로 설정은 streams config 의 rocksdb.bounded.* 로 받습니다.
+public class BoundedMemoryRocksDBConfig implements RocksDBConfigSetter {
+
+    public static final String BLOCK_CACHE_BYTES = "rocksdb.bounded.block.cache.bytes";
+    public static final String WRITE_BUFFER_MANAGER_BYTES = "rocksdb.bounded.write.buffer.manager.bytes";
+    public static final String HIGH_PRIORITY_POOL_RATIO = "rocksdb.bounded.high.priority.pool.ratio";
+    public static final String WRITE_BUFFER_BYTES = "rocksdb.bounded.write.buffer.bytes";
+    public static final String MAX_WRITE_BUFFERS = "rocksdb.bounded.max.write.buffers";
+    public static final String BLOCK_SIZE_BYTES = "rocksdb.bounded.block.size.bytes";
+    public static final String BLOOM_FILTER_BITS_PER_KEY = "rocksdb.bounded.bloom.filter.bits.per.key";
+    public static final String MAX_BACKGROUND_JOBS = "rocksdb.bounded.max.background.jobs";
+
+    // process 전체에서 공유합니다. store 를 닫을 때도 닫지 않습니다.
+    private static Cache cache;
+    private static WriteBufferManager writeBufferManager;
+    private static long cacheCapacity;
+
+    private BloomFilter filter;
+
+    public static Map<String, Object> toStreamsConfig(StreamsTuningProperties.RocksDb rocksdb) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(BLOCK_CACHE_BYTES, rocksdb.getBlockCacheBytes());
+        config.put(WRITE_BUFFER_MANAGER_BYTES, rocksdb.getWriteBufferManagerBytes());
+        config.put(HIGH_PRIORITY_POOL_RATIO, rocksdb.getHighPriorityPoolRatio());
+        config.put(WRITE_BUFFER_BYTES, rocksdb.getWriteBufferBytes());
+        config.put(MAX_WRITE_BUFFERS, rocksdb.getMaxWriteBuffers());
+        config.put(BLOCK_SIZE_BYTES, rocksdb.getBlockSizeBytes());
+        config.put(BLOOM_FILTER_BITS_PER_KEY, rocksdb.getBloomFilterBitsPerKey());
+        config.put(MAX_BACKGROUND_JOBS, rocksdb.getMaxBackgroundJobs());
+        return config;
+    }
+
+    @Override
+    public void setConfig(String storeName, Options options, Map<String, Object> configs) {
+        StreamsTuningProperties.RocksDb defaults = new StreamsTuningProperties.RocksDb();
+        initSharedMemory(
+                longValue(configs, BLOCK_CACHE_BYTES, defaults.getBlockCacheBytes()),
+                longValue(configs, WRITE_BUFFER_MANAGER_BYTES, defaults.getWriteBufferManagerBytes()),
+                doubleValue(configs, HIGH_PRIORITY_POOL_RATIO, defaults.getHighPriorityPoolRatio()));
+
+        BlockBasedTableConfig tableConfig = (BlockBasedTableConfig) options.tableFormatConfig();
+        tableConfig.setBlockCache(cache);
+        // index / filter block 도 같은 cache 안에서 관리해야 전체 메모리가 제한됩니다.
+        tableConfig.setCacheIndexAndFilterBlocks(true);
+        tableConfig.setCacheIndexAndFilterBlocksWithHighPriority(true);
+        tableConfig.setPinTopLevelIndexAndFilter(true);
+        tableConfig.setBlockSize(longValue(configs, BLOCK_SIZE_BYTES, defaults.getBlockSizeBytes()));
+        double bitsPerKey = doubleValue(configs, BLOOM_FILTER_BITS_PER_KEY, defaults.getBloomFilterBitsPerKey());
+        if (bitsPerKey > 0) {
+            filter = new BloomFilter(bitsPerKey, false);
+            tableConfig.setFilterPolicy(filter);
+        }
+        options.setTableFormatConfig(tableConfig);
+
+        options.setWriteBufferManager(writeBufferManager);
+        options.setWriteBufferSize(longValue(configs, WRITE_BUFFER_BYTES, defaults.getWriteBufferBytes()));
+        options.setMaxWriteBufferNumber((int) longValue(configs, MAX_WRITE_BUFFERS, defaults.getMaxWriteBuffers()));
+        // Streams 3.3 에는 복구 중에만 쓰는 bulk load 옵션이 없어 (2.6 에서 제거) 복구 쓰기를 받아낼 background thread 를 늘려둡니다.
+        options.setMaxBackgroundJobs((int) longValue(configs, MAX_BACKGROUND_JOBS, defaults.getMaxBackgroundJobs()));
+    }
+
+    @Override
+    public void close(String storeName, Options options) {
+        if (filter != null) {
+            filter.close();
+        }
+    }
+
+    private static synchronized void initSharedMemory(long blockCacheBytes, long writeBufferManagerBytes, double highPriorityPoolRatio) {
+        if (cache == null) {
+            cache = new LRUCache(blockCacheBytes, -1, false, highPriorityPoolRatio);
+            writeBufferManager = new WriteBufferManager(writeBufferManagerBytes, cache);
+            cacheCapacity = blockCacheBytes;
+        }
+    }
+
+    // 아직 RocksDB store 가 열리지 않았으면 -1 입니다.
+    public static synchronized long sharedCacheUsage() {
+        return cache == null ? -1 : cache.getUsage();
+    }
+
+    public static synchronized long sharedCachePinnedUsage() {
+        return cache == null ? -1 : cache.getPinnedUsage();
+    }
+
+    public static synchronized long sharedCacheCapacity() {
+        return cache == null ? -1 : cacheCapacity;
+    }
+
+    private static long longValue(Map<String, Object> configs, String key, long defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : Long.parseLong(value.toString());
+    }
+
+    private static double doubleValue(Map<String, Object> configs, String key, double defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value.toString());
+    }
+}
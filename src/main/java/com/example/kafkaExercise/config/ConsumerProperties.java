@@ -0,0 +1,46 @@
+package com.example.kafkaExercise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// AdEvaluationComplete 를 읽어 sink 에 쓰는 batch listener (ConsumerService) 설정
+@Data
+@ConfigurationProperties(prefix = "kafka.consumer")
+public class ConsumerProperties {
+
+    // false 면 listener container 를 시작하지 않습니다.
+    boolean enabled = false;
+
+    String groupId = "ad-evaluation-sink";
+
+    // listener container (consumer) 수. AdEvaluationComplete 의 partition 수보다 많으면 남는 consumer 는 놉니다.
+    int concurrency = 1;
+
+    // poll 한 번에 가져와 sink 에 한 번에 쓰는 최대 record 수 (max.poll.records)
+    int maxPollRecords = 2000;
+
+    // broker 가 이만큼 모이거나 fetchMaxWaitMs 가 지날 때까지 응답을 미뤄 batch 를 키웁니다. (fetch.min.bytes, fetch.max.wait.ms)
+    int fetchMinBytes = 64 * 1024;
+    int fetchMaxWaitMs = 100;
+    int maxPartitionFetchBytes = 1024 * 1024;
+
+    // exactly_once_v2 로 쓴 결과는 commit 된 transaction 만 읽습니다.
+    String isolationLevel = "read_committed";
+
+    // records/s 와 batch 지연을 log 로 남기는 주기 (ms). metric 은 항상 기록합니다.
+    long reportIntervalMs = 30000;
+
+    // sink 가 실패한 batch 를 다시 넘기는 횟수 (첫 시도 포함) 와 간격.
+    // 다 실패하면 batch 의 record 를 AdEvaluationComplete{ad-evaluation.dead-letter.topic-suffix} 로 보내고 commit 합니다.
+    int maxAttempts = 10;
+    long retryBackoffMs = 1000;
+
+    Jdbc jdbc = new Jdbc();
+
+    @Data
+    public static class Jdbc {
+        // true 면 JdbcEffectOrNotSink 로 batch insert 합니다. false 면 LoggingEffectOrNotSink 가 건수만 셉니다.
+        boolean enabled = false;
+        String table = "ad_evaluation_complete";
+    }
+}
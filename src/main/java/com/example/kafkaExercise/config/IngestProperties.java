@@ -0,0 +1,23 @@
+package com.example.kafkaExercise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+
+    // producer buffer.memory 의 남은 비율이 이 값보다 작으면 429 로 응답합니다.
+    double minBufferAvailableRatio = 0.1;
+
+    // 요청 처리 중 몇 건마다 buffer 여유를 다시 확인할지
+    int backpressureCheckInterval = 1000;
+
+    // batch 의 모든 send 결과(ack)를 기다리는 최대 시간
+    Duration ackTimeout = Duration.ofSeconds(30);
+
+    // 응답에 담는 실패 사유의 최대 개수
+    int maxErrors = 10;
+}
@@ -1,103 +1,311 @@
 package com.example.kafkaExercise.config;
 
-import com.example.kafkaExercise.util.PurchaseLogOneProductSerializer;
-import com.example.kafkaExercise.util.PurchaseLogSerializer;
-import com.example.kafkaExercise.util.WatchingAdLogSerializer;
+import com.example.kafkaExercise.service.ConsumerService;
+import com.example.kafkaExercise.service.EffectOrNotSink;
+import com.example.kafkaExercise.service.JdbcEffectOrNotSink;
+import com.example.kafkaExercise.service.LoggingEffectOrNotSink;
+import com.example.kafkaExercise.service.StreamsPipelineRegistry;
+import com.example.kafkaExercise.util.*;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
 import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBeanConfigurer;
+import org.springframework.kafka.streams.KafkaStreamsMicrometerListener;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.backoff.FixedBackOff;
 
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
 @EnableKafkaStreams
 @EnableKafka
+@EnableConfigurationProperties({AdEvaluationProperties.class, ConsumerProperties.class, IngestProperties.class, ProducerProfileProperties.class, StreamsTuningProperties.class})
+@Slf4j
 public class KafkaConfig {
 
+    // producer profile 을 적용하는 Topic. AdEvaluationComplete 는 Streams 내부 producer 가 씁니다.
+    static final List<String> PRODUCER_TOPICS = List.of("adLog", "purchaseLog", "purchaseLogOneProduct", "AdEvaluationComplete");
+
+    static final String BOOTSTRAP_SERVERS = "13.125.205.11:9092, 3.36.63.75:9092, 54.180.1.108:9092";
+
+    @Autowired
+    AdEvaluationProperties adEvaluationProperties;
+
+    @Autowired
+    ProducerProfileProperties producerProfileProperties;
+
+    @Autowired
+    StreamsTuningProperties streamsTuningProperties;
+
+    @Autowired
+    ConsumerProperties consumerProperties;
+
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    @PostConstruct
+    public void validateProperties() {
+        producerProfileProperties.validate();
+        streamsTuningProperties.validate();
+        for (String topic : PRODUCER_TOPICS) {
+            log.info("Producer profile for {} : {} {}", topic, producerProfileProperties.profileNameFor(topic),
+                    producerProfileProperties.profileFor(topic));
+        }
+    }
+
+    @Bean
+    public ProducerProfileMetrics producerProfileMetrics() {
+        return new ProducerProfileMetrics(producerProfileProperties, PRODUCER_TOPICS);
+    }
+
     @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
     public KafkaStreamsConfiguration myKStreamConfig() {
         Map<String, Object> myKStreamConfig = new HashMap<>();
-        myKStreamConfig.put(StreamsConfig.APPLICATION_ID_CONFIG, "lecture-6");
-        myKStreamConfig.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "13.125.205.11:9092, 3.36.63.75:9092, 54.180.1.108:9092");
+        myKStreamConfig.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
         myKStreamConfig.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
         myKStreamConfig.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        // 결과 Topic 의 latency 는 Streams 내부 producer 설정을 따라가므로 AdEvaluationComplete 의 profile 을 적용합니다.
+        producerProfileProperties.profileFor("AdEvaluationComplete").toProducerConfig()
+                .forEach((key, value) -> myKStreamConfig.put(StreamsConfig.producerPrefix(key), value));
         myKStreamConfig.put(StreamsConfig.producerPrefix(ProducerConfig.ACKS_CONFIG), "all");
         myKStreamConfig.put(StreamsConfig.topicPrefix(TopicConfig.MIN_IN_SYNC_REPLICAS_CONFIG), 2);
-        myKStreamConfig.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, 1);
+        // 복구 시간 : standby / warmup 복제본, restore consumer batch, 재시작 후에도 남는 state.dir
+        StreamsTuningProperties.Restore restore = streamsTuningProperties.getRestore();
+        myKStreamConfig.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, restore.getNumStandbyReplicas());
+        myKStreamConfig.put(StreamsConfig.ACCEPTABLE_RECOVERY_LAG_CONFIG, restore.getAcceptableRecoveryLag());
+        myKStreamConfig.put(StreamsConfig.MAX_WARMUP_REPLICAS_CONFIG, restore.getMaxWarmupReplicas());
+        myKStreamConfig.put(StreamsConfig.PROBING_REBALANCE_INTERVAL_MS_CONFIG, restore.getProbingRebalanceInterval().toMillis());
+        myKStreamConfig.put(StreamsConfig.restoreConsumerPrefix(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), restore.getMaxPollRecords());
+        // application.id, thread 수, state.dir 은 pipeline 별 값입니다. (다른 pipeline 은 StreamsPipelineRegistry 가 이 설정에서 바꿔 씁니다.)
+        myKStreamConfig.putAll(StreamsPipelineRegistry.pipelineConfig(StreamsTuningProperties.Pipeline.AD_EVALUATION, streamsTuningProperties));
+        myKStreamConfig.put(StreamsConfig.MAX_TASK_IDLE_MS_CONFIG, streamsTuningProperties.getMaxTaskIdleMs());
+        myKStreamConfig.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, streamsTuningProperties.getProcessingGuarantee().configValue());
+        myKStreamConfig.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, streamsTuningProperties.effectiveCommitIntervalMs());
+        if (streamsTuningProperties.isExactlyOnce()) {
+            // transactional producer 는 Streams 가 idempotence 를 켜므로 profile 값은 넘기지 않습니다.
+            myKStreamConfig.remove(StreamsConfig.producerPrefix(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+            myKStreamConfig.put(StreamsConfig.producerPrefix(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG), streamsTuningProperties.getTransactionTimeoutMs());
+        }
+        myKStreamConfig.put(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG, streamsTuningProperties.getCacheMaxBytes());
+        myKStreamConfig.put(StreamsConfig.METRICS_RECORDING_LEVEL_CONFIG, streamsTuningProperties.getMetricsRecordingLevel());
+        if (!streamsTuningProperties.getApplicationServer().isBlank()) {
+            myKStreamConfig.put(StreamsConfig.APPLICATION_SERVER_CONFIG, streamsTuningProperties.getApplicationServer());
+        }
+        // 읽을 수 없는 record 는 dead letter Topic 으로 보내고 계속 처리합니다. (handler 는 publisher 를 설정에서 꺼내 씁니다.)
+        if (adEvaluationProperties.getDeadLetter().isEnabled()) {
+            myKStreamConfig.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG, DeadLetterDeserializationExceptionHandler.class);
+            myKStreamConfig.put(DeadLetterPublisher.CONFIG, deadLetterPublisher());
+        }
+        // RocksDB store 들이 block cache / memtable 메모리를 공유하도록 합니다.
+        if (streamsTuningProperties.getRocksdb().isBoundedMemory()) {
+            myKStreamConfig.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfig.class);
+            myKStreamConfig.putAll(BoundedMemoryRocksDBConfig.toStreamsConfig(streamsTuningProperties.getRocksdb()));
+        }
         return new KafkaStreamsConfiguration(myKStreamConfig);
     }
 
 
+    // Kafka Streams 의 metric (RocksDB block-cache-*-hit-ratio, size-all-mem-tables 등 포함) 을 Micrometer 로 내보냅니다.
     @Bean
-    public KafkaTemplate<String, Object> KafkaTemplateForGeneral() {
-        return new KafkaTemplate<String, Object>(ProducerFactory());
+    public StreamsBuilderFactoryBeanConfigurer streamsMetricsConfigurer() {
+        return factoryBean -> meterRegistry.ifAvailable(registry -> factoryBean.addListener(new KafkaStreamsMicrometerListener(registry)));
     }
 
+    // 복구 진행 상황 metric 과 readiness. bean 이름에서 health 이름 (streamsRestore) 이 정해집니다.
     @Bean
-    public ProducerFactory<String, Object> ProducerFactory() {
-        Map<String, Object> myConfig = new HashMap<>();
+    public StateRestoreMonitor streamsRestoreHealthIndicator() {
+        return new StateRestoreMonitor(meterRegistry.getIfAvailable(CompositeMeterRegistry::new),
+                streamsTuningProperties.pipeline(StreamsTuningProperties.Pipeline.AD_EVALUATION).isEnabled());
+    }
 
-        myConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "13.125.205.11:9092, 3.36.63.75:9092, 54.180.1.108:9092");
-        myConfig.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        myConfig.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PurchaseLogOneProductSerializer.class);
+    // 복구 진행 상황과 KafkaStreams state 를 streamsRestore 로 넘깁니다.
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer stateRestoreConfigurer() {
+        StateRestoreMonitor monitor = streamsRestoreHealthIndicator();
+        return factoryBean -> {
+            factoryBean.setStateRestoreListener(monitor);
+            factoryBean.setStateListener(monitor);
+        };
+    }
 
-        return new DefaultKafkaProducerFactory<>(myConfig);
+    // kafka.streams.pipelines.ad-evaluation.enabled=false 면 ad-evaluation 을 띄우지 않습니다.
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer pipelineStartupConfigurer() {
+        return factoryBean -> factoryBean.setAutoStartup(streamsTuningProperties.pipeline(StreamsTuningProperties.Pipeline.AD_EVALUATION).isEnabled());
     }
 
+    // dead letter 로 보내지 못한 예외로 stream thread 가 죽으면 kafka.streams.uncaught-exception-response 대로 처리합니다.
     @Bean
-    public KafkaTemplate<String, Object> KafkaTemplateForWatchingAdLog() {
-        return new KafkaTemplate<String, Object>(ProducerFactoryForWatchingAdLog());
+    public StreamsBuilderFactoryBeanConfigurer uncaughtExceptionConfigurer() {
+        return factoryBean -> factoryBean.setStreamsUncaughtExceptionHandler(exception -> {
+            log.error("Stream thread failed, response : {}", streamsTuningProperties.getUncaughtExceptionResponse(), exception);
+            return streamsTuningProperties.getUncaughtExceptionResponse();
+        });
     }
+
+    // 처리하지 못한 record 를 보내는 producer. Streams 의 transaction 과는 별개이며 첫 실패 record 에서 만들어집니다.
+    @Bean(destroyMethod = "close")
+    public DeadLetterPublisher deadLetterPublisher() {
+        return new DeadLetterPublisher(() -> {
+            Map<String, Object> myConfig = new HashMap<>();
+            myConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+            myConfig.put(ProducerConfig.CLIENT_ID_CONFIG, "producer-dead-letter");
+            myConfig.put(ProducerConfig.ACKS_CONFIG, "all");
+            myConfig.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+            KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(myConfig, new ByteArraySerializer(), new ByteArraySerializer());
+            meterRegistry.ifAvailable(registry -> new KafkaClientMetrics(producer).bindTo(registry));
+            return producer;
+        }, adEvaluationProperties.getDeadLetter().getTopicSuffix(), meterRegistry.getIfAvailable());
+    }
+
+    // buildPipeline 의 단계별 counter / timer
     @Bean
-    public ProducerFactory<String, Object> ProducerFactoryForWatchingAdLog() {
+    public PipelineMetrics pipelineMetrics() {
+        return new PipelineMetrics(meterRegistry.getIfAvailable(CompositeMeterRegistry::new),
+                adEvaluationProperties.getMetrics().getTimerSampleEvery(), adEvaluationProperties.getEventTimeZone());
+    }
+
+    @Bean
+    public MeterBinder rocksDBSharedCacheMetrics() {
+        return registry -> {
+            Gauge.builder("rocksdb.shared.block.cache.usage", BoundedMemoryRocksDBConfig::sharedCacheUsage).baseUnit("bytes").register(registry);
+            Gauge.builder("rocksdb.shared.block.cache.pinned.usage", BoundedMemoryRocksDBConfig::sharedCachePinnedUsage).baseUnit("bytes").register(registry);
+            Gauge.builder("rocksdb.shared.block.cache.capacity", BoundedMemoryRocksDBConfig::sharedCacheCapacity).baseUnit("bytes").register(registry);
+        };
+    }
+
+    // VO 별 producer 3개 대신 profile 별 producer 하나를 공유하고, value serializer 가 VO class 로 형식을 고릅니다.
+    @Bean
+    public ProducerTemplates producerTemplates() {
+        return new ProducerTemplates(producerProfileProperties, this::producerFactoryForProfile);
+    }
+
+    private DefaultKafkaProducerFactory<String, Object> producerFactoryForProfile(String profile) {
         Map<String, Object> myConfig = new HashMap<>();
 
-        myConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "13.125.205.11:9092, 3.36.63.75:9092, 54.180.1.108:9092");
-        myConfig.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        myConfig.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, WatchingAdLogSerializer.class);
+        myConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        myConfig.put(ProducerConfig.CLIENT_ID_CONFIG, "producer-" + profile);
+        myConfig.putAll(producerProfileProperties.getProfiles().get(profile).toProducerConfig());
 
-        return new DefaultKafkaProducerFactory<>(myConfig);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(myConfig,
+                new StringSerializer(), TypeDispatchingSerializer.forWireFormat(adEvaluationProperties.getWireFormat()));
+        meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerProducerListener<>(registry)));
+        return factory;
     }
 
+    // AdEvaluationComplete 를 EffectOrNot 으로 읽는 consumer. 읽지 못한 record 는 value 없이 listener 로 넘어갑니다.
     @Bean
-    public KafkaTemplate<String, Object> KafkaTemplateForPurchaseLog() {
-        return new KafkaTemplate<String, Object>(ProducerFactoryForPurchaseLog());
+    public ConsumerFactory<String, EffectOrNot> effectOrNotConsumerFactory() {
+        Map<String, Object> myConfig = new HashMap<>();
+        myConfig.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        myConfig.put(ConsumerConfig.GROUP_ID_CONFIG, consumerProperties.getGroupId());
+        myConfig.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        myConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        myConfig.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, consumerProperties.getIsolationLevel());
+        myConfig.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumerProperties.getMaxPollRecords());
+        myConfig.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, consumerProperties.getFetchMinBytes());
+        myConfig.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, consumerProperties.getFetchMaxWaitMs());
+        myConfig.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, consumerProperties.getMaxPartitionFetchBytes());
+
+        DefaultKafkaConsumerFactory<String, EffectOrNot> factory = new DefaultKafkaConsumerFactory<>(myConfig,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(new EffectOrNotDeserializer()));
+        meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerConsumerListener<>(registry)));
+        return factory;
     }
+
+    // poll 한 batch 를 한 번에 listener 로 넘기고, listener 가 돌아온 뒤 offset 을 commit 합니다.
+    // sink 가 실패하면 같은 batch 를 kafka.consumer.max-attempts 번까지 다시 넘기고, 그래도 실패하면 dead letter Topic 으로 보냅니다.
     @Bean
-    public ProducerFactory<String, Object> ProducerFactoryForPurchaseLog() {
-        Map<String, Object> myConfig = new HashMap<>();
+    public ConcurrentKafkaListenerContainerFactory<String, EffectOrNot> effectOrNotListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, EffectOrNot> myfactory = new ConcurrentKafkaListenerContainerFactory<>();
+        myfactory.setConsumerFactory(effectOrNotConsumerFactory());
+        myfactory.setBatchListener(true);
+        myfactory.setConcurrency(consumerProperties.getConcurrency());
+        myfactory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        myfactory.setCommonErrorHandler(effectOrNotErrorHandler(deadLetterPublisher(),
+                TypeDispatchingSerializer.forWireFormat(adEvaluationProperties.getWireFormat()), consumerProperties));
+        return myfactory;
+    }
 
-        myConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "13.125.205.11:9092, 3.36.63.75:9092, 54.180.1.108:9092");
-        myConfig.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        myConfig.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PurchaseLogSerializer.class);
-
-        return new DefaultKafkaProducerFactory<>(myConfig);
-    }
-//
-//    @Bean
-//    public ConsumerFactory<String, Object> ConsumerFactory() {
-//        Map<String, Object> myConfig = new HashMap<>();
-//        myConfig.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "13.125.129.151:9092, 3.39.236.110:9092, 13.125.110.158:9092");
-//        myConfig.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-//        myConfig.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-//        return new DefaultKafkaConsumerFactory<>(myConfig);
-//    }
-//
-//    @Bean
-//    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
-//        ConcurrentKafkaListenerContainerFactory<String, Object> myfactory = new ConcurrentKafkaListenerContainerFactory<>();
-//        myfactory.setConsumerFactory(ConsumerFactory());
-//        return myfactory;
-//    }
+    // Streams 의 dead letter 와 같은 DeadLetterPublisher (dlq.* header, replay 횟수) 로 보내 /dead-letter/AdEvaluationComplete/replay 로 다시 넣을 수 있습니다.
+    // 다시 해도 같은 결과인 예외 (제약 조건 위반, 잘못된 SQL 등 NonTransientDataAccessException) 는 재시도 없이 바로 보냅니다.
+    // 읽지 못한 record (DeserializationException 등) 는 DefaultErrorHandler 가 기본으로 재시도하지 않습니다.
+    static DefaultErrorHandler effectOrNotErrorHandler(DeadLetterPublisher publisher, Serializer<Object> valueSerializer, ConsumerProperties properties) {
+        ConsumerRecordRecoverer recoverer = (record, exception) -> publisher.publish(record.topic(), record.partition(), record.offset(),
+                record.timestamp(), ConsumerService.DEAD_LETTER_STAGE,
+                record.key() == null ? null : record.key().toString().getBytes(StandardCharsets.UTF_8),
+                valueSerializer.serialize(record.topic(), record.value()), record.headers(),
+                exception instanceof ListenerExecutionFailedException && exception.getCause() instanceof Exception
+                        ? (Exception) exception.getCause() : exception);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer,
+                new FixedBackOff(properties.getRetryBackoffMs(), properties.getMaxAttempts() - 1L));
+        errorHandler.addNotRetryableExceptions(NonTransientDataAccessException.class);
+        return errorHandler;
+    }
+
+    // kafka.consumer.jdbc.enabled=true 일 때만 spring.datasource 로 DataSource 를 만듭니다.
+    // DataSourceAutoConfiguration 은 application.properties 에서 빼두었으므로 sink 를 쓰지 않으면 DataSource 도 schema 초기화도 없습니다.
+    // JdbcTemplate / TransactionTemplate 과 내장 DB 의 schema.sql 실행은 이 DataSource 로 Spring Boot 가 설정합니다.
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka.consumer.jdbc", name = "enabled", havingValue = "true")
+    @ConfigurationProperties(prefix = "spring.datasource")
+    public DataSourceProperties effectOrNotDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka.consumer.jdbc", name = "enabled", havingValue = "true")
+    public DataSource effectOrNotDataSource(DataSourceProperties effectOrNotDataSourceProperties) {
+        return effectOrNotDataSourceProperties.initializeDataSourceBuilder().build();
+    }
+
+    // kafka.consumer.jdbc.enabled=true 면 DataSource 에 batch insert 합니다.
+    @Bean
+    public EffectOrNotSink effectOrNotSink(ObjectProvider<JdbcTemplate> jdbcTemplate, ObjectProvider<TransactionTemplate> transactionTemplate) {
+        if (!consumerProperties.getJdbc().isEnabled()) {
+            return new LoggingEffectOrNotSink();
+        }
+        return new JdbcEffectOrNotSink(jdbcTemplate.getObject(), transactionTemplate.getObject(), consumerProperties.getJdbc().getTable());
+    }
 
 }
@@ -0,0 +1,98 @@
+package com.example.kafkaExercise.config;
+
+import com.example.kafkaExercise.util.EventTimeExtractor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// AdEvaluationService 의 단계별 metric (/actuator/prometheus 의 ad_evaluation_*)
+//   ad.evaluation.filtered      : 시청시간 (stage=watch-time), 가격 (stage=price) 조건으로 join 대상에서 빠진 건수
+//   ad.evaluation.split.fanout  : 구매이력 1건이 나뉜 상품 수
+//   ad.evaluation.joins         : join 결과 (AdEvaluationComplete) 건수
+//   ad.evaluation.stage.latency : 상품 분리 (stage=split), join (stage=join) 1건의 처리 시간
+//   ad.evaluation.event.lag     : 구매 시각 (purchasedDt) 부터 join 결과가 나오기까지의 시간
+//   ad.evaluation.catalog.lookups : 상품 catalog 조회 중 near cache 에서 찾은 (result=hit) / store 를 읽은 (result=miss) 건수
+//   ad.evaluation.catalog.missing : catalog 에 없는 상품이라 붙이지 못한 건수
+// counter 는 모든 record 에서 올리고, 시간은 timerSampleEvery 건 중 1건만 잽니다. (nanoTime, 날짜 parse 비용)
+public class PipelineMetrics {
+
+    private final Counter filteredByWatchTime;
+    private final Counter filteredByPrice;
+    private final DistributionSummary splitFanOut;
+    private final Counter joins;
+    private final Timer splitLatency;
+    private final Timer joinLatency;
+    private final Timer eventTimeLag;
+    private final Counter catalogHits;
+    private final Counter catalogMisses;
+    private final Counter catalogMissing;
+    private final int timerSampleEvery;
+    private final EventTimeExtractor eventTime;
+
+    public PipelineMetrics(MeterRegistry registry, int timerSampleEvery, ZoneId eventTimeZone) {
+        this.filteredByWatchTime = Counter.builder("ad.evaluation.filtered").tag("stage", "watch-time").register(registry);
+        this.filteredByPrice = Counter.builder("ad.evaluation.filtered").tag("stage", "price").register(registry);
+        this.splitFanOut = DistributionSummary.builder("ad.evaluation.split.fanout").baseUnit("products").register(registry);
+        this.joins = Counter.builder("ad.evaluation.joins").register(registry);
+        this.splitLatency = Timer.builder("ad.evaluation.stage.latency").tag("stage", "split").register(registry);
+        this.joinLatency = Timer.builder("ad.evaluation.stage.latency").tag("stage", "join").register(registry);
+        this.eventTimeLag = Timer.builder("ad.evaluation.event.lag").publishPercentileHistogram().register(registry);
+        this.catalogHits = Counter.builder("ad.evaluation.catalog.lookups").tag("result", "hit").register(registry);
+        this.catalogMisses = Counter.builder("ad.evaluation.catalog.lookups").tag("result", "miss").register(registry);
+        this.catalogMissing = Counter.builder("ad.evaluation.catalog.missing").register(registry);
+        this.timerSampleEvery = timerSampleEvery;
+        this.eventTime = new EventTimeExtractor(eventTimeZone);
+    }
+
+    // 등록된 registry 가 없을 때 (benchmark, 단위 테스트) 사용합니다. 아무것도 기록하지 않습니다.
+    public static PipelineMetrics noop() {
+        return new PipelineMetrics(new CompositeMeterRegistry(), 0, ZoneId.of("UTC"));
+    }
+
+    // 이번 record 의 시간을 잴 때만 시작 시각을, 아니면 0 을 돌려줍니다.
+    public long startSample() {
+        if (timerSampleEvery <= 0 || ThreadLocalRandom.current().nextInt(timerSampleEvery) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    public void filteredByWatchTime() {
+        filteredByWatchTime.increment();
+    }
+
+    public void split(int products, int filteredByPrice, long sampleStart) {
+        splitFanOut.record(products);
+        if (filteredByPrice > 0) {
+            this.filteredByPrice.increment(filteredByPrice);
+        }
+        if (sampleStart != 0) {
+            splitLatency.record(System.nanoTime() - sampleStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void joined(String purchasedDt, long sampleStart) {
+        joins.increment();
+        if (sampleStart != 0) {
+            joinLatency.record(System.nanoTime() - sampleStart, TimeUnit.NANOSECONDS);
+            long purchasedAt = eventTime.toEpochMilli(purchasedDt);
+            if (purchasedAt >= 0) {
+                eventTimeLag.record(Math.max(0, System.currentTimeMillis() - purchasedAt), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public void catalogLookup(boolean hit) {
+        (hit ? catalogHits : catalogMisses).increment();
+    }
+
+    public void catalogMissing() {
+        catalogMissing.increment();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.kafkaExercise.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+// Topic 별로 적용된 producer profile 값을 gauge 로 보여줍니다. (/actuator/metrics/kafka.producer.profile)
+// 실제 batch 크기, 압축률 등은 producer factory 에 붙인 MicrometerProducerListener 의 kafka.producer.* metric 으로 확인합니다.
+public class ProducerProfileMetrics implements MeterBinder {
+
+    private static final Map<String, ToDoubleFunction<ProducerProfileProperties.Profile>> SETTINGS = Map.of(
+            "batch.size", p -> p.getBatchSize(),
+            "linger.ms", p -> p.getLingerMs(),
+            "max.in.flight.requests.per.connection", p -> p.getMaxInFlightRequestsPerConnection(),
+            "enable.idempotence", p -> p.isEnableIdempotence() ? 1 : 0,
+            "buffer.memory", p -> p.getBufferMemory());
+
+    private final ProducerProfileProperties properties;
+    private final Iterable<String> topics;
+
+    public ProducerProfileMetrics(ProducerProfileProperties properties, Iterable<String> topics) {
+        this.properties = properties;
+        this.topics = topics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String topic : topics) {
+            ProducerProfileProperties.Profile profile = properties.profileFor(topic);
+            Tags tags = Tags.of("topic", topic, "profile", properties.profileNameFor(topic),
+                    "compression", profile.getCompressionType(), "acks", profile.getAcks());
+            SETTINGS.forEach((setting, value) -> Gauge.builder("kafka.producer.profile", profile, value)
+                    .tags(tags.and("setting", setting))
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.kafkaExercise.config;
+
+import lombok.Data;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 이름 붙인 producer 설정 묶음(profile) 과 Topic 별로 사용할 profile 입니다.
+// kafka.producer.profiles.<이름>.linger-ms=20
+// kafka.producer.topics.adLog=high-throughput
+@Data
+@ConfigurationProperties(prefix = "kafka.producer")
+public class ProducerProfileProperties {
+
+    public static final String LOW_LATENCY = "low-latency";
+
+    static final Set<String> COMPRESSION_TYPES = Set.of("none", "gzip", "snappy", "lz4", "zstd");
+
+    Map<String, Profile> profiles = new LinkedHashMap<>(Map.of(LOW_LATENCY, new Profile()));
+
+    // Topic 이름 -> profile 이름. 없는 Topic 은 defaultProfile 을 사용합니다.
+    Map<String, String> topics = new HashMap<>();
+
+    String defaultProfile = LOW_LATENCY;
+
+    // 기본값은 Kafka producer 기본값에 idempotence, acks=all 을 더한 것입니다.
+    @Data
+    public static class Profile {
+        int batchSize = 16384;
+        long lingerMs = 0;
+        String compressionType = "none";
+        int maxInFlightRequestsPerConnection = 5;
+        boolean enableIdempotence = true;
+        long bufferMemory = 32 * 1024 * 1024L;
+        String acks = "all";
+
+        public Map<String, Object> toProducerConfig() {
+            Map<String, Object> config = new HashMap<>();
+            config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+            config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequestsPerConnection);
+            config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+            config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+            config.put(ProducerConfig.ACKS_CONFIG, acks);
+            return config;
+        }
+    }
+
+    public String profileNameFor(String topic) {
+        return topics.getOrDefault(topic, defaultProfile);
+    }
+
+    public Profile profileFor(String topic) {
+        return profiles.get(profileNameFor(topic));
+    }
+
+    // 잘못된 조합은 첫 send 에서가 아니라 기동 시점에 모두 모아서 알려줍니다.
+    public void validate() {
+        List<String> errors = new ArrayList<>();
+        if (!profiles.containsKey(defaultProfile)) {
+            errors.add("default-profile '" + defaultProfile + "' is not defined");
+        }
+        topics.forEach((topic, name) -> {
+            if (!profiles.containsKey(name)) {
+                errors.add("topics." + topic + " refers to undefined profile '" + name + "'");
+            }
+        });
+        profiles.forEach((name, p) -> {
+            String prefix = "profiles." + name + ".";
+            if (p.batchSize <= 0) {
+                errors.add(prefix + "batch-size must be > 0");
+            }
+            if (p.lingerMs < 0) {
+                errors.add(prefix + "linger-ms must be >= 0");
+            }
+            if (!COMPRESSION_TYPES.contains(p.compressionType)) {
+                errors.add(prefix + "compression-type must be one of " + COMPRESSION_TYPES);
+            }
+            if (p.maxInFlightRequestsPerConnection < 1) {
+                errors.add(prefix + "max-in-flight-requests-per-connection must be >= 1");
+            }
+            if (p.bufferMemory < p.batchSize) {
+                errors.add(prefix + "buffer-memory must be >= batch-size");
+            }
+            if (!Set.of("all", "-1", "0", "1").contains(p.acks)) {
+                errors.add(prefix + "acks must be one of all, -1, 0, 1");
+            }
+            // idempotent producer 는 acks=all, in-flight 5 이하에서만 순서/중복 보장이 됩니다.
+            if (p.enableIdempotence && !("all".equals(p.acks) || "-1".equals(p.acks))) {
+                errors.add(prefix + "enable-idempotence requires acks=all");
+            }
+            if (p.enableIdempotence && p.maxInFlightRequestsPerConnection > 5) {
+                errors.add(prefix + "enable-idempotence requires max-in-flight-requests-per-connection <= 5");
+            }
+        });
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid kafka.producer configuration : " + errors);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.kafkaExercise.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// producer profile 마다 KafkaProducer 하나를 공유합니다.
+// 같은 profile 을 쓰는 Topic 은 sender thread, buffer.memory, broker 연결을 함께 쓰고 batch 도 broker 단위로 합쳐집니다.
+public class ProducerTemplates implements DisposableBean {
+
+    private final ProducerProfileProperties properties;
+    private final Function<String, DefaultKafkaProducerFactory<String, Object>> factoryForProfile;
+    private final Map<String, DefaultKafkaProducerFactory<String, Object>> factories = new ConcurrentHashMap<>();
+    private final Map<String, KafkaTemplate<String, Object>> templates = new ConcurrentHashMap<>();
+
+    public ProducerTemplates(ProducerProfileProperties properties,
+                             Function<String, DefaultKafkaProducerFactory<String, Object>> factoryForProfile) {
+        this.properties = properties;
+        this.factoryForProfile = factoryForProfile;
+    }
+
+    public KafkaTemplate<String, Object> forTopic(String topic) {
+        return templates.computeIfAbsent(properties.profileNameFor(topic),
+                profile -> new KafkaTemplate<>(factories.computeIfAbsent(profile, factoryForProfile)));
+    }
+
+    // 지금까지 만들어진 producer (profile) 수
+    public int producerCount() {
+        return factories.size();
+    }
+
+    @Override
+    public void destroy() {
+        factories.values().forEach(DefaultKafkaProducerFactory::destroy);
+    }
+}
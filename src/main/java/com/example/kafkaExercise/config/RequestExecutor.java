@@ -0,0 +1,97 @@
+package com.example.kafkaExercise.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// web.execution.mode 에 따라 Controller 의 작업(send 및 ack 대기)을 어디서 실행할지 정합니다.
+@Slf4j
+public class RequestExecutor implements DisposableBean {
+
+    private final WebExecutionProperties.Mode mode;
+    private final ExecutorService dispatchExecutor;   // ASYNC 에서만 사용
+    private final ExecutorService virtualExecutor;    // VIRTUAL 에서 Tomcat 에 넘겨줍니다.
+
+    public RequestExecutor(WebExecutionProperties properties) {
+        WebExecutionProperties.Mode requested = properties.getMode();
+        ExecutorService virtual = requested == WebExecutionProperties.Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+        if (requested == WebExecutionProperties.Mode.VIRTUAL && virtual == null) {
+            log.warn("Virtual threads are not available on Java {}, falling back to web.execution.mode=ASYNC",
+                    Runtime.version().feature());
+            requested = WebExecutionProperties.Mode.ASYNC;
+        }
+        this.mode = requested;
+        this.virtualExecutor = virtual;
+        this.dispatchExecutor = mode == WebExecutionProperties.Mode.ASYNC
+                ? newDispatchExecutor(properties.getDispatchThreads(), properties.getDispatchQueueCapacity()) : null;
+        log.info("Web request execution mode : {}", mode);
+    }
+
+    public WebExecutionProperties.Mode mode() {
+        return mode;
+    }
+
+    public ExecutorService virtualExecutor() {
+        return virtualExecutor;
+    }
+
+    // task 는 body 를 읽고 send 한 뒤 broker ack 에서 완료되는 future 를 돌려줍니다.
+    // BLOCKING, VIRTUAL : 요청 thread 에서 실행하고 ack 까지 기다립니다. (thread-per-request, virtual thread 면 기다리는 비용이 작습니다.)
+    // ASYNC            : dispatch pool 에서 실행하고 ack 는 기다리지 않습니다. 응답은 producer callback 에서 완료됩니다.
+    // dispatch 대기열이 가득 차면 RejectedExecutionException 으로 완료됩니다.
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        if (dispatchExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(task.get().join());
+            } catch (CompletionException e) {
+                return CompletableFuture.failedFuture(e.getCause() != null ? e.getCause() : e);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, dispatchExecutor).thenCompose(Function.identity());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdown();
+        }
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        }
+    }
+
+    private static ExecutorService newDispatchExecutor(int threads, int queueCapacity) {
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "web-dispatch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Java 21 의 Executors.newVirtualThreadPerTaskExecutor() 를 reflection 으로 호출합니다. (이 프로젝트는 Java 17 로 compile 합니다.)
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.kafkaExercise.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.processor.StateRestoreListener;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// changelog 로 adStore / purchaseLogStore 등을 복구하는 동안의 진행 상황을 metric 과 readiness 로 내보냅니다.
+// 처음 RUNNING 이 되기 전 (복구 중 포함) 과 active task 를 복구하는 동안에는 DOWN 이라 readiness group 에 넣으면 복구가 끝날 때까지 트래픽을 받지 않습니다.
+// 한 번 RUNNING 이 된 뒤의 REBALANCING 은 UP 으로 둡니다. (rebalance 마다 readiness 가 빠지지 않도록)
+// ad-evaluation pipeline 을 띄우지 않으면 (kafka.streams.pipelines.ad-evaluation.enabled=false) 기다릴 것이 없으므로 항상 UP 입니다.
+//
+// metric
+//   kafka.streams.restore.remaining  : 복구할 남은 record 수 (복구 중인 모든 store partition 합계)
+//   kafka.streams.restore.partitions : 복구 중인 store partition 수
+//   kafka.streams.restore.eta        : 지금까지의 복구 속도로 계산한 남은 시간 (초, 모르면 -1)
+//   kafka.streams.restore.records    : 복구한 record 수 (tag store)
+//   kafka.streams.restore.duration   : store partition 하나의 복구 시간 (tag store)
+@Slf4j
+public class StateRestoreMonitor implements StateRestoreListener, KafkaStreams.StateListener, HealthIndicator {
+
+    static class Progress {
+        final String storeName;
+        final long startOffset;
+        final long endOffset;
+        final long startedNanos;
+        volatile long restored;
+
+        Progress(String storeName, long startOffset, long endOffset, long startedNanos) {
+            this.storeName = storeName;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.startedNanos = startedNanos;
+        }
+
+        long remaining() {
+            return Math.max(0, endOffset - startOffset - restored);
+        }
+    }
+
+    private final Map<TopicPartition, Progress> restoring = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final LongSupplier nanoClock;
+    private final boolean enabled;
+    private volatile KafkaStreams.State state = KafkaStreams.State.CREATED;
+    private volatile boolean started;
+
+    public StateRestoreMonitor(MeterRegistry registry, boolean enabled) {
+        this(registry, enabled, System::nanoTime);
+    }
+
+    StateRestoreMonitor(MeterRegistry registry, boolean enabled, LongSupplier nanoClock) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.nanoClock = nanoClock;
+        Gauge.builder("kafka.streams.restore.remaining", this, StateRestoreMonitor::remainingRecords).baseUnit("records").register(registry);
+        Gauge.builder("kafka.streams.restore.partitions", restoring, Map::size).register(registry);
+        Gauge.builder("kafka.streams.restore.eta", this, StateRestoreMonitor::etaSeconds).baseUnit("seconds").register(registry);
+    }
+
+    @Override
+    public void onRestoreStart(TopicPartition topicPartition, String storeName, long startingOffset, long endingOffset) {
+        restoring.put(topicPartition, new Progress(storeName, startingOffset, endingOffset, nanoClock.getAsLong()));
+        log.info("Restoring {} from {} ({} records)", storeName, topicPartition, endingOffset - startingOffset);
+    }
+
+    @Override
+    public void onBatchRestored(TopicPartition topicPartition, String storeName, long batchEndOffset, long numRestored) {
+        Progress progress = restoring.get(topicPartition);
+        if (progress != null) {
+            progress.restored += numRestored;
+        }
+        Counter.builder("kafka.streams.restore.records").tag("store", storeName).register(registry).increment(numRestored);
+    }
+
+    @Override
+    public void onRestoreEnd(TopicPartition topicPartition, String storeName, long totalRestored) {
+        Progress progress = restoring.remove(topicPartition);
+        if (progress != null) {
+            long elapsed = nanoClock.getAsLong() - progress.startedNanos;
+            Timer.builder("kafka.streams.restore.duration").tag("store", storeName).register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Restored {} from {} : {} records in {} ms", storeName, topicPartition, totalRestored,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    @Override
+    public void onChange(KafkaStreams.State newState, KafkaStreams.State oldState) {
+        state = newState;
+        if (newState == KafkaStreams.State.RUNNING) {
+            started = true;
+        }
+    }
+
+    public long remainingRecords() {
+        return restoring.values().stream().mapToLong(Progress::remaining).sum();
+    }
+
+    // 복구 중인 모든 partition 의 복구량 합계 / 가장 먼저 시작한 partition 부터의 시간 으로 속도를 잡습니다.
+    public long etaSeconds() {
+        long restored = 0;
+        long earliest = Long.MAX_VALUE;
+        for (Progress progress : restoring.values()) {
+            restored += progress.restored;
+            earliest = Math.min(earliest, progress.startedNanos);
+        }
+        if (restoring.isEmpty()) {
+            return 0;
+        }
+        long elapsed = nanoClock.getAsLong() - earliest;
+        if (restored == 0 || elapsed <= 0) {
+            return -1;
+        }
+        double recordsPerNano = (double) restored / elapsed;
+        return (long) Math.ceil(remainingRecords() / recordsPerNano / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // standby 복구는 이 listener 로 오지 않습니다. active task 의 복구가 끝나야 RUNNING 이 됩니다.
+    @Override
+    public Health health() {
+        boolean ready = started && restoring.isEmpty()
+                && (state == KafkaStreams.State.RUNNING || state == KafkaStreams.State.REBALANCING);
+        if (!enabled) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        Health.Builder builder = ready ? Health.up() : Health.down();
+        return builder.withDetail("state", state)
+                .withDetail("restoringPartitions", restoring.size())
+                .withDetail("remainingRecords", remainingRecords())
+                .withDetail("etaSeconds", etaSeconds())
+                .build();
+    }
+}
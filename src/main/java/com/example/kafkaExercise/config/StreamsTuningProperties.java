@@ -0,0 +1,216 @@
+package com.example.kafkaExercise.config;
+
+import lombok.Data;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "kafka.streams")
+public class StreamsTuningProperties {
+
+    // 기동 시 stream thread 수 (num.stream.threads)
+    int numStreamThreads = 1;
+
+    // 한쪽 입력(adLog / purchaseLog) 이 비어있을 때 다른 쪽 처리를 기다려주는 시간 (max.task.idle.ms)
+    long maxTaskIdleMs = 0;
+
+    // AT_LEAST_ONCE   : 장애 시 마지막 commit 이후 record 를 다시 처리하므로 AdEvaluationComplete 에 중복이 생길 수 있습니다.
+    // EXACTLY_ONCE_V2 : 입력 offset, store changelog, 출력 Topic (purchaseLogOneProduct 포함) 을 하나의 transaction 으로 commit 합니다.
+    //                   read_committed 로 읽는 쪽에는 commit 시점에 보이므로 commit 주기만큼 출력이 늦어집니다.
+    ProcessingGuarantee processingGuarantee = ProcessingGuarantee.AT_LEAST_ONCE;
+
+    // offset commit 및 state store flush 주기 (commit.interval.ms). EXACTLY_ONCE_V2 에서는 transaction 주기입니다.
+    // 비워두면 Kafka 기본값 (AT_LEAST_ONCE 30000, EXACTLY_ONCE_V2 100) 을 사용합니다.
+    Long commitIntervalMs;
+
+    // transaction 을 열어둘 수 있는 최대 시간 (producer transaction.timeout.ms). commit 주기보다 길어야 합니다.
+    long transactionTimeoutMs = 10000;
+
+    // 모든 thread 가 나눠쓰는 record cache 크기 (cache.max.bytes.buffering)
+    long cacheMaxBytes = 10 * 1024 * 1024L;
+
+    // 이 instance 의 REST host:port (application.server). interactive query 를 key 소유 instance 로 넘길 때 사용합니다.
+    // 비어있으면 instance 1개로 보고 항상 local store 를 조회합니다.
+    String applicationServer = "";
+
+    // INFO : 기본 metric, DEBUG : RocksDB block cache hit ratio 등 상세 metric 까지 기록합니다. (metrics.recording.level)
+    String metricsRecordingLevel = "INFO";
+
+    // dead letter 로 보내지 못한 예외로 stream thread 가 죽었을 때의 처리
+    // REPLACE_THREAD : 새 thread 로 바꿔 나머지 task 는 계속 처리합니다. (같은 record 에서 계속 실패하면 그 task 만 멈춘 채 반복됩니다.)
+    // SHUTDOWN_CLIENT / SHUTDOWN_APPLICATION : 이 instance / 전체 application 을 멈춥니다.
+    StreamThreadExceptionResponse uncaughtExceptionResponse = StreamThreadExceptionResponse.REPLACE_THREAD;
+
+    // state store (RocksDB) 와 checkpoint 위치 (state.dir). 비어있으면 Kafka 기본값 (java.io.tmpdir/kafka-streams) 입니다.
+    // 재시작 후에도 남는 volume 을 주면 checkpoint 이후의 changelog 만 읽어 복구합니다.
+    String stateDir = "";
+
+    Restore restore = new Restore();
+
+    Autoscale autoscale = new Autoscale();
+
+    // pipeline 별 KafkaStreams instance (StreamsPipelineRegistry). key 는 pipeline 이름 (ad-evaluation, stream-join, table-join) 입니다.
+    // 여기 없는 pipeline 은 띄우지 않습니다. ad-evaluation 은 설정이 없어도 위의 공통 값으로 띄웁니다.
+    Map<String, Pipeline> pipelines = new LinkedHashMap<>(Map.of(Pipeline.AD_EVALUATION, new Pipeline()));
+
+    public Pipeline pipeline(String name) {
+        Pipeline pipeline = pipelines.get(name);
+        if (pipeline == null) {
+            pipeline = new Pipeline();
+            pipeline.setEnabled(false);
+        }
+        return pipeline;
+    }
+
+    public String applicationId(String name) {
+        return pipeline(name).applicationIdOr(Pipeline.AD_EVALUATION.equals(name) ? Pipeline.AD_EVALUATION_APPLICATION_ID : name);
+    }
+
+    public int numStreamThreads(String name) {
+        Integer threads = pipeline(name).getNumStreamThreads();
+        return threads == null ? numStreamThreads : threads;
+    }
+
+    public String stateDir(String name) {
+        String dir = pipeline(name).getStateDir();
+        return dir == null || dir.isBlank() ? stateDir : dir;
+    }
+
+    public boolean isExactlyOnce() {
+        return processingGuarantee == ProcessingGuarantee.EXACTLY_ONCE_V2;
+    }
+
+    public long effectiveCommitIntervalMs() {
+        if (commitIntervalMs != null) {
+            return commitIntervalMs;
+        }
+        return isExactlyOnce() ? 100 : 30000;
+    }
+
+    public void validate() {
+        List<String> errors = new ArrayList<>();
+        if (effectiveCommitIntervalMs() <= 0) {
+            errors.add("commit-interval-ms must be > 0");
+        }
+        // commit 주기 동안 transaction 이 열려있으므로 그보다 짧으면 broker 가 transaction 을 abort 합니다.
+        if (isExactlyOnce() && transactionTimeoutMs <= effectiveCommitIntervalMs()) {
+            errors.add("transaction-timeout-ms must be > commit-interval-ms with EXACTLY_ONCE_V2");
+        }
+        if (restore.numStandbyReplicas < 0 || restore.acceptableRecoveryLag < 0) {
+            errors.add("restore.num-standby-replicas and restore.acceptable-recovery-lag must be >= 0");
+        }
+        if (restore.maxWarmupReplicas < 1 || restore.maxPollRecords < 1) {
+            errors.add("restore.max-warmup-replicas and restore.max-poll-records must be >= 1");
+        }
+        // Kafka 가 1분 미만은 받지 않습니다.
+        if (restore.probingRebalanceInterval.toMillis() < 60_000) {
+            errors.add("restore.probing-rebalance-interval must be >= 1m");
+        }
+        // application.id 가 같으면 하나의 consumer group 으로 묶여 task 를 나눠 갖게 됩니다.
+        List<String> applicationIds = new ArrayList<>();
+        for (Map.Entry<String, Pipeline> pipeline : pipelines.entrySet()) {
+            if (!pipeline.getValue().isEnabled()) {
+                continue;
+            }
+            if (pipeline.getValue().numStreamThreads != null && pipeline.getValue().numStreamThreads < 1) {
+                errors.add("pipelines." + pipeline.getKey() + ".num-stream-threads must be >= 1");
+            }
+            String applicationId = applicationId(pipeline.getKey());
+            if (applicationIds.contains(applicationId)) {
+                errors.add("pipelines." + pipeline.getKey() + ".application-id " + applicationId + " is already used");
+            }
+            applicationIds.add(applicationId);
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid kafka.streams configuration : " + errors);
+        }
+    }
+
+    public enum ProcessingGuarantee {
+        AT_LEAST_ONCE(StreamsConfig.AT_LEAST_ONCE),
+        EXACTLY_ONCE_V2(StreamsConfig.EXACTLY_ONCE_V2);
+
+        final String configValue;
+
+        ProcessingGuarantee(String configValue) {
+            this.configValue = configValue;
+        }
+
+        public String configValue() {
+            return configValue;
+        }
+    }
+
+    RocksDb rocksdb = new RocksDb();
+
+    // 재시작 / rebalance 후 store 복구 시간을 줄이는 설정 (StateRestoreMonitor 가 진행 상황을 보여줍니다.)
+    @Data
+    public static class Restore {
+        // store 마다 다른 instance 에 유지할 복제본 수 (num.standby.replicas). active 가 옮겨가면 이 복제본이 이어받습니다.
+        int numStandbyReplicas = 1;
+        // changelog 끝과의 차이가 이 이하인 instance 를 따라잡은 것으로 보고 active 를 바로 줍니다. (acceptable.recovery.lag)
+        // 이보다 뒤처진 instance 에는 warmup 복제본으로 먼저 따라잡게 하고 probing rebalance 때 active 를 옮깁니다.
+        long acceptableRecoveryLag = 10000;
+        int maxWarmupReplicas = 2;
+        Duration probingRebalanceInterval = Duration.ofMinutes(10);
+        // restore consumer 가 한 번에 가져와 store 에 쓰는 record 수 (restore.consumer.max.poll.records)
+        int maxPollRecords = 10000;
+    }
+
+    // 비어있는 값은 kafka.streams 의 공통 값 (num-stream-threads, state-dir) 을 씁니다.
+    @Data
+    public static class Pipeline {
+        public static final String AD_EVALUATION = "ad-evaluation";
+        // 기존 consumer group / changelog / store 를 이어 쓰도록 ad-evaluation 은 원래 application.id 를 기본으로 합니다.
+        static final String AD_EVALUATION_APPLICATION_ID = "lecture-6";
+
+        boolean enabled = true;
+        // 비어있으면 pipeline 이름 (ad-evaluation 은 lecture-6) 입니다. state 는 state-dir/application-id 아래에 생깁니다.
+        String applicationId = "";
+        Integer numStreamThreads;
+        String stateDir = "";
+
+        public String applicationIdOr(String defaultApplicationId) {
+            return applicationId == null || applicationId.isBlank() ? defaultApplicationId : applicationId;
+        }
+    }
+
+    // 입력 Topic 의 consumer lag 을 보고 stream thread 를 늘리거나 줄입니다. (StreamThreadAutoscaler)
+    @Data
+    public static class Autoscale {
+        boolean enabled = false;
+        int minThreads = 1;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        // 입력 Topic lag 합계가 scaleUpLag 보다 크면 1개 추가, scaleDownLag 보다 작으면 1개 제거
+        long scaleUpLag = 10000;
+        long scaleDownLag = 1000;
+        // thread 수를 바꾸면 rebalance 로 lag 이 잠시 튀므로 그동안은 다시 판단하지 않습니다.
+        Duration cooldown = Duration.ofMinutes(2);
+    }
+
+    // 모든 RocksDB store (adStore, purchaseLogStore 등) 가 함께 쓰는 메모리 상한 (BoundedMemoryRocksDBConfig)
+    @Data
+    public static class RocksDb {
+        boolean boundedMemory = true;
+        // block cache 전체 크기. memtable 도 이 안에서 write-buffer-manager-bytes 만큼 잡습니다.
+        long blockCacheBytes = 256 * 1024 * 1024L;
+        long writeBufferManagerBytes = 64 * 1024 * 1024L;
+        // index / filter block 을 우선 보관할 cache 비율
+        double highPriorityPoolRatio = 0.1;
+        // store 별 memtable 크기와 개수
+        long writeBufferBytes = 16 * 1024 * 1024L;
+        int maxWriteBuffers = 3;
+        long blockSizeBytes = 16 * 1024L;
+        // 0 이면 bloom filter 를 쓰지 않습니다. point lookup (join) 위주라 기본으로 켭니다.
+        double bloomFilterBitsPerKey = 10;
+        // store 별 flush / compaction thread 수. 복구처럼 쓰기가 몰릴 때 L0 file 이 쌓여 write stall 이 나지 않게 합니다.
+        int maxBackgroundJobs = 4;
+    }
+}
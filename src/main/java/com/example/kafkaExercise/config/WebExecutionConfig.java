@@ -0,0 +1,27 @@
+package com.example.kafkaExercise.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WebExecutionProperties.class)
+public class WebExecutionConfig {
+
+    @Bean
+    public RequestExecutor requestExecutor(WebExecutionProperties properties) {
+        return new RequestExecutor(properties);
+    }
+
+    // VIRTUAL 모드에서는 Tomcat 의 요청 처리 executor 를 virtual thread 로 바꿉니다.
+    // KafkaTemplate.send 가 metadata/buffer.memory 를 기다리는 동안 platform thread 를 잡고 있지 않습니다.
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(RequestExecutor requestExecutor) {
+        return protocolHandler -> {
+            if (requestExecutor.virtualExecutor() != null) {
+                protocolHandler.setExecutor(requestExecutor.virtualExecutor());
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.kafkaExercise.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "web.execution")
+public class WebExecutionProperties {
+
+    // BLOCKING : 기존처럼 Tomcat thread 에서 바로 send 합니다.
+    // ASYNC    : 요청을 dispatch thread pool 로 넘기고 Tomcat thread 는 바로 반납합니다. (Servlet async)
+    // VIRTUAL  : Tomcat 요청 thread 를 virtual thread 로 바꿉니다. (Java 21 이상, 지원하지 않으면 ASYNC 로 동작)
+    Mode mode = Mode.BLOCKING;
+
+    // ASYNC 모드의 dispatch thread 수와 대기열 크기. 대기열이 가득 차면 429 로 응답합니다.
+    int dispatchThreads = 64;
+    int dispatchQueueCapacity = 10000;
+
+    public enum Mode {
+        BLOCKING,
+        ASYNC,
+        VIRTUAL
+    }
+}
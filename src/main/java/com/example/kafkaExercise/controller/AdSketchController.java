@@ -0,0 +1,84 @@
+package com.example.kafkaExercise.controller;
+
+import com.example.kafkaExercise.service.AdSketchQueryService;
+import com.example.kafkaExercise.vo.DistinctViewers;
+import com.example.kafkaExercise.vo.ProductConversions;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// sketch 기반 근사 집계 조회
+// GET /sketches/ads/{adId}/viewers?from=2023-02-01T00:00:00Z&to=2023-02-08T00:00:00Z
+// GET /sketches/ad-types/{adType}/viewers
+// GET /sketches/products/top?limit=10
+// from / to 가 없으면 최근 24시간의 window 를 합칩니다.
+@RestController
+public class AdSketchController {
+
+    AdSketchQueryService adSketchQueryService;
+
+    @Autowired
+    AdSketchController(AdSketchQueryService adSketchQueryService) {
+        this.adSketchQueryService = adSketchQueryService;
+    }
+
+    @GetMapping("/sketches/ads/{adId}/viewers")
+    public DistinctViewers viewersByAd(@PathVariable String adId,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                       @RequestParam(defaultValue = "false") boolean local) {
+        return viewers(AdSketchQueryService.Dimension.AD, adId, from, to, local);
+    }
+
+    @GetMapping("/sketches/ad-types/{adType}/viewers")
+    public DistinctViewers viewersByAdType(@PathVariable String adType,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                           @RequestParam(defaultValue = "false") boolean local) {
+        return viewers(AdSketchQueryService.Dimension.AD_TYPE, adType, from, to, local);
+    }
+
+    // shard 는 다른 instance 가 넘겨준 요청에만 붙습니다.
+    @GetMapping("/sketches/products/top")
+    public List<ProductConversions> topProducts(@RequestParam(defaultValue = "10") int limit,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                @RequestParam(required = false) Integer shard) {
+        checkEnabled();
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(Duration.ofHours(24)) : from;
+        return adSketchQueryService.topProducts(start, end, Math.max(1, limit), shard);
+    }
+
+    private DistinctViewers viewers(AdSketchQueryService.Dimension dimension, String key, Instant from, Instant to, boolean local) {
+        checkEnabled();
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(Duration.ofHours(24)) : from;
+        return adSketchQueryService.distinctViewers(dimension, key, start, end, local);
+    }
+
+    private void checkEnabled() {
+        if (!adSketchQueryService.enabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "ad-evaluation.sketches.enabled is false");
+        }
+    }
+
+    // rebalance 나 restore 중에는 store 를 조회할 수 없습니다.
+    @ExceptionHandler(InvalidStateStoreException.class)
+    public ResponseEntity<String> storeNotReady(InvalidStateStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.kafkaExercise.controller;
+
+import com.example.kafkaExercise.service.AdStatsQueryService;
+import com.example.kafkaExercise.vo.AdStatsWindow;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// 광고 효과 window 집계 조회
+// GET /stats/ads/{adId}?window=TUMBLING&from=2023-02-01T00:00:00Z&to=2023-02-02T00:00:00Z
+// GET /stats/ad-types/{adType}?window=HOPPING
+// from / to 가 없으면 최근 24시간의 window 를 돌려줍니다.
+@RestController
+public class AdStatsController {
+
+    AdStatsQueryService adStatsQueryService;
+
+    @Autowired
+    AdStatsController (AdStatsQueryService adStatsQueryService) {
+        this.adStatsQueryService=adStatsQueryService;
+    }
+
+    @GetMapping("/stats/ads/{adId}")
+    public List<AdStatsWindow> byAd(@PathVariable String adId,
+                                    @RequestParam(defaultValue = "TUMBLING") AdStatsQueryService.Window window,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                    @RequestParam(defaultValue = "false") boolean local) {
+        return query(AdStatsQueryService.Dimension.AD, window, adId, from, to, local);
+    }
+
+    @GetMapping("/stats/ad-types/{adType}")
+    public List<AdStatsWindow> byAdType(@PathVariable String adType,
+                                        @RequestParam(defaultValue = "TUMBLING") AdStatsQueryService.Window window,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                        @RequestParam(defaultValue = "false") boolean local) {
+        return query(AdStatsQueryService.Dimension.AD_TYPE, window, adType, from, to, local);
+    }
+
+    private List<AdStatsWindow> query(AdStatsQueryService.Dimension dimension, AdStatsQueryService.Window window,
+                                      String key, Instant from, Instant to, boolean local) {
+        if (!adStatsQueryService.enabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "ad-evaluation.stats.enabled is false");
+        }
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(Duration.ofHours(24)) : from;
+        return adStatsQueryService.query(dimension, window, key, start, end, local);
+    }
+
+    // rebalance 나 restore 중에는 store 를 조회할 수 없습니다.
+    @ExceptionHandler(InvalidStateStoreException.class)
+    public ResponseEntity<String> storeNotReady(InvalidStateStoreException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.kafkaExercise.controller;
+
+import com.example.kafkaExercise.service.DeadLetterReplayService;
+import com.example.kafkaExercise.vo.DeadLetterReplayResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// dead letter Topic 의 record 를 source Topic 으로 다시 넣습니다.
+// POST /dead-letter/adLog/replay?maxRecords=1000
+// 응답의 remaining 이 0 이 될 때까지 반복해서 호출하면 됩니다.
+@RestController
+public class DeadLetterController {
+
+    static final List<String> SOURCE_TOPICS = List.of("adLog", "purchaseLog", "purchaseLogOneProduct", "AdEvaluationComplete");
+
+    DeadLetterReplayService deadLetterReplayService;
+
+    @Autowired
+    DeadLetterController (DeadLetterReplayService deadLetterReplayService) {
+        this.deadLetterReplayService=deadLetterReplayService;
+    }
+
+    @PostMapping("/dead-letter/{topic}/replay")
+    public DeadLetterReplayResult replay(@PathVariable String topic, @RequestParam(required = false) Integer maxRecords) throws Exception {
+        if (!deadLetterReplayService.enabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "ad-evaluation.dead-letter.enabled is false");
+        }
+        if (!SOURCE_TOPICS.contains(topic)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown topic : " + topic);
+        }
+        return deadLetterReplayService.replay(topic, maxRecords != null ? maxRecords : deadLetterReplayService.batchSize());
+    }
+}
@@ -1,22 +1,82 @@
 package com.example.kafkaExercise.controller;
 
+import com.example.kafkaExercise.config.RequestExecutor;
+import com.example.kafkaExercise.service.IngestService;
 import com.example.kafkaExercise.service.Producer;
+import com.example.kafkaExercise.vo.IngestAck;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 public class ProducerController {
 
+    public static final String NDJSON = "application/x-ndjson";
+
     Producer producer;
+    IngestService ingestService;
+    RequestExecutor requestExecutor;
 
     @Autowired
-    ProducerController (Producer producer) {
+    ProducerController (Producer producer, IngestService ingestService, RequestExecutor requestExecutor) {
         this.producer=producer;
+        this.ingestService=ingestService;
+        this.requestExecutor=requestExecutor;
     }
+
+    // web.execution.mode 에 따라 요청 thread, dispatch pool 중 한 곳에서 send 합니다. (RequestExecutor 참고)
     @PostMapping("/message")
-    public void PublishMessage(@RequestParam String msg) {
-        producer.pub(msg);
+    public CompletableFuture<Void> PublishMessage(@RequestParam String msg) {
+        return requestExecutor.submit(() -> {
+            producer.pub(msg);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    // adLog, purchaseLog 를 여러 건 한 번에 받습니다.
+    // Content-Type application/x-ndjson : 한 줄에 JSON 1건
+    // Content-Type application/octet-stream : [4 byte length][binary 또는 JSON record] 반복
+    // producer buffer 가 부족하면 429 와 함께 그 시점까지 받은 건수(received)를 돌려줍니다.
+    @PostMapping(value = "/ingest/{topic}", consumes = {NDJSON, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public CompletableFuture<ResponseEntity<IngestAck>> ingest(@PathVariable String topic, HttpServletRequest request) throws IOException {
+        if (!IngestService.supports(topic)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown topic : " + topic);
+        }
+        boolean binary = MediaType.APPLICATION_OCTET_STREAM.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        InputStream body = request.getInputStream();
+
+        return requestExecutor.submit(() -> {
+            try {
+                return binary ? ingestService.ingestBinaryAsync(topic, body) : ingestService.ingestNdjsonAsync(topic, body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).thenApply(ack -> {
+            if (ack.isThrottled()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(ack);
+            }
+            return ResponseEntity.ok(ack);
+        });
+    }
+
+    // ASYNC 모드에서 dispatch 대기열이 가득 찬 경우
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> dispatchQueueFull() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
 }
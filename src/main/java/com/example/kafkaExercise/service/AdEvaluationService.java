@@ -1,21 +1,46 @@
 package com.example.kafkaExercise.service;
 
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.PipelineMetrics;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.util.AdSerdes;
+import com.example.kafkaExercise.util.ArchiveProcessor;
+import com.example.kafkaExercise.util.DeadLetterProcessor;
+import com.example.kafkaExercise.util.DeadLetterPublisher;
+import com.example.kafkaExercise.util.DedupProcessor;
+import com.example.kafkaExercise.util.EventTimeExtractor;
+import com.example.kafkaExercise.util.HyperLogLog;
+import com.example.kafkaExercise.util.JoinKeys;
+import com.example.kafkaExercise.util.JoinUpdateFilter;
+import com.example.kafkaExercise.util.ProductCatalogEnricher;
+import com.example.kafkaExercise.util.RollingBloomFilter;
+import com.example.kafkaExercise.util.TopKSketch;
+import com.example.kafkaExercise.vo.AdStats;
 import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.ProductCatalog;
+import com.example.kafkaExercise.vo.ProductInfo;
 import com.example.kafkaExercise.vo.PurchaseLog;
 import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
 import com.example.kafkaExercise.vo.WatchingAdLog;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.api.ContextualProcessor;
+import org.apache.kafka.streams.processor.api.Record;
 import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class AdEvaluationService {
@@ -28,90 +53,406 @@ public class AdEvaluationService {
     // filtering, 형 변환,
     // EffectOrNot --> Json 형태로 Topic : AdEvaluationComplete
 
+    // 집계 window store 이름 : AD_STATS_BY_AD + TUMBLING 처럼 조합합니다.
+    public static final String AD_STATS_BY_AD = "adStatsByAd";
+    public static final String AD_STATS_BY_AD_TYPE = "adStatsByAdType";
+    public static final String TUMBLING = "-tumbling";
+    public static final String HOPPING = "-hopping";
+    // 집계에 이미 센 주문을 거르는 store
+    public static final String AD_STATS_ORDERS = "adStatsOrders";
+    // 근사 집계 (sketch) window store 이름
+    public static final String AD_VIEWERS_BY_AD = "adViewersByAd";
+    public static final String AD_VIEWERS_BY_AD_TYPE = "adViewersByAdType";
+    public static final String PRODUCT_CONVERSIONS = "productConversions";
+    // 상품 catalog GlobalKTable 의 store 이름
+    public static final String PRODUCT_CATALOG_STORE = "productCatalogStore";
+
     Producer myprdc;
+    AdEvaluationProperties properties;
+    StreamsTuningProperties streamsTuningProperties;
+    DeadLetterPublisher deadLetterPublisher;
+    PipelineMetrics metrics;
+
+    public AdEvaluationService(Producer myprdc, AdEvaluationProperties properties) {
+        this(myprdc, properties, new StreamsTuningProperties());
+    }
+
+    public AdEvaluationService(Producer myprdc, AdEvaluationProperties properties, StreamsTuningProperties streamsTuningProperties) {
+        this(myprdc, properties, streamsTuningProperties, null);
+    }
+
+    public AdEvaluationService(Producer myprdc, AdEvaluationProperties properties, StreamsTuningProperties streamsTuningProperties,
+                               DeadLetterPublisher deadLetterPublisher) {
+        this(myprdc, properties, streamsTuningProperties, deadLetterPublisher, PipelineMetrics.noop());
+    }
+
+    @Autowired
+    public AdEvaluationService(Producer myprdc, AdEvaluationProperties properties, StreamsTuningProperties streamsTuningProperties,
+                               DeadLetterPublisher deadLetterPublisher, PipelineMetrics metrics) {
+        this.myprdc = myprdc;
+        this.properties = properties;
+        this.streamsTuningProperties = streamsTuningProperties;
+        this.deadLetterPublisher = deadLetterPublisher;
+        this.metrics = metrics;
+    }
+
     @Autowired
     public void buildPipeline(StreamsBuilder sb) {
 
-        //object의 형태별로 Serializer, Deserializer 를 설정합니다.
-        JsonSerializer<EffectOrNot> effectSerializer = new JsonSerializer<>();
-        JsonSerializer<PurchaseLog> purchaseLogSerializer = new JsonSerializer<>();
-        JsonSerializer<WatchingAdLog> watchingAdLogSerializer = new JsonSerializer<>();
-        JsonSerializer<PurchaseLogOneProduct> purchaseLogOneProductSerializer = new JsonSerializer<>();
-
-        JsonDeserializer<EffectOrNot> effectDeserializer = new JsonDeserializer<>(EffectOrNot.class);
-        JsonDeserializer<PurchaseLog> purchaseLogDeserializer = new JsonDeserializer<>(PurchaseLog.class);
-        JsonDeserializer<WatchingAdLog> watchingAdLogJsonDeserializer = new JsonDeserializer<>(WatchingAdLog.class);
-        JsonDeserializer<PurchaseLogOneProduct> purchaseLogOneProductDeserializer = new JsonDeserializer<>(PurchaseLogOneProduct.class);
-
-        Serde<EffectOrNot> effectOrNotSerde = Serdes.serdeFrom(effectSerializer, effectDeserializer);
-        Serde<PurchaseLog> purchaseLogSerde = Serdes.serdeFrom(purchaseLogSerializer, purchaseLogDeserializer);
-        Serde<WatchingAdLog> watchingAdLogSerde = Serdes.serdeFrom(watchingAdLogSerializer, watchingAdLogJsonDeserializer);
-        Serde<PurchaseLogOneProduct> purchaseLogOneProductSerdeSerde = Serdes.serdeFrom(purchaseLogOneProductSerializer, purchaseLogOneProductDeserializer);
-
-        // adLog topic 을 consuming 하여 KTable 로 받습니다.
-        KTable<String, WatchingAdLog> adTable = sb.stream("adLog", Consumed.with(Serdes.String(), watchingAdLogSerde))
-                .selectKey((k,v) -> v.getUserId() + "_" + v.getProductId()) // key를 userId+prodId로 생성해줍니다.
-                .filter((k,v)-> Integer.parseInt(v.getWatchingTime()) > 10) // 광고 시청시간이 10초 이상인 데이터만 Table에 담습니다.
-                .toTable(Materialized.<String, WatchingAdLog, KeyValueStore<Bytes, byte[]>>as("adStore") // Key-Value Store로 만들어줍니다.
+        //object의 형태별로 Serde 를 설정합니다. 읽기는 JSON/binary 모두 가능하고 쓰기는 wireFormat 을 따릅니다.
+        Serde<EffectOrNot> effectOrNotSerde = AdSerdes.effectOrNot(properties.getWireFormat());
+        Serde<PurchaseLog> purchaseLogSerde = AdSerdes.purchaseLog(properties.getWireFormat());
+        Serde<WatchingAdLog> watchingAdLogSerde = AdSerdes.watchingAdLog(properties.getWireFormat());
+        Serde<PurchaseLogOneProduct> purchaseLogOneProductSerdeSerde = AdSerdes.purchaseLogOneProduct(properties.getWireFormat());
+
+        // WINDOWED 모드는 watchingDt / purchasedDt 를 event time 으로 사용합니다.
+        boolean windowed = properties.getJoinMode() == AdEvaluationProperties.JoinMode.WINDOWED;
+        EventTimeExtractor eventTime = windowed ? new EventTimeExtractor(properties.getEventTimeZone()) : null;
+
+        // adLog topic 을 consuming 합니다.
+        KStream<String, WatchingAdLog> adLogKStream = archive(sb.stream("adLog", consumed(watchingAdLogSerde, eventTime)),
+                "adLogArchive", AdSerdes.watchingAdLog(AdEvaluationProperties.WireFormat.BINARY));
+        // watchingTime 이 숫자가 아닌 광고이력은 filter 에서 예외가 나기 전에 dead letter 로 보냅니다.
+        // dedup 보다 먼저 걸러야 dead letter 로 간 record 의 id 가 남지 않아, 고친 뒤 replay 한 record 가 중복으로 버려지지 않습니다.
+        adLogKStream = deadLetter(adLogKStream, "adLogValidate", WatchingAdLog::watchingSeconds, watchingAdLogSerde);
+        adLogKStream = dedup(sb, adLogKStream, "adLogDedup", v -> DedupProcessor.fieldHash(v.getUserId(), v.getProductId(),
+                v.getAdId(), v.getAdType(), v.getWatchingTime(), v.getWatchingDt()));
+        // co-partitioned 이면 Producer 가 이미 join key 로 보냈으므로 key 를 다시 만들지 않습니다. (repartition topic 이 없습니다.)
+        boolean coPartitioned = properties.isCoPartitionedSources();
+        KStream<String, WatchingAdLog> adKStream = (coPartitioned ? adLogKStream
+                : adLogKStream.selectKey((k,v) -> JoinKeys.of(v.getUserId(), v.getProductId()))) // key를 userId+prodId로 생성해줍니다.
+                .filter((k,v)-> isJoinTarget(v)); // 광고 시청시간이 10초 이상인 데이터만 join 대상입니다.
+
+        // TABLE 모드는 광고이력을 KTable 로 받습니다. (내부 topic 이름이 바뀌지 않도록 기존과 같은 순서로 만듭니다.)
+        KTable<String, WatchingAdLog> adTable = windowed ? null : adKStream
+                .toTable(adStore() // Key-Value Store로 만들어줍니다.
                         .withKeySerde(Serdes.String())
                         .withValueSerde(watchingAdLogSerde)
                         );
 
         // purchaseLog topic 을 consuming 하여 KStream 으로 받습니다.
-        KStream<String, PurchaseLog> purchaseLogKStream = sb.stream("purchaseLog", Consumed.with(Serdes.String(), purchaseLogSerde));
-
-        // 해당 KStream의 매 Row(Msg)마다 하기의 내용을 수행합니다.
-        purchaseLogKStream.foreach((k,v) -> {
-
-            // value 의 product 개수만큼 반복하여 신규 VO에 값을 Binding 합니다.
-            for (Map<String, String> prodInfo:v.getProductInfo())   {
-                // price 100000 미만인 경우만 하기의 내용을 수행합니다. 위 purchaseLogKStream에서 filter조건을 주고 받아도 무관합니다.
-                if (Integer.parseInt(prodInfo.get("price")) < 1000000) {
-                    PurchaseLogOneProduct tempVo = new PurchaseLogOneProduct();
-                    tempVo.setUserId(v.getUserId());
-                    tempVo.setProductId(prodInfo.get("productId"));
-                    tempVo.setOrderId(v.getOrderId());
-                    tempVo.setPrice(prodInfo.get("price"));
-                    tempVo.setPurchasedDt(v.getPurchasedDt());
+        KStream<String, PurchaseLog> purchaseLogKStream = archive(sb.stream("purchaseLog", consumed(purchaseLogSerde, eventTime)),
+                "purchaseLogArchive", AdSerdes.purchaseLog(AdEvaluationProperties.WireFormat.BINARY));
+        purchaseLogKStream = deadLetter(purchaseLogKStream, "purchaseLogValidate", AdEvaluationService::validatePurchaseLog, purchaseLogSerde);
+        purchaseLogKStream = dedup(sb, purchaseLogKStream, "purchaseLogDedup", PurchaseLog::getOrderId);
+
+        // product이 1개씩 나누어진 Stream
+        KStream<String, PurchaseLogOneProduct> purchaseLogOneProductKStream;
+        if (properties.getSplitMode() == AdEvaluationProperties.SplitMode.FLAT_MAP) {
+            // topology 안에서 바로 상품별로 나눕니다. 별도의 Producer 와 Topic 왕복이 없습니다.
+            purchaseLogOneProductKStream = purchaseLogKStream.flatMapValues(this::splitPurchaseLog);
+        } else if (streamsTuningProperties.isExactlyOnce()) {
+            // foreach 안의 Producer send 는 Streams transaction 밖이라 장애 시 나눈 상품이 유실/중복됩니다.
+            // EXACTLY_ONCE_V2 에서는 Streams 의 producer 로 내보내 입력 offset 과 같은 transaction 으로 commit 합니다.
+            // foreach 와 같이 자동 이름 번호를 하나만 쓰도록 (sink 가 하나 씁니다) 나누는 단계는 이름을 준 process 로 만듭니다.
+            purchaseLogKStream.process(() -> new ContextualProcessor<String, PurchaseLog, String, PurchaseLogOneProduct>() {
+                        @Override
+                        public void process(Record<String, PurchaseLog> record) {
+                            for (PurchaseLogOneProduct tempVo : splitPurchaseLog(record.value())) {
+                                // Producer 와 같이 join key 로 보냅니다. (기본 partitioner 라 Producer 가 보낸 것과 같은 partition 입니다.)
+                                context().forward(record.withKey(JoinKeys.of(tempVo.getUserId(), tempVo.getProductId())).withValue(tempVo));
+                            }
+                        }
+                    }, Named.as("purchaseLogSplit"))
+                    .to("purchaseLogOneProduct", Produced.with(Serdes.String(), purchaseLogOneProductSerdeSerde)
+                            .withName("purchaseLogOneProductSink"));
 
+            purchaseLogOneProductKStream = sb.stream("purchaseLogOneProduct", consumed(purchaseLogOneProductSerdeSerde, eventTime));
+        } else {
+            // 해당 KStream의 매 Row(Msg)마다 하기의 내용을 수행합니다.
+            purchaseLogKStream.foreach((k,v) -> {
+                for (PurchaseLogOneProduct tempVo : splitPurchaseLog(v)) {
                     // 1개의 product로 나눈 데이터를 purchaseLogOneProduct Topic으로 produce 합니다.
                     myprdc.sendJoinedMsg("purchaseLogOneProduct", tempVo);
 
                     // 하기의 method는 samplie Data를 생산하여 Topic에 넣습니다. 1개 받으면 여러개를 생성하기 때문에 무한하게 생성됩니다. .
                     // sendNewMsg();
                 }
-            }
+            });
+
+            // product이 1개씩 나누어 producing 된 topic을 읽어옵니다.
+            purchaseLogOneProductKStream = sb.stream("purchaseLogOneProduct", consumed(purchaseLogOneProductSerdeSerde, eventTime));
         }
-        );
 
-        // product이 1개씩 나누어 producing 된 topic을 읽어 KTable 로 받아옵니다.
-        KTable<String, PurchaseLogOneProduct> purchaseLogOneProductKTable= sb.stream("purchaseLogOneProduct", Consumed.with(Serdes.String(), purchaseLogOneProductSerdeSerde))
-                // Stream의 key 지정
-                .selectKey((k,v)-> v.getUserId()+ "_" +v.getProductId())
-                // key-value Store로 이용이 가능하도록 생성
-                .toTable(Materialized.<String, PurchaseLogOneProduct, KeyValueStore<Bytes, byte[]>>as("purchaseLogStore")
-                        .withKeySerde(Serdes.String())
-                        .withValueSerde(purchaseLogOneProductSerdeSerde)
-                );
+        // Stream의 key 지정 (purchaseLogOneProduct Topic 에서 읽은 경우 co-partitioned 이면 이미 join key 입니다.)
+        if (!coPartitioned || properties.getSplitMode() == AdEvaluationProperties.SplitMode.FLAT_MAP) {
+            purchaseLogOneProductKStream = purchaseLogOneProductKStream.selectKey((k,v)-> JoinKeys.of(v.getUserId(), v.getProductId()));
+        }
 
         // value joiner 를 통해 Left, Right 값을 통한 Output 결과값을 bind 하거나 join 조건을 설정할 수 있습니다.
-        ValueJoiner<WatchingAdLog, PurchaseLogOneProduct, EffectOrNot> tableStreamJoiner = (leftValue, rightValue) -> {
-            EffectOrNot returnValue = new EffectOrNot();
-            returnValue.setUserId(rightValue.getUserId());
-            returnValue.setAdId(leftValue.getAdId());
-            returnValue.setOrderId(rightValue.getOrderId());
-            Map<String, String> tempProdInfo = new HashMap<>();
-            tempProdInfo.put("productId", rightValue.getProductId());
-            tempProdInfo.put("price", rightValue.getPrice());
-            returnValue.setProductInfo(tempProdInfo);
-            System.out.println("Joined!");
-            return returnValue;
-        };
-
-        // table과 joiner를 입력해줍니다. stream join이 아니기에 window 설정은 불필요합니다.
-        adTable.join(purchaseLogOneProductKTable,tableStreamJoiner)
-                // join 이 완료된 데이터를 AdEvaluationComplete Topic으로 전달합니다.
-                .toStream().to("AdEvaluationComplete", Produced.with(Serdes.String(), effectOrNotSerde));
+        ValueJoiner<WatchingAdLog, PurchaseLogOneProduct, EffectOrNot> tableStreamJoiner = this::joinAdWithPurchase;
+
+        KStream<String, EffectOrNot> effectOrNotKStream;
+        if (windowed) {
+            // 광고 시청 시점부터 attributionWindow 안의 구매만 join 합니다. (구매가 광고보다 앞서면 join 하지 않습니다.)
+            // join store 는 window + grace 가 지난 segment 를 지우므로 전체 이력이 아니라 window 크기만큼만 유지됩니다.
+            effectOrNotKStream = adKStream.join(purchaseLogOneProductKStream, tableStreamJoiner,
+                            JoinWindows.ofTimeDifferenceAndGrace(properties.getAttributionWindow(), properties.getAttributionGrace())
+                                    .before(Duration.ZERO),
+                            StreamJoined.with(Serdes.String(), watchingAdLogSerde, purchaseLogOneProductSerdeSerde)
+                                    .withName("adAttribution")
+                                    .withStoreName("adAttribution"));
+            effectOrNotKStream = enrich(effectOrNotKStream);
+            effectOrNotKStream.to("AdEvaluationComplete", Produced.with(Serdes.String(), effectOrNotSerde));
+        } else {
+            // product이 1개씩 나누어진 Stream 을 KTable 로 받아옵니다.
+            KTable<String, PurchaseLogOneProduct> purchaseLogOneProductKTable= purchaseLogOneProductKStream
+                    // key-value Store로 이용이 가능하도록 생성
+                    .toTable(Materialized.<String, PurchaseLogOneProduct, KeyValueStore<Bytes, byte[]>>as("purchaseLogStore")
+                            .withKeySerde(Serdes.String())
+                            .withValueSerde(purchaseLogOneProductSerdeSerde)
+                    );
+
+            // table과 joiner를 입력해줍니다. stream join이 아니기에 window 설정은 불필요합니다.
+            effectOrNotKStream = adTable.join(purchaseLogOneProductKTable,tableStreamJoiner).toStream();
+            effectOrNotKStream = enrich(effectOrNotKStream);
+            // join 이 완료된 데이터를 AdEvaluationComplete Topic으로 전달합니다.
+            effectOrNotKStream.to("AdEvaluationComplete", Produced.with(Serdes.String(), effectOrNotSerde));
+        }
+
+        // 집계 processor 는 마지막에 붙여서 기존 processor / 내부 topic 이름이 바뀌지 않게 합니다.
+        if (properties.getStats().isEnabled()) {
+            buildStats(sb, adLogKStream, effectOrNotKStream);
+        }
+        // GlobalKTable 도 source / 이름을 쓰므로 마지막에 만듭니다. enrich 는 store 이름으로만 찾습니다.
+        if (properties.getCatalog().isEnabled()) {
+            sb.globalTable(properties.getCatalog().getTopic(), Consumed.with(Serdes.String(), AdSerdes.productCatalog()),
+                    Materialized.<String, ProductCatalog, KeyValueStore<Bytes, byte[]>>as(PRODUCT_CATALOG_STORE)
+                            .withKeySerde(Serdes.String())
+                            .withValueSerde(AdSerdes.productCatalog()));
+        }
+        if (properties.getSketches().isEnabled()) {
+            buildSketches(adLogKStream, effectOrNotKStream);
+        }
+    }
+
+    // 고유 시청자 수와 구매 상위 상품을 key 수와 관계없이 고정 크기의 sketch 로 window 에 누적합니다. (AdSketchQueryService 가 조회)
+    private void buildSketches(KStream<String, WatchingAdLog> adLogKStream, KStream<String, EffectOrNot> effectOrNotKStream) {
+        AdEvaluationProperties.Sketches sketches = properties.getSketches();
+        TimeWindows windows = TimeWindows.ofSizeAndGrace(sketches.getWindowSize(), sketches.getGrace());
+        Serde<HyperLogLog> hllSerde = AdSerdes.hyperLogLog();
+        Serde<TopKSketch> topKSerde = AdSerdes.topKSketch();
+        // 잘못된 크기 설정은 첫 record 가 아니라 topology 를 만들 때 알 수 있도록 한 번 만들어 봅니다.
+        new HyperLogLog(sketches.getHllPrecision());
+        new TopKSketch(sketches.getTopK(), sketches.getCmsWidth(), sketches.getCmsDepth());
+
+        Map<String, Function<WatchingAdLog, String>> viewerDimensions = new LinkedHashMap<>();
+        viewerDimensions.put(AD_VIEWERS_BY_AD, WatchingAdLog::getAdId);
+        viewerDimensions.put(AD_VIEWERS_BY_AD_TYPE, WatchingAdLog::getAdType);
+        viewerDimensions.forEach((name, keyOf) -> adLogKStream
+                .map((k, v) -> KeyValue.pair(keyOf.apply(v), v.getUserId()))
+                .groupByKey(Grouped.with(name, Serdes.String(), Serdes.String()))
+                .windowedBy(windows)
+                .aggregate(() -> new HyperLogLog(sketches.getHllPrecision()), (k, userId, hll) -> hll.add(userId),
+                        Materialized.<String, HyperLogLog, WindowStore<Bytes, byte[]>>as(name)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(hllSerde)
+                                .withRetention(sketches.getRetention())));
+
+        effectOrNotKStream
+                .filter((k, v) -> v.getProductInfo() != null && v.getProductInfo().get(ProductInfo.PRODUCT_ID) != null)
+                .map((k, v) -> {
+                    String productId = v.getProductInfo().get(ProductInfo.PRODUCT_ID);
+                    return KeyValue.pair(productShard(productId, sketches.getProductShards()), productId);
+                })
+                .groupByKey(Grouped.with(PRODUCT_CONVERSIONS, Serdes.String(), Serdes.String()))
+                .windowedBy(windows)
+                .aggregate(() -> new TopKSketch(sketches.getTopK(), sketches.getCmsWidth(), sketches.getCmsDepth()),
+                        (k, productId, topK) -> topK.add(productId),
+                        Materialized.<String, TopKSketch, WindowStore<Bytes, byte[]>>as(PRODUCT_CONVERSIONS)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(topKSerde)
+                                .withRetention(sketches.getRetention()));
+    }
+
+    // 같은 상품은 항상 같은 shard 라 shard 끼리는 상품이 겹치지 않습니다.
+    public static String productShard(String productId, int shards) {
+        return String.valueOf(Math.floorMod(RollingBloomFilter.hash64(productId, 0L), shards));
+    }
+
+    // join 결과에 상품 catalog 를 붙입니다. 이름을 직접 주므로 꺼져 있을 때와 뒤쪽 processor 이름이 같습니다.
+    private KStream<String, EffectOrNot> enrich(KStream<String, EffectOrNot> effectOrNotKStream) {
+        AdEvaluationProperties.Catalog catalog = properties.getCatalog();
+        if (!catalog.isEnabled()) {
+            return effectOrNotKStream;
+        }
+        return effectOrNotKStream.processValues(ProductCatalogEnricher.supplier(PRODUCT_CATALOG_STORE,
+                        catalog.isNearCache() ? catalog.getNearCacheMaxEntries() : 0, catalog.getNearCacheTtl(), metrics),
+                Named.as("productCatalogEnrich"));
+    }
+
+    // 시청(adLog 전체) 과 귀속된 구매(EffectOrNot) 를 adId, adType 별 window 에 누적합니다.
+    // window store 는 AdStatsQueryService 가 interactive query 로 조회합니다.
+    private void buildStats(StreamsBuilder sb, KStream<String, WatchingAdLog> adLogKStream, KStream<String, EffectOrNot> effectOrNotKStream) {
+        KStream<String, EffectOrNot> orders = newOrders(sb, effectOrNotKStream);
+        KStream<String, AdStats> byAd = adLogKStream.map((k, v) -> KeyValue.pair(v.getAdId(), new AdStats(1, 0, 0)))
+                .merge(orders.map((k, v) -> KeyValue.pair(v.getAdId(), order(v))));
+        KStream<String, AdStats> byAdType = adLogKStream.map((k, v) -> KeyValue.pair(v.getAdType(), new AdStats(1, 0, 0)))
+                .merge(orders.map((k, v) -> KeyValue.pair(v.getAdType(), order(v))));
+
+        aggregateStats(byAd, AD_STATS_BY_AD);
+        aggregateStats(byAdType, AD_STATS_BY_AD_TYPE);
+    }
+
+    // join 결과는 같은 구매를 여러 번 내보낼 수 있어 주문 상품마다 한 번만 셉니다.
+    // TABLE    : 광고 쪽이 바뀌어도 (같은 key 의 광고를 다시 봄) 결과가 다시 나옵니다. join key 별 마지막 주문번호와 같으면 버립니다.
+    // WINDOWED : 구매 전 window 안의 광고 시청마다 결과가 나옵니다. 모두 구매 시각 근처라 window + grace 동안의 orderId+productId 로 거릅니다.
+    private KStream<String, EffectOrNot> newOrders(StreamsBuilder sb, KStream<String, EffectOrNot> effectOrNotKStream) {
+        if (properties.getJoinMode() == AdEvaluationProperties.JoinMode.WINDOWED) {
+            Duration window = properties.getAttributionWindow().plus(properties.getAttributionGrace());
+            sb.addStateStore(DedupProcessor.storeBuilder(AD_STATS_ORDERS, window));
+            return effectOrNotKStream.process(DedupProcessor.supplier(AD_STATS_ORDERS,
+                    v -> v.getOrderId() + "|" + (v.getProductInfo() == null ? null : v.getProductInfo().get(ProductInfo.PRODUCT_ID)),
+                    window, false, 0, 0), Named.as(AD_STATS_ORDERS), AD_STATS_ORDERS);
+        }
+        sb.addStateStore(JoinUpdateFilter.storeBuilder(AD_STATS_ORDERS));
+        return effectOrNotKStream.process(JoinUpdateFilter.supplier(AD_STATS_ORDERS, EffectOrNot::getOrderId),
+                Named.as(AD_STATS_ORDERS), AD_STATS_ORDERS);
+    }
+
+    // 같은 repartition topic 을 tumbling / hopping 두 window 집계가 함께 씁니다.
+    private void aggregateStats(KStream<String, AdStats> deltas, String name) {
+        AdEvaluationProperties.Stats stats = properties.getStats();
+        Serde<AdStats> adStatsSerde = AdSerdes.adStats();
+        KGroupedStream<String, AdStats> grouped = deltas.groupByKey(Grouped.with(name, Serdes.String(), adStatsSerde));
+
+        grouped.windowedBy(TimeWindows.ofSizeAndGrace(stats.getTumblingSize(), stats.getGrace()))
+                .aggregate(AdStats::new, (k, delta, agg) -> agg.add(delta),
+                        Materialized.<String, AdStats, WindowStore<Bytes, byte[]>>as(name + TUMBLING)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(adStatsSerde)
+                                .withRetention(stats.getRetention()));
+        grouped.windowedBy(TimeWindows.ofSizeAndGrace(stats.getHoppingSize(), stats.getGrace()).advanceBy(stats.getHoppingAdvance()))
+                .aggregate(AdStats::new, (k, delta, agg) -> agg.add(delta),
+                        Materialized.<String, AdStats, WindowStore<Bytes, byte[]>>as(name + HOPPING)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(adStatsSerde)
+                                .withRetention(stats.getRetention()));
+    }
+
+    private static AdStats order(EffectOrNot effectOrNot) {
+        long price = 0;
+        if (effectOrNot.getProductInfo() instanceof ProductInfo && ((ProductInfo) effectOrNot.getProductInfo()).hasPriceValue()) {
+            // 같은 instance 안에서 joiner 가 만든 값은 이미 parse 되어 있습니다.
+            price = ((ProductInfo) effectOrNot.getProductInfo()).priceValue();
+        } else if (effectOrNot.getProductInfo() != null) {
+            try {
+                price = Long.parseLong(effectOrNot.getProductInfo().get("price"));
+            } catch (NumberFormatException e) {
+                // 매출에는 더하지 않고 구매 수만 셉니다.
+            }
+        }
+        return new AdStats(0, 1, price);
+    }
+
+    // 읽은 record 를 검사, 중복 제거 전에 그대로 디스크에 남깁니다. (ArchiveReplay 로 같은 topology 에 다시 넣습니다.)
+    // 이름을 준 processValues 라 꺼져 있을 때와 뒤쪽 processor / 내부 topic 이름이 같고 repartition 도 생기지 않습니다.
+    private <V> KStream<String, V> archive(KStream<String, V> source, String name, Serde<V> binarySerde) {
+        AdEvaluationProperties.Archive archive = properties.getArchive();
+        if (!archive.isEnabled()) {
+            return source;
+        }
+        return source.processValues(ArchiveProcessor.supplier(Path.of(archive.getDir()), archive.getSegmentBytes(),
+                archive.getIndexIntervalBytes(), archive.getFlushInterval(), binarySerde.serializer()), Named.as(name));
+    }
+
+    // dead letter 검사를 통과한 record 중 재전송된 record 를 버립니다. 이름을 직접 주므로 꺼져 있을 때와 뒤쪽 processor 이름이 같습니다.
+    // store 를 쓰므로 process 로 만들어, co-partitioned-sources 를 켜도 뒤의 stateful 단계 앞에 repartition 이 남습니다.
+    private <V> KStream<String, V> dedup(StreamsBuilder sb, KStream<String, V> source, String name, Function<V, String> idOf) {
+        AdEvaluationProperties.Dedup dedup = properties.getDedup();
+        if (!dedup.isEnabled()) {
+            return source;
+        }
+        sb.addStateStore(DedupProcessor.storeBuilder(name, dedup.getWindow()));
+        return source.process(DedupProcessor.supplier(name, idOf, dedup.getWindow(), dedup.isBloomFilter(),
+                        dedup.getExpectedInsertions(), dedup.getFalsePositiveRate()),
+                Named.as(name), name);
+    }
+
+    // validator 에서 예외가 나는 record 를 dead letter Topic 으로 보내고 버립니다.
+    // dedup 과 같이 이름을 준 processor 라 꺼져 있을 때와 뒤쪽 processor / 내부 topic 이름이 같습니다.
+    // store 가 없어 processValues 를 쓸 수 있으므로 key 가 바뀐 것으로 보지 않습니다. (co-partitioned 에서 repartition 이 생기지 않습니다.)
+    private <V> KStream<String, V> deadLetter(KStream<String, V> stream, String name, Consumer<V> validator, Serde<V> valueSerde) {
+        if (!properties.getDeadLetter().isEnabled()) {
+            return stream;
+        }
+        if (deadLetterPublisher == null) {
+            throw new IllegalStateException("ad-evaluation.dead-letter.enabled requires a DeadLetterPublisher");
+        }
+        return stream.processValues(DeadLetterProcessor.supplier(deadLetterPublisher, name, validator, valueSerde.serializer()), Named.as(name));
+    }
+
+    private static <V> Consumed<String, V> consumed(Serde<V> valueSerde, EventTimeExtractor eventTime) {
+        Consumed<String, V> consumed = Consumed.with(Serdes.String(), valueSerde);
+        return eventTime == null ? consumed : consumed.withTimestampExtractor(eventTime);
+    }
+
+    // ad-evaluation.ad-store-type 에 따라 adStore 의 store 를 고릅니다.
+    private Materialized<String, WatchingAdLog, KeyValueStore<Bytes, byte[]>> adStore() {
+        switch (properties.getAdStoreType()) {
+            case IN_MEMORY:
+                return Materialized.as(Stores.inMemoryKeyValueStore("adStore"));
+            case LRU:
+                return Materialized.as(Stores.lruMap("adStore", properties.getAdStoreLruMaxEntries()));
+            default:
+                return Materialized.as("adStore");
+        }
+    }
+
+    // 시청시간은 deserialize 때 parse 해둔 값을 씁니다.
+    boolean isJoinTarget(WatchingAdLog v) {
+        if (v.watchingSeconds() > 10) {
+            return true;
+        }
+        metrics.filteredByWatchTime();
+        return false;
+    }
+
+    // 광고이력(left)과 상품별 구매이력(right)으로 EffectOrNot 을 만듭니다.
+    public EffectOrNot joinAdWithPurchase(WatchingAdLog leftValue, PurchaseLogOneProduct rightValue) {
+        long sampleStart = metrics.startSample();
+        EffectOrNot returnValue = new EffectOrNot();
+        returnValue.setUserId(rightValue.getUserId());
+        returnValue.setAdId(leftValue.getAdId());
+        returnValue.setAdType(leftValue.getAdType());
+        returnValue.setOrderId(rightValue.getOrderId());
+        // HashMap 대신 두 값만 담는 Map 을 씁니다. (join 마다 table / node 할당이 없습니다.)
+        returnValue.setProductInfo(ProductInfo.of(rightValue));
+        metrics.joined(rightValue.getPurchasedDt(), sampleStart);
+        return returnValue;
+    }
+
+    // splitPurchaseLog 에서 예외가 날 구매이력 (상품 목록이 없거나 price 가 없거나 숫자가 아닌 경우) 이면 예외를 던집니다.
+    static void validatePurchaseLog(PurchaseLog v) {
+        if (v.getProductInfo() == null) {
+            throw new IllegalArgumentException("productInfo is missing");
+        }
+        for (Map<String, String> prodInfo : v.getProductInfo()) {
+            Integer.parseInt(prodInfo.get("price"));
+        }
+    }
+
+    // 구매이력 1건을 상품별 VO로 나눕니다. price 1000000 미만인 상품만 join 대상입니다.
+    public List<PurchaseLogOneProduct> splitPurchaseLog(PurchaseLog v) {
+        long sampleStart = metrics.startSample();
+        List<PurchaseLogOneProduct> result = new ArrayList<>(v.getProductInfo().size());
+
+        // value 의 product 개수만큼 반복하여 신규 VO에 값을 Binding 합니다.
+        for (Map<String, String> prodInfo:v.getProductInfo())   {
+            String price = prodInfo.get("price");
+            int priceValue = Integer.parseInt(price); // 상품별로 한 번만 parse 하고 VO 에 같이 넘깁니다.
+            if (priceValue < 1000000) {
+                PurchaseLogOneProduct tempVo = new PurchaseLogOneProduct();
+                tempVo.setUserId(v.getUserId());
+                tempVo.setProductId(prodInfo.get("productId"));
+                tempVo.setOrderId(v.getOrderId());
+                tempVo.setPrice(price, priceValue);
+                tempVo.setPurchasedDt(v.getPurchasedDt());
+                result.add(tempVo);
+            }
+        }
+        metrics.split(result.size(), v.getProductInfo().size() - result.size(), sampleStart);
+        return result;
     }
 
     public void sendNewMsg() {
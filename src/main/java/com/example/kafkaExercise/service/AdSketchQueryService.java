@@ -0,0 +1,173 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.util.HyperLogLog;
+import com.example.kafkaExercise.util.TopKSketch;
+import com.example.kafkaExercise.vo.DistinctViewers;
+import com.example.kafkaExercise.vo.ProductConversions;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// AdEvaluationService 의 sketch window store 를 interactive query 로 조회합니다.
+// 요청한 구간의 window sketch 들을 merge 해서 구간 전체의 값을 계산합니다. (고유 시청자는 window 별 합이 아니라 합집합)
+// key 를 가진 instance 가 다른 곳이면 AdStatsQueryService 처럼 그 instance 의 /sketches 로 넘깁니다.
+@Service
+public class AdSketchQueryService {
+
+    public enum Dimension {
+        AD("ads", AdEvaluationService.AD_VIEWERS_BY_AD),
+        AD_TYPE("ad-types", AdEvaluationService.AD_VIEWERS_BY_AD_TYPE);
+
+        final String path;
+        final String storeName;
+
+        Dimension(String path, String storeName) {
+            this.path = path;
+            this.storeName = storeName;
+        }
+    }
+
+    StreamsBuilderFactoryBean factoryBean;
+    AdEvaluationProperties properties;
+    HostInfo self;
+    RestTemplate restTemplate;
+
+    @Autowired
+    public AdSketchQueryService(StreamsBuilderFactoryBean factoryBean, AdEvaluationProperties properties,
+                                StreamsTuningProperties streamsProperties, RestTemplateBuilder restTemplateBuilder) {
+        this.factoryBean = factoryBean;
+        this.properties = properties;
+        this.self = streamsProperties.getApplicationServer().isBlank() ? null : HostInfo.buildFromEndpoint(streamsProperties.getApplicationServer());
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public boolean enabled() {
+        return properties.getSketches().isEnabled();
+    }
+
+    public DistinctViewers distinctViewers(Dimension dimension, String key, Instant from, Instant to, boolean localOnly) {
+        KafkaStreams kafkaStreams = kafkaStreams();
+        HostInfo owner = localOnly ? null : owner(kafkaStreams, dimension.storeName, key);
+        if (owner != null) {
+            return restTemplate.getForObject(uri(owner, "/sketches/" + dimension.path + "/{key}/viewers", from, to)
+                    .buildAndExpand(key).toUriString(), DistinctViewers.class);
+        }
+
+        ReadOnlyWindowStore<String, HyperLogLog> store = kafkaStreams.store(
+                StoreQueryParameters.fromNameAndType(dimension.storeName, QueryableStoreTypes.windowStore()));
+        HyperLogLog merged = null;
+        int windows = 0;
+        long first = from.toEpochMilli();
+        long last = to.toEpochMilli();
+        try (WindowStoreIterator<HyperLogLog> iterator = store.fetch(key, from, to)) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, HyperLogLog> window = iterator.next();
+                if (windows++ == 0) {
+                    first = window.key;
+                    merged = window.value;
+                } else {
+                    merged.merge(window.value);
+                }
+                last = window.key + properties.getSketches().getWindowSize().toMillis();
+            }
+        }
+        return new DistinctViewers(key, first, last, windows, merged == null ? 0 : merged.estimate());
+    }
+
+    // localShard 는 다른 instance 가 넘겨준 요청입니다. 그 shard 만 이 instance 에서 봅니다.
+    // shard 끼리는 상품이 겹치지 않으므로 shard 별 상위 limit 개를 모아 다시 고르면 전체 상위 limit 개입니다.
+    public List<ProductConversions> topProducts(Instant from, Instant to, int limit, Integer localShard) {
+        KafkaStreams kafkaStreams = kafkaStreams();
+        if (localShard != null) {
+            return topProductsLocal(kafkaStreams, String.valueOf(localShard), from, to, limit);
+        }
+        List<ProductConversions> result = new ArrayList<>();
+        for (int shard = 0; shard < properties.getSketches().getProductShards(); shard++) {
+            String key = String.valueOf(shard);
+            HostInfo owner = owner(kafkaStreams, AdEvaluationService.PRODUCT_CONVERSIONS, key);
+            if (owner == null) {
+                result.addAll(topProductsLocal(kafkaStreams, key, from, to, limit));
+            } else {
+                ProductConversions[] remote = restTemplate.getForObject(uri(owner, "/sketches/products/top", from, to)
+                        .queryParam("limit", limit)
+                        .queryParam("shard", shard)
+                        .toUriString(), ProductConversions[].class);
+                result.addAll(remote == null ? List.of() : Arrays.asList(remote));
+            }
+        }
+        result.sort(Comparator.comparingLong(ProductConversions::getConversions).reversed()
+                .thenComparing(ProductConversions::getProductId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private List<ProductConversions> topProductsLocal(KafkaStreams kafkaStreams, String shard, Instant from, Instant to, int limit) {
+        ReadOnlyWindowStore<String, TopKSketch> store = kafkaStreams.store(
+                StoreQueryParameters.fromNameAndType(AdEvaluationService.PRODUCT_CONVERSIONS, QueryableStoreTypes.windowStore()));
+        TopKSketch merged = null;
+        try (WindowStoreIterator<TopKSketch> iterator = store.fetch(shard, from, to)) {
+            while (iterator.hasNext()) {
+                TopKSketch window = iterator.next().value;
+                merged = merged == null ? window : merged.merge(window);
+            }
+        }
+        List<ProductConversions> result = new ArrayList<>();
+        if (merged != null) {
+            merged.top(limit).forEach((productId, conversions) -> result.add(new ProductConversions(productId, conversions)));
+        }
+        return result;
+    }
+
+    private KafkaStreams kafkaStreams() {
+        KafkaStreams kafkaStreams = factoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            throw new InvalidStateStoreException("Kafka Streams is not started yet");
+        }
+        return kafkaStreams;
+    }
+
+    // key 를 다른 instance 가 가지고 있으면 그 host, 이 instance 면 null
+    private HostInfo owner(KafkaStreams kafkaStreams, String storeName, String key) {
+        if (self == null) {
+            return null;
+        }
+        KeyQueryMetadata metadata = kafkaStreams.queryMetadataForKey(storeName, key, Serdes.String().serializer());
+        if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+            throw new InvalidStateStoreException("Metadata for " + storeName + " is not available (rebalancing)");
+        }
+        return self.equals(metadata.activeHost()) ? null : metadata.activeHost();
+    }
+
+    private static UriComponentsBuilder uri(HostInfo host, String path, Instant from, Instant to) {
+        return UriComponentsBuilder.newInstance()
+                .scheme("http").host(host.host()).port(host.port())
+                .path(path)
+                .queryParam("from", from)
+                .queryParam("to", to)
+                .queryParam("local", true);
+    }
+}
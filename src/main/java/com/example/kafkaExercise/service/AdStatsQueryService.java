@@ -0,0 +1,135 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.vo.AdStats;
+import com.example.kafkaExercise.vo.AdStatsWindow;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// AdEvaluationService 가 만든 adId / adType 별 window store 를 interactive query 로 조회합니다.
+// key 를 가진 instance 가 다른 곳이면 그 instance 의 /stats 로 넘겨서 결과를 받아옵니다.
+@Service
+public class AdStatsQueryService {
+
+    public enum Dimension {
+        AD("ads", AdEvaluationService.AD_STATS_BY_AD),
+        AD_TYPE("ad-types", AdEvaluationService.AD_STATS_BY_AD_TYPE);
+
+        final String path;
+        final String storePrefix;
+
+        Dimension(String path, String storePrefix) {
+            this.path = path;
+            this.storePrefix = storePrefix;
+        }
+    }
+
+    public enum Window {
+        TUMBLING,
+        HOPPING
+    }
+
+    StreamsBuilderFactoryBean factoryBean;
+    AdEvaluationProperties properties;
+    HostInfo self;
+    RestTemplate restTemplate;
+
+    @Autowired
+    public AdStatsQueryService(StreamsBuilderFactoryBean factoryBean, AdEvaluationProperties properties,
+                               StreamsTuningProperties streamsProperties, RestTemplateBuilder restTemplateBuilder) {
+        this.factoryBean = factoryBean;
+        this.properties = properties;
+        this.self = streamsProperties.getApplicationServer().isBlank() ? null : HostInfo.buildFromEndpoint(streamsProperties.getApplicationServer());
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public boolean enabled() {
+        return properties.getStats().isEnabled();
+    }
+
+    // localOnly 는 다른 instance 가 넘겨준 요청입니다. 다시 넘기지 않고 이 instance 의 store 만 봅니다.
+    public List<AdStatsWindow> query(Dimension dimension, Window window, String key, Instant from, Instant to, boolean localOnly) {
+        KafkaStreams kafkaStreams = factoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            throw new InvalidStateStoreException("Kafka Streams is not started yet");
+        }
+        String storeName = storeName(dimension, window);
+        if (self == null || localOnly) {
+            return queryLocal(kafkaStreams, storeName, windowSize(window), key, from, to);
+        }
+
+        KeyQueryMetadata metadata = kafkaStreams.queryMetadataForKey(storeName, key, Serdes.String().serializer());
+        if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+            throw new InvalidStateStoreException("Metadata for " + storeName + " is not available (rebalancing)");
+        }
+        if (self.equals(metadata.activeHost())) {
+            return queryLocal(kafkaStreams, storeName, windowSize(window), key, from, to);
+        }
+        return queryRemote(metadata.activeHost(), dimension, window, key, from, to);
+    }
+
+    private List<AdStatsWindow> queryLocal(KafkaStreams kafkaStreams, String storeName, Duration windowSize,
+                                           String key, Instant from, Instant to) {
+        ReadOnlyWindowStore<String, AdStats> store = kafkaStreams.store(
+                StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.windowStore()));
+        List<AdStatsWindow> result = new ArrayList<>();
+        try (WindowStoreIterator<AdStats> windows = store.fetch(key, from, to)) {
+            while (windows.hasNext()) {
+                KeyValue<Long, AdStats> window = windows.next();
+                result.add(toWindow(key, window.key, window.key + windowSize.toMillis(), window.value));
+            }
+        }
+        return result;
+    }
+
+    private List<AdStatsWindow> queryRemote(HostInfo host, Dimension dimension, Window window, String key, Instant from, Instant to) {
+        String url = UriComponentsBuilder.newInstance()
+                .scheme("http").host(host.host()).port(host.port())
+                .path("/stats/{dimension}/{key}")
+                .queryParam("window", window)
+                .queryParam("from", from)
+                .queryParam("to", to)
+                .queryParam("local", true)
+                .buildAndExpand(dimension.path, key)
+                .toUriString();
+        AdStatsWindow[] windows = restTemplate.getForObject(url, AdStatsWindow[].class);
+        return windows == null ? List.of() : Arrays.asList(windows);
+    }
+
+    static AdStatsWindow toWindow(String key, long start, long end, AdStats stats) {
+        double conversionRate = stats.getViews() == 0 ? 0 : (double) stats.getOrders() / stats.getViews();
+        return new AdStatsWindow(key, start, end, stats.getViews(), stats.getOrders(), stats.getRevenue(), conversionRate);
+    }
+
+    static String storeName(Dimension dimension, Window window) {
+        return dimension.storePrefix + (window == Window.TUMBLING ? AdEvaluationService.TUMBLING : AdEvaluationService.HOPPING);
+    }
+
+    private Duration windowSize(Window window) {
+        return window == Window.TUMBLING ? properties.getStats().getTumblingSize() : properties.getStats().getHoppingSize();
+    }
+}
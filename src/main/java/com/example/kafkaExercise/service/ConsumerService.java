@@ -1,12 +1,113 @@
 package com.example.kafkaExercise.service;
 
+import com.example.kafkaExercise.config.ConsumerProperties;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// AdEvaluationComplete 를 batch 로 읽어 EffectOrNotSink 에 poll 단위로 넘깁니다. (kafka.consumer.enabled=true 일 때 시작)
+// sink 가 돌아온 뒤에 container 가 offset 을 commit 합니다. (AckMode.BATCH)
+//
+// metric
+//   ad.evaluation.consumer.records : sink 에 넘긴 record 수 (rate 가 records/s)
+//   ad.evaluation.consumer.skipped : 읽지 못해 (value 없음) 건너뛴 record 수
+//   ad.evaluation.consumer.batch.size, ad.evaluation.consumer.batch.latency : poll 한 번의 크기와 sink 처리 시간
+@Slf4j
 @Service
 public class ConsumerService {
 
+    public static final String LISTENER_ID = "adEvaluationComplete";
+    // max-attempts 번 실패한 batch 를 dead letter 로 보낼 때의 dlq.stage
+    public static final String DEAD_LETTER_STAGE = "sink";
+
+    EffectOrNotSink sink;
+    ConsumerProperties properties;
+
+    private final Counter records;
+    private final Counter skipped;
+    private final DistributionSummary batchSize;
+    private final Timer batchLatency;
+
+    private long reportStartNanos = System.nanoTime();
+    private long reportRecords;
+    private long reportBatches;
+    private long reportSinkNanos;
+
+    @Autowired
+    public ConsumerService(EffectOrNotSink sink, ConsumerProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(sink, properties, meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    ConsumerService(EffectOrNotSink sink, ConsumerProperties properties, MeterRegistry registry) {
+        this.sink = sink;
+        this.properties = properties;
+        this.records = Counter.builder("ad.evaluation.consumer.records").register(registry);
+        this.skipped = Counter.builder("ad.evaluation.consumer.skipped").register(registry);
+        this.batchSize = DistributionSummary.builder("ad.evaluation.consumer.batch.size").baseUnit("records").register(registry);
+        this.batchLatency = Timer.builder("ad.evaluation.consumer.batch.latency").publishPercentileHistogram().register(registry);
+    }
+
 //    @KafkaListener(topics = "fastcampus", groupId = "foo")
 //    public void consumer (String message) {
 //        System.out.println(String.format("Subscribed :  %s", message));
 //    }
-}
\ No newline at end of file
+
+    // 예외가 나면 commit 하지 않고 container 의 error handler 가 같은 batch 를 다시 넘깁니다.
+    @KafkaListener(id = LISTENER_ID, topics = "AdEvaluationComplete", containerFactory = "effectOrNotListenerContainerFactory",
+            autoStartup = "${kafka.consumer.enabled:false}", batch = "true")
+    public void consume(List<ConsumerRecord<String, EffectOrNot>> batch) throws Exception {
+        List<EffectOrNot> values = new ArrayList<>(batch.size());
+        for (ConsumerRecord<String, EffectOrNot> record : batch) {
+            if (record.value() == null) {
+                // ErrorHandlingDeserializer 가 읽지 못한 record 는 value 없이 넘겨줍니다.
+                log.warn("Skipping unreadable record {}-{}@{}", record.topic(), record.partition(), record.offset());
+                skipped.increment();
+            } else {
+                values.add(record.value());
+            }
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        sink.write(values);
+        long elapsed = System.nanoTime() - start;
+
+        records.increment(values.size());
+        batchSize.record(values.size());
+        batchLatency.record(elapsed, TimeUnit.NANOSECONDS);
+        report(values.size(), elapsed);
+    }
+
+    // container 가 여러 개면 (concurrency) 각 thread 가 호출하므로 합계만 묶어서 셉니다.
+    private synchronized void report(int size, long sinkNanos) {
+        reportRecords += size;
+        reportBatches++;
+        reportSinkNanos += sinkNanos;
+        long now = System.nanoTime();
+        long interval = now - reportStartNanos;
+        if (interval >= TimeUnit.MILLISECONDS.toNanos(properties.getReportIntervalMs())) {
+            log.info("Consumed {} records in {} batches : {} records/s, avg batch {} records / {} ms in sink",
+                    reportRecords, reportBatches, reportRecords * TimeUnit.SECONDS.toNanos(1) / interval,
+                    reportRecords / reportBatches, TimeUnit.NANOSECONDS.toMillis(reportSinkNanos / reportBatches));
+            reportStartNanos = now;
+            reportRecords = 0;
+            reportBatches = 0;
+            reportSinkNanos = 0;
+        }
+    }
+}
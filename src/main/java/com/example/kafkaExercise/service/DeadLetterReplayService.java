@@ -0,0 +1,134 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.util.DeadLetterPublisher;
+import com.example.kafkaExercise.vo.DeadLetterReplayResult;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// dead letter Topic 의 record 를 source Topic 으로 다시 넣습니다. (원인 수정 / 배포 후 전체 재처리 없이 실패한 record 만 다시 처리)
+// consumer group (dead-letter-replay) 의 commit offset 부터 읽으므로 여러 번 나눠 호출해도 같은 record 를 두 번 넣지 않습니다.
+// 다시 넣을 때마다 dlq.replay.count 를 올리고, maxReplays 에 도달한 record 는 넣지 않고 건너뜁니다. (dead letter Topic 에는 남아있습니다.)
+@Slf4j
+@Service
+public class DeadLetterReplayService {
+
+    static final String GROUP_ID = "dead-letter-replay";
+    static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    AdEvaluationProperties.DeadLetter properties;
+    DeadLetterPublisher publisher;
+    Supplier<Consumer<byte[], byte[]>> consumerFactory;
+
+    @Autowired
+    public DeadLetterReplayService(AdEvaluationProperties properties, DeadLetterPublisher publisher, KafkaStreamsConfiguration streamsConfig) {
+        this(properties.getDeadLetter(), publisher, () -> {
+            Properties config = new Properties();
+            config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, streamsConfig.asProperties().get(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG));
+            config.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID);
+            config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+            config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+            return new KafkaConsumer<>(config, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+        });
+    }
+
+    DeadLetterReplayService(AdEvaluationProperties.DeadLetter properties, DeadLetterPublisher publisher,
+                            Supplier<Consumer<byte[], byte[]>> consumerFactory) {
+        this.properties = properties;
+        this.publisher = publisher;
+        this.consumerFactory = consumerFactory;
+    }
+
+    public boolean enabled() {
+        return properties.isEnabled();
+    }
+
+    public int batchSize() {
+        return properties.getReplayBatchSize();
+    }
+
+    // 최대 maxRecords 건을 읽어 다시 넣습니다. 보낸 record 의 ack 를 받은 뒤에 dead letter offset 을 commit 합니다.
+    public synchronized DeadLetterReplayResult replay(String topic, int maxRecords) throws Exception {
+        String deadLetterTopic = publisher.topicFor(topic);
+        long replayed = 0;
+        long exhausted = 0;
+        try (Consumer<byte[], byte[]> consumer = consumerFactory.get()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(deadLetterTopic).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .collect(Collectors.toList());
+            consumer.assign(partitions);
+
+            while (replayed + exhausted < maxRecords) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    if (replayed + exhausted >= maxRecords) {
+                        break;
+                    }
+                    int replayCount = DeadLetterPublisher.replayCount(record.headers());
+                    if (replayCount >= properties.getMaxReplays()) {
+                        exhausted++;
+                    } else {
+                        publisher.send(toSource(topic, record, replayCount + 1));
+                        replayed++;
+                    }
+                    offsets.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                }
+                consumer.commitSync(offsets);
+            }
+
+            // poll 로 가져왔지만 maxRecords 때문에 넣지 않은 record 는 commit 한 offset 부터 다음 호출에서 다시 읽습니다.
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            long remaining = 0;
+            for (Map.Entry<TopicPartition, Long> end : consumer.endOffsets(partitions).entrySet()) {
+                OffsetAndMetadata offset = committed.get(end.getKey());
+                long from = offset != null ? offset.offset() : consumer.beginningOffsets(List.of(end.getKey())).get(end.getKey());
+                remaining += Math.max(0, end.getValue() - from);
+            }
+            log.info("Replayed {} records from {} to {} ({} exhausted, {} remaining)", replayed, deadLetterTopic, topic, exhausted, remaining);
+            return new DeadLetterReplayResult(topic, deadLetterTopic, replayed, exhausted, remaining);
+        }
+    }
+
+    // dead letter 의 오류 header 는 빼고, 원래 header 와 늘린 replay 횟수만 붙여 보냅니다.
+    // timestamp 는 dead letter 에 남긴 원래 record 의 timestamp 라 window join / 집계에서 원래 시각으로 처리됩니다.
+    static ProducerRecord<byte[], byte[]> toSource(String topic, ConsumerRecord<byte[], byte[]> record, int replayCount) {
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(DeadLetterPublisher.HEADER_PREFIX)) {
+                headers.add(header);
+            }
+        }
+        headers.add(DeadLetterPublisher.REPLAY_COUNT, String.valueOf(replayCount).getBytes(StandardCharsets.UTF_8));
+        return new ProducerRecord<>(topic, null, record.timestamp() >= 0 ? record.timestamp() : null, record.key(), record.value(), headers);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.vo.EffectOrNot;
+
+import java.util.List;
+
+// ConsumerService 가 poll 한 batch 를 한 번에 넘기는 곳입니다.
+// write 가 돌아오면 batch 가 저장된 것으로 보고 offset 을 commit 합니다. 예외를 던지면 commit 하지 않고 같은 batch 를 다시 받습니다.
+public interface EffectOrNotSink {
+
+    void write(List<EffectOrNot> batch) throws Exception;
+}
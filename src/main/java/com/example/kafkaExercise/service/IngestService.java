@@ -0,0 +1,211 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.IngestProperties;
+import com.example.kafkaExercise.util.PurchaseLogDeserializer;
+import com.example.kafkaExercise.util.WatchingAdLogDeserializer;
+import com.example.kafkaExercise.vo.IngestAck;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// adLog / purchaseLog 를 한 번의 요청으로 여러 건 받아 바로 Producer 로 흘려보냅니다.
+// body 를 한 건씩 읽으면서 send 하므로 요청 전체를 list 로 만들지 않고, send 결과는 counter 로만 모읍니다.
+@Service
+public class IngestService {
+
+    public static final int MAX_BINARY_RECORD_SIZE = 1024 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final WatchingAdLogDeserializer watchingAdLogDeserializer = new WatchingAdLogDeserializer();
+    private final PurchaseLogDeserializer purchaseLogDeserializer = new PurchaseLogDeserializer();
+
+    Producer producer;
+    IngestProperties properties;
+
+    @Autowired
+    public IngestService(Producer producer, IngestProperties properties) {
+        this.producer = producer;
+        this.properties = properties;
+    }
+
+    public static boolean supports(String topic) {
+        return "adLog".equals(topic) || "purchaseLog".equals(topic);
+    }
+
+    public IngestAck ingestNdjson(String topic, InputStream body) throws IOException {
+        return ingestNdjsonAsync(topic, body).join();
+    }
+
+    public IngestAck ingestBinary(String topic, InputStream body) throws IOException {
+        return ingestBinaryAsync(topic, body).join();
+    }
+
+    // body 를 모두 읽고 send 까지 마친 뒤 돌려줍니다. 반환된 future 는 마지막 send callback (또는 ackTimeout) 에서 완료됩니다.
+    // 한 줄에 JSON 1건 (newline-delimited JSON)
+    public CompletableFuture<IngestAck> ingestNdjsonAsync(String topic, InputStream body) throws IOException {
+        AckCollector acks = new AckCollector(topic, properties.getMaxErrors());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (shouldThrottle(topic, acks.received.get())) {
+                acks.throttled = true;
+                break;
+            }
+            long index = acks.received.getAndIncrement();
+            try {
+                Class<?> type = "adLog".equals(topic) ? WatchingAdLog.class : PurchaseLog.class;
+                Object vo = objectMapper.readValue(line, type);
+                acks.track(index, send(topic, vo));
+            } catch (Exception e) {
+                acks.fail(index, e);
+            }
+        }
+        return acks.result(properties.getAckTimeout().toMillis());
+    }
+
+    // [4 byte length][record] 의 반복. record 는 binary(FORMAT_V1) 또는 JSON 입니다.
+    public CompletableFuture<IngestAck> ingestBinaryAsync(String topic, InputStream body) throws IOException {
+        AckCollector acks = new AckCollector(topic, properties.getMaxErrors());
+        DataInputStream in = new DataInputStream(body);
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length < 0 || length > MAX_BINARY_RECORD_SIZE) {
+                acks.fail(acks.received.getAndIncrement(), new IOException("Invalid record length " + length + ", stop reading body"));
+                break;
+            }
+            byte[] record = new byte[length];
+            try {
+                in.readFully(record);
+            } catch (EOFException e) {
+                // 중간에 끊긴 body 도 앞에서 보낸 record 까지의 ack 를 돌려줘야 client 가 중복 없이 이어 보낼 수 있습니다.
+                acks.fail(acks.received.getAndIncrement(), new IOException("Truncated record, expected " + length + " bytes, stop reading body"));
+                break;
+            }
+            if (shouldThrottle(topic, acks.received.get())) {
+                acks.throttled = true;
+                break;
+            }
+            long index = acks.received.getAndIncrement();
+            try {
+                Object vo = "adLog".equals(topic)
+                        ? watchingAdLogDeserializer.deserialize(topic, record)
+                        : purchaseLogDeserializer.deserialize(topic, record);
+                acks.track(index, send(topic, vo));
+            } catch (Exception e) {
+                acks.fail(index, e);
+            }
+        }
+        return acks.result(properties.getAckTimeout().toMillis());
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String topic, Object vo) {
+        return "adLog".equals(topic)
+                ? producer.sendMsgForWatchingAdLog(topic, vo)
+                : producer.sendMsgForPurchaseLog(topic, vo);
+    }
+
+    // 요청 시작 시점과 backpressureCheckInterval 건마다 producer buffer 여유를 확인합니다.
+    private boolean shouldThrottle(String topic, long received) {
+        return received % properties.getBackpressureCheckInterval() == 0
+                && producer.bufferAvailableRatio(topic) < properties.getMinBufferAvailableRatio();
+    }
+
+    // send future 들을 list 로 들고있지 않고 callback 에서 결과만 집계합니다.
+    static class AckCollector {
+        final String topic;
+        final int maxErrors;
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong acked = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        // 아직 결과를 받지 못한 send 수. body 를 다 읽기 전까지 1 을 더 잡아둡니다.
+        final AtomicLong pending = new AtomicLong(1);
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final Map<Integer, IngestAck.OffsetRange> offsets = new ConcurrentHashMap<>();
+        final List<String> errors = new ArrayList<>();
+        volatile boolean throttled;
+
+        AckCollector(String topic, int maxErrors) {
+            this.topic = topic;
+            this.maxErrors = maxErrors;
+        }
+
+        void track(long index, CompletableFuture<SendResult<String, Object>> future) {
+            pending.incrementAndGet();
+            future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    fail(index, ex);
+                } else {
+                    RecordMetadata metadata = result.getRecordMetadata();
+                    offsets.compute(metadata.partition(), (partition, range) -> range == null
+                            ? new IngestAck.OffsetRange(metadata.offset(), metadata.offset())
+                            : new IngestAck.OffsetRange(Math.min(range.getFirst(), metadata.offset()), Math.max(range.getLast(), metadata.offset())));
+                    acked.incrementAndGet();
+                }
+                release();
+            });
+        }
+
+        void fail(long index, Throwable e) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    errors.add("record " + index + " : " + cause.getClass().getSimpleName() + " - " + cause.getMessage());
+                }
+            }
+        }
+
+        private void release() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        // thread 를 잡고 기다리지 않고 done (또는 timeout) 에 이어서 결과를 만듭니다.
+        CompletableFuture<IngestAck> result(long timeoutMs) {
+            release();
+            return done.copy()
+                    .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .handle((v, ex) -> snapshot(ex != null));
+        }
+
+        private IngestAck snapshot(boolean timedOut) {
+            List<String> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            return new IngestAck(topic, received.get(), acked.get(), failed.get(), throttled, timedOut,
+                    new TreeMap<>(offsets), errorsCopy);
+        }
+    }
+}
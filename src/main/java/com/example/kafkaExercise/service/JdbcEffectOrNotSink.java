@@ -0,0 +1,37 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.vo.EffectOrNot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+// batch 전체를 JDBC batch insert 한 번 (transaction 하나) 으로 씁니다.
+// offset 은 commit 뒤에 올라가므로 장애 시 같은 batch 가 다시 들어올 수 있습니다. (중복 제거가 필요하면 table 의 key 로 막습니다.)
+public class JdbcEffectOrNotSink implements EffectOrNotSink {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String insertSql;
+
+    public JdbcEffectOrNotSink(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.insertSql = "INSERT INTO " + table + " (order_id, ad_id, user_id, ad_type, product_id, price) VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    public void write(List<EffectOrNot> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(insertSql, batch, batch.size(), (ps, effectOrNot) -> {
+                    Map<String, String> productInfo = effectOrNot.getProductInfo();
+                    ps.setString(1, effectOrNot.getOrderId());
+                    ps.setString(2, effectOrNot.getAdId());
+                    ps.setString(3, effectOrNot.getUserId());
+                    ps.setString(4, effectOrNot.getAdType());
+                    ps.setString(5, productInfo == null ? null : productInfo.get("productId"));
+                    ps.setString(6, productInfo == null ? null : productInfo.get("price"));
+                }));
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.kafkaExercise.service;
 
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.ValueJoiner;
 import org.springframework.stereotype.Service;
 
+// leftTopic, rightTopic 의 table-table join (kafka.streams.pipelines.table-join)
 @Service
-public class KTableService {
+public class KTableService implements StreamsPipeline {
 
-//    @Autowired
-//    public void buildPipeline(StreamsBuilder sb) {
-//
-//        KTable<String, String> leftTable = sb.stream("leftTopic", Consumed.with(Serdes.String(),Serdes.String())).toTable();
-//        KTable<String, String> rightTable = sb.stream("rightTopic", Consumed.with(Serdes.String(),Serdes.String())).toTable();
-//        ValueJoiner<String, String, String> stringJoiner = (leftValue, rightValue) -> {
-//            return "[StringJoiner]" + leftValue + "-" + rightValue;
-//        };
-//
-//        KTable<String, String> joinedTable = leftTable.join(rightTable, stringJoiner);
-//        joinedTable.toStream().to("joinedMsg");
-//    }
+    public static final String NAME = "table-join";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void buildPipeline(StreamsBuilder sb) {
+
+        KTable<String, String> leftTable = sb.stream("leftTopic", Consumed.with(Serdes.String(),Serdes.String())).toTable();
+        KTable<String, String> rightTable = sb.stream("rightTopic", Consumed.with(Serdes.String(),Serdes.String())).toTable();
+        ValueJoiner<String, String, String> stringJoiner = (leftValue, rightValue) -> {
+            return "[StringJoiner]" + leftValue + "-" + rightValue;
+        };
+
+        KTable<String, String> joinedTable = leftTable.join(rightTable, stringJoiner);
+        joinedTable.toStream().to("joinedMsg", Produced.with(Serdes.String(), Serdes.String()));
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.vo.EffectOrNot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+// 저장소를 정하지 않았을 때의 sink. 건수만 debug log 로 남깁니다.
+@Slf4j
+public class LoggingEffectOrNotSink implements EffectOrNotSink {
+
+    @Override
+    public void write(List<EffectOrNot> batch) {
+        log.debug("Received {} AdEvaluationComplete records", batch.size());
+    }
+}
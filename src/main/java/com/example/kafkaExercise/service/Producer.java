@@ -1,43 +1,88 @@
 package com.example.kafkaExercise.service;
 
-import com.example.kafkaExercise.config.KafkaConfig;
+import com.example.kafkaExercise.config.ProducerTemplates;
+import com.example.kafkaExercise.util.JoinKeys;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class Producer {
 
     @Autowired
-    KafkaConfig myConfig;
+    ProducerTemplates producerTemplates;
 
     String topicName = "defaultTopic";
 
-    private KafkaTemplate<String, Object> kafkaTemplate;
-
-
-
 //    public Producer(KafkaTemplate kafkaTemplate) {
 //        this.kafkaTemplate = kafkaTemplate;
 //    }
 
+    // Topic 의 profile 에 해당하는 공유 producer 로 보냅니다. value 형식은 TypeDispatchingSerializer 가 VO class 로 고릅니다.
+
     public void pub(String msg) {
-        kafkaTemplate = myConfig.KafkaTemplateForGeneral();
-        kafkaTemplate.send(topicName, msg);
+        send(topicName, msg);
     }
 
     public void sendJoinedMsg (String topicNm, Object msg) {
-        kafkaTemplate = myConfig.KafkaTemplateForGeneral();
-        kafkaTemplate.send(topicNm, msg);
+        send(topicNm, keyOf(msg), msg);
+    }
+    public CompletableFuture<SendResult<String, Object>> sendMsgForWatchingAdLog (String topicNm, Object msg) {
+        return send(topicNm, keyOf(msg), msg);
     }
-    public void sendMsgForWatchingAdLog (String topicNm, Object msg) {
-        kafkaTemplate = myConfig.KafkaTemplateForWatchingAdLog();
-        kafkaTemplate.send(topicNm, msg);
+
+    public CompletableFuture<SendResult<String, Object>> sendMsgForPurchaseLog (String topicNm, Object msg) {
+        return send(topicNm, keyOf(msg), msg);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> send (String topicNm, Object msg) {
+        return send(topicNm, null, msg);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> send (String topicNm, String key, Object msg) {
+        return producerTemplates.forTopic(topicNm).send(topicNm, key, msg);
+    }
+
+    // 광고이력, 상품별 구매이력은 join key 로 보내서 Streams 가 다시 key 를 바꾸고 repartition 하지 않아도 되게 합니다.
+    // co-partitioning 은 이 key 와 두 Topic 의 같은 partition 수로 정해집니다. (Producer 와 Streams 모두 기본 partitioner 의 key murmur2)
+    // 구매이력은 상품이 여러 개라 join key 가 없으므로 orderId 로 보냅니다. (같은 주문의 재전송이 같은 partition 의 dedup 으로 갑니다.)
+    public static String keyOf (Object msg) {
+        if (msg instanceof WatchingAdLog) {
+            return JoinKeys.of(((WatchingAdLog) msg).getUserId(), ((WatchingAdLog) msg).getProductId());
+        }
+        if (msg instanceof PurchaseLogOneProduct) {
+            return JoinKeys.of(((PurchaseLogOneProduct) msg).getUserId(), ((PurchaseLogOneProduct) msg).getProductId());
+        }
+        if (msg instanceof PurchaseLog) {
+            return ((PurchaseLog) msg).getOrderId();
+        }
+        return null;
     }
 
-    public void sendMsgForPurchaseLog (String topicNm, Object msg) {
-        kafkaTemplate = myConfig.KafkaTemplateForPurchaseLog();
-        kafkaTemplate.send(topicNm, msg);
+    // Producer buffer.memory 중 남아있는 비율 (0~1). 아직 producer 가 만들어지지 않았으면 1 입니다.
+    public double bufferAvailableRatio (String topicNm) {
+        KafkaTemplate<String, Object> template = producerTemplates.forTopic(topicNm);
+        double available = -1;
+        double total = -1;
+        for (Map.Entry<MetricName, ? extends Metric> metric : template.metrics().entrySet()) {
+            if ("producer-metrics".equals(metric.getKey().group())) {
+                if ("buffer-available-bytes".equals(metric.getKey().name())) {
+                    available = ((Number) metric.getValue().metricValue()).doubleValue();
+                } else if ("buffer-total-bytes".equals(metric.getKey().name())) {
+                    total = ((Number) metric.getValue().metricValue()).doubleValue();
+                }
+            }
+        }
+        return available < 0 || total <= 0 ? 1.0 : available / total;
     }
 
 
@@ -2,45 +2,56 @@ package com.example.kafkaExercise.service;
 
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.JoinWindows;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.ValueJoiner;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
+// leftTopic, rightTopic 의 stream-stream window join (kafka.streams.pipelines.stream-join)
+// ad-evaluation 과 다른 KafkaStreams instance 에서 돌아 서로의 처리 지연이나 rebalance 에 묶이지 않습니다.
 @Service
-public class StreamService {
+public class StreamService implements StreamsPipeline {
+
+    public static final String NAME = "stream-join";
 
     private static final Serde<String> STRING_SERDE = Serdes.String();
-//
-//    @Autowired
-//    public void buildPipeline(StreamsBuilder sb) {
-//
-////        KStream<String, String> myStream = sb.stream("fastcampus", Consumed.with(STRING_SERDE, STRING_SERDE));
-////        myStream.print(Printed.toSysOut());
-////        myStream.filter((key, value)-> value.contains("freeClass")).to("freeClassList");
-//
-//        KStream<String, String> leftStream = sb.stream("leftTopic",
-//                Consumed.with(STRING_SERDE, STRING_SERDE));
-//        // key:value --> 1:leftValue
-//        KStream<String, String> rightStream = sb.stream("rightTopic",
-//                Consumed.with(STRING_SERDE, STRING_SERDE));
-//        // key:value --> 1:rightValue
-//
-//        ValueJoiner<String, String, String> stringJoiner = (leftValue, rightValue) -> {
-//            return "[StringJoiner]" + leftValue + "-" + rightValue;
-//        };
-//
-//        ValueJoiner<String, String, String> stringOuterJoiner = (leftValue, rightValue) -> {
-//            return "[StringOuterJoiner]" + leftValue + "<" + rightValue;
-//        };
-//
-//        KStream<String, String> joinedStream = leftStream.join(rightStream,
-//                stringJoiner,
-//                JoinWindows.ofTimeDifferenceWithNoGrace(Duration.ofSeconds(10)));
-//
-//        KStream<String, String> outerJoinedStream = leftStream.outerJoin(rightStream,
-//                stringOuterJoiner,
-//                JoinWindows.ofTimeDifferenceWithNoGrace(Duration.ofSeconds(10)));
-//
-//        joinedStream.print(Printed.toSysOut());
-//        joinedStream.to("joinedMsg");
-//        outerJoinedStream.to("joinedMsg");
-//    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void buildPipeline(StreamsBuilder sb) {
+        KStream<String, String> leftStream = sb.stream("leftTopic",
+                Consumed.with(STRING_SERDE, STRING_SERDE));
+        // key:value --> 1:leftValue
+        KStream<String, String> rightStream = sb.stream("rightTopic",
+                Consumed.with(STRING_SERDE, STRING_SERDE));
+        // key:value --> 1:rightValue
+
+        ValueJoiner<String, String, String> stringJoiner = (leftValue, rightValue) -> {
+            return "[StringJoiner]" + leftValue + "-" + rightValue;
+        };
+
+        ValueJoiner<String, String, String> stringOuterJoiner = (leftValue, rightValue) -> {
+            return "[StringOuterJoiner]" + leftValue + "<" + rightValue;
+        };
+
+        KStream<String, String> joinedStream = leftStream.join(rightStream,
+                stringJoiner,
+                JoinWindows.ofTimeDifferenceWithNoGrace(Duration.ofSeconds(10)));
+
+        KStream<String, String> outerJoinedStream = leftStream.outerJoin(rightStream,
+                stringOuterJoiner,
+                JoinWindows.ofTimeDifferenceWithNoGrace(Duration.ofSeconds(10)));
+
+        joinedStream.to("joinedMsg", Produced.with(STRING_SERDE, STRING_SERDE));
+        outerJoinedStream.to("joinedMsg", Produced.with(STRING_SERDE, STRING_SERDE));
+    }
 }
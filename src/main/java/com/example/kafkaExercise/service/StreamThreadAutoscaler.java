@@ -0,0 +1,90 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+// 입력 Topic 의 consumer lag 에 따라 stream thread 를 하나씩 늘리거나 줄입니다.
+// kafka.streams.autoscale.enabled=true 일 때만 동작합니다.
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "kafka.streams.autoscale", name = "enabled", havingValue = "true")
+public class StreamThreadAutoscaler {
+
+    StreamsBuilderFactoryBean factoryBean;
+    StreamsTuningProperties.Autoscale autoscale;
+
+    private long lastChangeNanos = System.nanoTime();
+
+    @Autowired
+    public StreamThreadAutoscaler(StreamsBuilderFactoryBean factoryBean, StreamsTuningProperties properties) {
+        this.factoryBean = factoryBean;
+        this.autoscale = properties.getAutoscale();
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.streams.autoscale.check-interval-ms:30000}")
+    public void check() {
+        KafkaStreams kafkaStreams = factoryBean.getKafkaStreams();
+        if (kafkaStreams == null || kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            return;
+        }
+        if (System.nanoTime() - lastChangeNanos < autoscale.getCooldown().toNanos()) {
+            return;
+        }
+
+        int threads = kafkaStreams.metadataForLocalThreads().size();
+        int activeTasks = kafkaStreams.metadataForLocalThreads().stream().mapToInt(t -> t.activeTasks().size()).sum();
+        long lag = inputLag(kafkaStreams.metrics());
+        int delta = decide(threads, activeTasks, lag, autoscale);
+
+        if (delta > 0) {
+            Optional<String> added = kafkaStreams.addStreamThread();
+            log.info("Input lag {} > {}, added stream thread {} ({} -> {})", lag, autoscale.getScaleUpLag(), added.orElse("-"), threads, threads + 1);
+            lastChangeNanos = System.nanoTime();
+        } else if (delta < 0) {
+            Optional<String> removed = kafkaStreams.removeStreamThread(Duration.ofMinutes(1));
+            log.info("Input lag {} < {}, removed stream thread {} ({} -> {})", lag, autoscale.getScaleDownLag(), removed.orElse("-"), threads, threads - 1);
+            lastChangeNanos = System.nanoTime();
+        }
+    }
+
+    // +1 : 늘림, -1 : 줄임, 0 : 유지
+    // 이 instance 에 할당된 task 보다 thread 가 많으면 남는 thread 는 놀게 되므로 더 늘리지 않습니다.
+    static int decide(int threads, int activeTasks, long lag, StreamsTuningProperties.Autoscale autoscale) {
+        if (lag > autoscale.getScaleUpLag() && threads < autoscale.getMaxThreads() && threads < activeTasks) {
+            return 1;
+        }
+        if (lag < autoscale.getScaleDownLag() && threads > autoscale.getMinThreads()) {
+            return -1;
+        }
+        return 0;
+    }
+
+    // main consumer 의 partition 별 records-lag 합계. restore consumer 가 읽는 changelog 는 제외합니다.
+    static long inputLag(Map<MetricName, ? extends Metric> metrics) {
+        double lag = 0;
+        for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+            MetricName name = metric.getKey();
+            String topic = name.tags().get("topic");
+            if ("consumer-fetch-manager-metrics".equals(name.group()) && "records-lag".equals(name.name())
+                    && topic != null && !topic.endsWith("-changelog")) {
+                Object value = metric.getValue().metricValue();
+                if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+                    lag += ((Number) value).doubleValue();
+                }
+            }
+        }
+        return (long) lag;
+    }
+}
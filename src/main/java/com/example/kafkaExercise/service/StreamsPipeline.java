@@ -0,0 +1,12 @@
+package com.example.kafkaExercise.service;
+
+import org.apache.kafka.streams.StreamsBuilder;
+
+// StreamsPipelineRegistry 가 pipeline 마다 따로 만든 StreamsBuilder 에 topology 를 그립니다.
+// 이름으로 kafka.streams.pipelines.{name} 설정 (enabled, application-id, num-stream-threads, state-dir) 을 찾습니다.
+public interface StreamsPipeline {
+
+    String name();
+
+    void buildPipeline(StreamsBuilder sb);
+}
@@ -0,0 +1,209 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.core.CleanupConfig;
+import org.springframework.kafka.streams.KafkaStreamsMicrometerListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// pipeline 마다 KafkaStreams instance (application.id, stream thread, state.dir) 를 따로 둡니다.
+// 한 pipeline 의 처리 지연, rebalance, 장애가 다른 pipeline 을 멈추지 않고, thread 수도 pipeline 별로 정합니다.
+// ad-evaluation 은 기존처럼 Spring 의 기본 StreamsBuilderFactoryBean (interactive query, autoscaler, 복구 readiness 가 쓰는 것) 이고,
+// 나머지 StreamsPipeline 은 여기서 factory bean 을 만들어 함께 시작 / 종료합니다. (시작과 종료는 pipeline 별로 병렬)
+//
+// health (streamsPipelineRegistry) : 켜진 pipeline 이 모두 RUNNING / REBALANCING 이면 UP, pipeline 별 state 와 처리량
+// metric
+//   kafka.streams.pipeline.process.rate  : 초당 처리한 record 수 (tag pipeline, 모든 stream thread 합계)
+//   kafka.streams.pipeline.process.total : 처리한 record 수 (tag pipeline)
+@Slf4j
+@Service
+public class StreamsPipelineRegistry implements SmartLifecycle, HealthIndicator {
+
+    // 다른 pipeline 이 ad-evaluation 의 Streams 설정에서 가져오는 값
+    static final List<String> BASE_CONFIGS = List.of(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG,
+            StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG);
+
+    private final Map<String, StreamsBuilderFactoryBean> pipelines = new LinkedHashMap<>();
+    // ad-evaluation 은 Spring 이 시작 / 종료합니다.
+    private final Map<String, StreamsBuilderFactoryBean> owned = new LinkedHashMap<>();
+    private volatile boolean running;
+
+    @Autowired
+    public StreamsPipelineRegistry(StreamsBuilderFactoryBean adEvaluation, List<StreamsPipeline> pipelines,
+                                   KafkaStreamsConfiguration baseConfig, StreamsTuningProperties properties,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        this(adEvaluation, pipelines, baseConfig, properties, meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    StreamsPipelineRegistry(StreamsBuilderFactoryBean adEvaluation, List<StreamsPipeline> pipelines,
+                            KafkaStreamsConfiguration baseConfig, StreamsTuningProperties properties, MeterRegistry registry) {
+        if (properties.pipeline(StreamsTuningProperties.Pipeline.AD_EVALUATION).isEnabled()) {
+            this.pipelines.put(StreamsTuningProperties.Pipeline.AD_EVALUATION, adEvaluation);
+        }
+        for (StreamsPipeline pipeline : pipelines) {
+            if (!properties.pipeline(pipeline.name()).isEnabled()) {
+                continue;
+            }
+            StreamsBuilderFactoryBean factoryBean = factoryBean(pipeline, baseConfig, properties, registry);
+            this.pipelines.put(pipeline.name(), factoryBean);
+            owned.put(pipeline.name(), factoryBean);
+        }
+        this.pipelines.forEach((name, factoryBean) -> {
+            Gauge.builder("kafka.streams.pipeline.process.rate", factoryBean, f -> processMetric(f.getKafkaStreams(), "process-rate"))
+                    .tag("pipeline", name).baseUnit("records").register(registry);
+            FunctionCounter.builder("kafka.streams.pipeline.process.total", factoryBean, f -> processMetric(f.getKafkaStreams(), "process-total"))
+                    .tag("pipeline", name).baseUnit("records").register(registry);
+        });
+    }
+
+    // 공통 Streams 설정 중 BASE_CONFIGS 만 가져오고 pipeline 의 application.id, thread 수, state.dir 을 얹습니다.
+    // application.server, dead letter handler, RocksDB config setter, processing.guarantee 등은 ad-evaluation 것이라 가져오지 않습니다.
+    // 복구 listener / readiness 도 ad-evaluation 것이라 붙이지 않습니다.
+    static StreamsBuilderFactoryBean factoryBean(StreamsPipeline pipeline, KafkaStreamsConfiguration baseConfig,
+                                                 StreamsTuningProperties properties, MeterRegistry registry) {
+        StreamsBuilderFactoryBean factoryBean = new StreamsBuilderFactoryBean(new KafkaStreamsConfiguration(
+                streamsConfig(pipeline.name(), baseConfig, properties)), new CleanupConfig(false, false));
+        factoryBean.setBeanName(pipeline.name());
+        factoryBean.setAutoStartup(false);
+        factoryBean.addListener(new KafkaStreamsMicrometerListener(registry));
+        factoryBean.setStreamsUncaughtExceptionHandler(exception -> {
+            log.error("Stream thread of pipeline {} failed, response : {}", pipeline.name(), properties.getUncaughtExceptionResponse(), exception);
+            return properties.getUncaughtExceptionResponse();
+        });
+        try {
+            factoryBean.afterPropertiesSet();
+            pipeline.buildPipeline(factoryBean.getObject());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build pipeline " + pipeline.name(), e);
+        }
+        return factoryBean;
+    }
+
+    static Map<String, Object> streamsConfig(String name, KafkaStreamsConfiguration baseConfig, StreamsTuningProperties properties) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        Properties base = baseConfig.asProperties();
+        for (String key : BASE_CONFIGS) {
+            if (base.containsKey(key)) {
+                config.put(key, base.get(key));
+            }
+        }
+        // state.dir 은 pipeline 값이 없으면 kafka.streams.state-dir 입니다. (ad-evaluation 의 state-dir 은 이어받지 않습니다.)
+        config.putAll(pipelineConfig(name, properties));
+        return config;
+    }
+
+    public static Map<String, Object> pipelineConfig(String name, StreamsTuningProperties properties) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, properties.applicationId(name));
+        config.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, properties.numStreamThreads(name));
+        if (!properties.stateDir(name).isBlank()) {
+            config.put(StreamsConfig.STATE_DIR_CONFIG, properties.stateDir(name));
+        }
+        return config;
+    }
+
+    public Map<String, KafkaStreams> kafkaStreams() {
+        Map<String, KafkaStreams> streams = new LinkedHashMap<>();
+        pipelines.forEach((name, factoryBean) -> streams.put(name, factoryBean.getKafkaStreams()));
+        return streams;
+    }
+
+    @Override
+    public void start() {
+        each(owned, factoryBean -> factoryBean.start());
+        running = true;
+        log.info("Started streams pipelines {}", pipelines.keySet());
+    }
+
+    @Override
+    public void stop() {
+        each(owned, factoryBean -> factoryBean.stop());
+        running = false;
+    }
+
+    private static void each(Map<String, StreamsBuilderFactoryBean> factoryBeans, Consumer<StreamsBuilderFactoryBean> action) {
+        if (factoryBeans.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(factoryBeans.size());
+        try {
+            CompletableFuture.allOf(factoryBeans.values().stream()
+                    .map(factoryBean -> CompletableFuture.runAsync(() -> action.accept(factoryBean), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ad-evaluation 의 StreamsBuilderFactoryBean 과 같은 phase 입니다.
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1000;
+    }
+
+    @Override
+    public Health health() {
+        boolean up = true;
+        Health.Builder builder = new Health.Builder();
+        for (Map.Entry<String, StreamsBuilderFactoryBean> pipeline : pipelines.entrySet()) {
+            KafkaStreams streams = pipeline.getValue().getKafkaStreams();
+            KafkaStreams.State state = streams == null ? null : streams.state();
+            up &= state == KafkaStreams.State.RUNNING || state == KafkaStreams.State.REBALANCING;
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("applicationId", pipeline.getValue().getStreamsConfiguration().get(StreamsConfig.APPLICATION_ID_CONFIG));
+            detail.put("state", state == null ? "NOT_STARTED" : state);
+            detail.put("threads", streams == null ? 0 : streams.metadataForLocalThreads().size());
+            detail.put("processRate", processMetric(streams, "process-rate"));
+            detail.put("processTotal", processMetric(streams, "process-total"));
+            builder.withDetail(pipeline.getKey(), detail);
+        }
+        return (up ? builder.up() : builder.down()).build();
+    }
+
+    static double processMetric(KafkaStreams streams, String name) {
+        return streams == null ? 0 : processMetric(streams.metrics(), name);
+    }
+
+    // stream thread 별 process-rate / process-total 합계
+    static double processMetric(Map<MetricName, ? extends Metric> metrics, String name) {
+        double sum = 0;
+        for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+            if ("stream-thread-metrics".equals(metric.getKey().group()) && name.equals(metric.getKey().name())) {
+                Object value = metric.getValue().metricValue();
+                if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+                    sum += ((Number) value).doubleValue();
+                }
+            }
+        }
+        return sum;
+    }
+}
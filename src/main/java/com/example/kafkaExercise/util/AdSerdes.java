@@ -0,0 +1,63 @@
+package com.example.kafkaExercise.util;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties.WireFormat;
+import com.example.kafkaExercise.vo.AdStats;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.ProductCatalog;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+// AdEvaluationService 에서 사용하는 VO 별 Serde 입니다.
+// 쓰기는 wireFormat 을 따르고, 읽기는 항상 JSON/binary 둘 다 가능합니다.
+public final class AdSerdes {
+
+    private AdSerdes() {
+    }
+
+    public static Serde<WatchingAdLog> watchingAdLog(WireFormat wireFormat) {
+        return Serdes.serdeFrom(
+                wireFormat == WireFormat.BINARY ? new WatchingAdLogBinarySerializer() : new JsonSerializer<>(),
+                new WatchingAdLogDeserializer());
+    }
+
+    public static Serde<PurchaseLog> purchaseLog(WireFormat wireFormat) {
+        return Serdes.serdeFrom(
+                wireFormat == WireFormat.BINARY ? new PurchaseLogBinarySerializer() : new JsonSerializer<>(),
+                new PurchaseLogDeserializer());
+    }
+
+    public static Serde<PurchaseLogOneProduct> purchaseLogOneProduct(WireFormat wireFormat) {
+        return Serdes.serdeFrom(
+                wireFormat == WireFormat.BINARY ? new PurchaseLogOneProductBinarySerializer() : new JsonSerializer<>(),
+                new PurchaseLogOneProductDeserializer());
+    }
+
+    public static Serde<EffectOrNot> effectOrNot(WireFormat wireFormat) {
+        return Serdes.serdeFrom(
+                wireFormat == WireFormat.BINARY ? new EffectOrNotBinarySerializer() : new JsonSerializer<>(),
+                new EffectOrNotDeserializer());
+    }
+
+    public static Serde<ProductCatalog> productCatalog() {
+        return Serdes.serdeFrom(new ProductCatalogSerializer(), new ProductCatalogDeserializer());
+    }
+
+    // sketch 는 state store 안에서만 쓰이므로 항상 자체 binary 형식입니다.
+    public static Serde<HyperLogLog> hyperLogLog() {
+        return Serdes.serdeFrom((topic, data) -> data == null ? null : data.toBytes(),
+                (topic, data) -> data == null ? null : HyperLogLog.fromBytes(data));
+    }
+
+    public static Serde<TopKSketch> topKSketch() {
+        return Serdes.serdeFrom((topic, data) -> data == null ? null : data.toBytes(),
+                (topic, data) -> data == null ? null : TopKSketch.fromBytes(data));
+    }
+
+    public static Serde<AdStats> adStats() {
+        return Serdes.serdeFrom(new AdStatsBinarySerializer(), new AdStatsDeserializer());
+    }
+}
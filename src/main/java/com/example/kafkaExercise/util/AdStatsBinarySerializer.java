@@ -0,0 +1,20 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.AdStats;
+
+import java.nio.ByteBuffer;
+
+// window store 안에서만 쓰이므로 wireFormat 과 관계없이 항상 binary 로 씁니다.
+public class AdStatsBinarySerializer extends BinarySerializer<AdStats> {
+
+    @Override
+    protected int sizeOf(AdStats data) {
+        return 3 * Long.BYTES;
+    }
+
+    @Override
+    protected void write(ByteBuffer buf, AdStats data) {
+        buf.putLong(data.getViews());
+        buf.putLong(data.getOrders());
+        buf.putLong(data.getRevenue());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.AdStats;
+
+import java.nio.ByteBuffer;
+
+public class AdStatsDeserializer extends DualFormatDeserializer<AdStats> {
+
+    public AdStatsDeserializer() {
+        super(AdStats.class);
+    }
+
+    @Override
+    protected AdStats read(ByteBuffer buf) {
+        return new AdStats(buf.getLong(), buf.getLong(), buf.getLong());
+    }
+}
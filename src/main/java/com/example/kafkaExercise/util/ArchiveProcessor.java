@@ -0,0 +1,105 @@
+package com.example.kafkaExercise.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// source 에서 읽은 record 를 그대로 넘기면서 이 서버의 디스크에 SegmentArchive 로 남깁니다. (root/<topic>/partition-N)
+// 이 서버가 맡은 partition 만 남으며, 처리 후 commit 전에 죽으면 같은 record 를 다시 쓰므로 중복이 있을 수 있습니다. (at-least-once)
+// value 는 이미 읽은 VO 이므로 주어진 serializer (BINARY) 로 다시 만든 byte 를 씁니다.
+// 쓰기에 실패해도 pipeline 은 멈추지 않습니다. (archive 는 부가 복사본입니다.)
+@Slf4j
+public class ArchiveProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    private final Path root;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private final Duration flushInterval;
+    private final Serializer<V> valueSerializer;
+    private final Map<String, SegmentArchive> archives = new HashMap<>();
+
+    private FixedKeyProcessorContext<String, V> context;
+
+    ArchiveProcessor(Path root, int segmentBytes, int indexIntervalBytes, Duration flushInterval, Serializer<V> valueSerializer) {
+        this.root = root;
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.flushInterval = flushInterval;
+        this.valueSerializer = valueSerializer;
+    }
+
+    public static <V> FixedKeyProcessorSupplier<String, V, V> supplier(Path root, int segmentBytes, int indexIntervalBytes,
+                                                                   Duration flushInterval, Serializer<V> valueSerializer) {
+        return () -> new ArchiveProcessor<>(root, segmentBytes, indexIntervalBytes, flushInterval, valueSerializer);
+    }
+
+    public static Path partitionDir(Path root, String topic, int partition) {
+        return root.resolve(topic).resolve("partition-" + partition);
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+        context.schedule(flushInterval, PunctuationType.WALL_CLOCK_TIME, now -> flush());
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        RecordMetadata metadata = context.recordMetadata().orElse(null);
+        if (metadata != null) {
+            String topic = metadata.topic();
+            try {
+                archive(topic, metadata.partition()).append(record.timestamp(), metadata.partition(), metadata.offset(),
+                        record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8),
+                        valueSerializer.serialize(topic, record.value()));
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to archive {}-{}@{}", topic, metadata.partition(), metadata.offset(), e);
+            }
+        }
+        context.forward(record);
+    }
+
+    @Override
+    public void close() {
+        for (Map.Entry<String, SegmentArchive> archive : archives.entrySet()) {
+            try {
+                archive.getValue().close();
+            } catch (IOException e) {
+                log.warn("Failed to close archive {}", archive.getKey(), e);
+            }
+        }
+        archives.clear();
+    }
+
+    private SegmentArchive archive(String topic, int partition) throws IOException {
+        String name = topic + "-" + partition;
+        SegmentArchive archive = archives.get(name);
+        if (archive == null) {
+            archive = SegmentArchive.open(partitionDir(root, topic, partition), segmentBytes, indexIntervalBytes);
+            archives.put(name, archive);
+        }
+        return archive;
+    }
+
+    private void flush() {
+        for (Map.Entry<String, SegmentArchive> archive : archives.entrySet()) {
+            try {
+                archive.getValue().flush();
+            } catch (IOException e) {
+                log.warn("Failed to flush archive {}", archive.getKey(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.kafkaExercise.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// VO 들을 binary 로 주고받기 위한 공통 encode/decode 함수입니다.
+// 첫 byte 는 format version 입니다. JSON 은 '{' (0x7B) 로 시작하므로 같은 Topic 에서 두 형식을 구분할 수 있습니다.
+public final class BinaryCodec {
+
+    public static final byte FORMAT_V1 = 0x01;
+
+    // 숫자 형태의 String 필드 (watchingTime, price, purchasedDt ...) 의 tag
+    static final byte NUM_NULL = 0;
+    static final byte NUM_INT = 1;
+    static final byte NUM_LONG = 2;
+    static final byte NUM_STRING = 3; // 숫자로 바꾸면 원래 문자열이 복원되지 않는 경우 (예: "007", "abc")
+
+    // adType 은 값의 종류가 적어 사전(dictionary) 으로 1 byte 에 담습니다.
+    static final String[] AD_TYPES = {null, "banner", "clip", "main", "live"};
+    static final byte AD_TYPE_LITERAL = 0x7F;
+
+    private BinaryCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == FORMAT_V1;
+    }
+
+    // ---------- String : varint(길이 + 1, null 은 0) + UTF-8 ----------
+
+    static int sizeOfString(String s) {
+        if (s == null) {
+            return 1;
+        }
+        int len = utf8Length(s);
+        return sizeOfVarInt(len + 1) + len;
+    }
+
+    static void writeString(ByteBuffer buf, String s) {
+        if (s == null) {
+            writeVarInt(buf, 0);
+            return;
+        }
+        int len = utf8Length(s);
+        writeVarInt(buf, len + 1);
+        if (len == s.length()) {
+            // ASCII (uid-, pg-, od- 등 대부분의 값) 는 byte[] 를 만들지 않고 바로 씁니다.
+            for (int i = 0; i < len; i++) {
+                buf.put((byte) s.charAt(i));
+            }
+        } else {
+            buf.put(s.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static String readString(ByteBuffer buf) {
+        int len = readVarInt(buf) - 1;
+        if (len < 0) {
+            return null;
+        }
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+
+    private static int utf8Length(String s) {
+        int len = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                len += 1;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    // ---------- 숫자 String : tag + 고정폭 int/long ----------
+
+    static int sizeOfNumber(String s) {
+        switch (numberTag(s)) {
+            case NUM_NULL:
+                return 1;
+            case NUM_INT:
+                return 1 + Integer.BYTES;
+            case NUM_LONG:
+                return 1 + Long.BYTES;
+            default:
+                return 1 + sizeOfString(s);
+        }
+    }
+
+    static void writeNumber(ByteBuffer buf, String s) {
+        byte tag = numberTag(s);
+        buf.put(tag);
+        if (tag == NUM_INT) {
+            buf.putInt(Integer.parseInt(s));
+        } else if (tag == NUM_LONG) {
+            buf.putLong(Long.parseLong(s));
+        } else if (tag == NUM_STRING) {
+            writeString(buf, s);
+        }
+    }
+
+    static String readNumber(ByteBuffer buf) {
+        byte tag = buf.get();
+        switch (tag) {
+            case NUM_NULL:
+                return null;
+            case NUM_INT:
+                return Integer.toString(buf.getInt());
+            case NUM_LONG:
+                return Long.toString(buf.getLong());
+            case NUM_STRING:
+                return readString(buf);
+            default:
+                throw new IllegalArgumentException("Unknown number tag : " + tag);
+        }
+    }
+
+    // 숫자로 encode 후 decode 했을 때 원래 문자열과 같아지는 경우에만 숫자 tag 를 사용합니다.
+    private static byte numberTag(String s) {
+        if (s == null) {
+            return NUM_NULL;
+        }
+        int len = s.length();
+        int start = len > 0 && s.charAt(0) == '-' ? 1 : 0;
+        int digits = len - start;
+        if (digits == 0 || digits > 18 || (s.charAt(start) == '0' && (digits > 1 || start == 1))) {
+            return NUM_STRING;
+        }
+        long value = 0;
+        for (int i = start; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return NUM_STRING;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? NUM_INT : NUM_LONG;
+    }
+
+    // ---------- adType : dictionary code ----------
+
+    static int sizeOfAdType(String adType) {
+        return adTypeCode(adType) == AD_TYPE_LITERAL ? 1 + sizeOfString(adType) : 1;
+    }
+
+    static void writeAdType(ByteBuffer buf, String adType) {
+        byte code = adTypeCode(adType);
+        buf.put(code);
+        if (code == AD_TYPE_LITERAL) {
+            writeString(buf, adType);
+        }
+    }
+
+    static String readAdType(ByteBuffer buf) {
+        byte code = buf.get();
+        if (code == AD_TYPE_LITERAL) {
+            return readString(buf);
+        }
+        if (code < 0 || code >= AD_TYPES.length) {
+            throw new IllegalArgumentException("Unknown adType code : " + code);
+        }
+        return AD_TYPES[code];
+    }
+
+    private static byte adTypeCode(String adType) {
+        for (byte i = 0; i < AD_TYPES.length; i++) {
+            if (adType == null ? AD_TYPES[i] == null : adType.equals(AD_TYPES[i])) {
+                return i;
+            }
+        }
+        return AD_TYPE_LITERAL;
+    }
+
+    // ---------- 상품 정보 : productId, price 는 고정 위치, 나머지 key 는 뒤에 붙입니다. ----------
+
+    static int sizeOfProduct(Map<String, String> prodInfo) {
+        int size = sizeOfString(prodInfo.get("productId")) + sizeOfNumber(prodInfo.get("price")) + 1;
+        for (Map.Entry<String, String> e : prodInfo.entrySet()) {
+            if (!isFixedProductKey(e.getKey())) {
+                size += sizeOfString(e.getKey()) + sizeOfString(e.getValue());
+            }
+        }
+        return size;
+    }
+
+    static void writeProduct(ByteBuffer buf, Map<String, String> prodInfo) {
+        writeString(buf, prodInfo.get("productId"));
+        writeNumber(buf, prodInfo.get("price"));
+        int extras = 0;
+        for (String key : prodInfo.keySet()) {
+            if (!isFixedProductKey(key)) {
+                extras++;
+            }
+        }
+        buf.put((byte) extras);
+        for (Map.Entry<String, String> e : prodInfo.entrySet()) {
+            if (!isFixedProductKey(e.getKey())) {
+                writeString(buf, e.getKey());
+                writeString(buf, e.getValue());
+            }
+        }
+    }
+
+    static void readProduct(ByteBuffer buf, Map<String, String> prodInfo) {
+        String productId = readString(buf);
+        String price = readNumber(buf);
+        // 원본 JSON 에 없던 key 를 null 로 만들어내지 않도록 값이 있을 때만 넣습니다.
+        if (productId != null) {
+            prodInfo.put("productId", productId);
+        }
+        if (price != null) {
+            prodInfo.put("price", price);
+        }
+        int extras = buf.get() & 0xFF;
+        for (int i = 0; i < extras; i++) {
+            prodInfo.put(readString(buf), readString(buf));
+        }
+    }
+
+    private static boolean isFixedProductKey(String key) {
+        return "productId".equals(key) || "price".equals(key);
+    }
+
+    // ---------- varint (unsigned LEB128) ----------
+
+    static int sizeOfVarInt(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void writeVarInt(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    static int readVarInt(ByteBuffer buf) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+            b = buf.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.kafkaExercise.util;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+// 크기를 먼저 계산해서 byte[] 를 한 번만 할당하고 그 위에 바로 씁니다.
+// Streams 에서는 Serde 1개를 여러 stream thread 가 같이 쓰므로 instance 에 buffer 를 두지 않습니다.
+public abstract class BinarySerializer<T> implements Serializer<T> {
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        byte[] bytes = new byte[1 + sizeOf(data)];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        buf.put(BinaryCodec.FORMAT_V1);
+        write(buf, data);
+        return bytes;
+    }
+
+    protected abstract int sizeOf(T data);
+
+    protected abstract void write(ByteBuffer buf, T data);
+}
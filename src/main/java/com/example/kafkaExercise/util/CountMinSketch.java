@@ -0,0 +1,98 @@
+package com.example.kafkaExercise.util;
+
+import java.nio.ByteBuffer;
+
+// key 별 count 를 depth x width 개의 counter 로 추정합니다. 실제보다 작게 추정하지는 않습니다.
+// 오차는 전체 count 의 약 e / width 이하이고, 그보다 클 확률이 e^-depth 입니다. (width 1024, depth 4 : 0.27%, 2%)
+// 크기가 같은 sketch 끼리 merge (counter 별 합) 하면 두 stream 을 합친 count 를 추정합니다.
+public class CountMinSketch {
+
+    private static final long SEED1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be >= 1 : " + width + " x " + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new int[width * depth];
+    }
+
+    private CountMinSketch(int width, int depth, int[] counters, long total) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = counters;
+        this.total = total;
+    }
+
+    // 더한 뒤의 추정값을 돌려줍니다.
+    public long add(String key, int count) {
+        long h1 = RollingBloomFilter.hash64(key, SEED1);
+        long h2 = RollingBloomFilter.hash64(key, SEED2);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + (int) Long.remainderUnsigned(h1 + row * h2, width);
+            // int 범위를 넘으면 더 올리지 않습니다.
+            counters[index] = (int) Math.min(Integer.MAX_VALUE, (long) counters[index] + count);
+            estimate = Math.min(estimate, counters[index]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        long h1 = RollingBloomFilter.hash64(key, SEED1);
+        long h2 = RollingBloomFilter.hash64(key, SEED2);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + (int) Long.remainderUnsigned(h1 + row * h2, width)]);
+        }
+        return estimate;
+    }
+
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Can't merge CountMinSketch " + other.width + "x" + other.depth + " into " + width + "x" + depth);
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (int) Math.min(Integer.MAX_VALUE, (long) counters[i] + other.counters[i]);
+        }
+        total += other.total;
+        return this;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int sizeInBytes() {
+        return 2 * Integer.BYTES + Long.BYTES + counters.length * Integer.BYTES;
+    }
+
+    // [width int][depth int][total long][counter int ...]
+    void write(ByteBuffer buf) {
+        buf.putInt(width);
+        buf.putInt(depth);
+        buf.putLong(total);
+        for (int counter : counters) {
+            buf.putInt(counter);
+        }
+    }
+
+    static CountMinSketch read(ByteBuffer buf) {
+        int width = buf.getInt();
+        int depth = buf.getInt();
+        long total = buf.getLong();
+        int[] counters = new int[width * depth];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = buf.getInt();
+        }
+        return new CountMinSketch(width, depth, counters, total);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.kafkaExercise.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.streams.errors.DeserializationExceptionHandler;
+import org.apache.kafka.streams.processor.ProcessorContext;
+
+import java.util.Map;
+
+// 읽을 수 없는 record (깨진 JSON, 알 수 없는 binary) 를 받은 byte 그대로 dead letter Topic 으로 보내고 다음 record 로 넘어갑니다.
+// default.deserialization.exception.handler 로 지정하고 DeadLetterPublisher.CONFIG 에 publisher 를 넣어야 합니다.
+@Slf4j
+public class DeadLetterDeserializationExceptionHandler implements DeserializationExceptionHandler {
+
+    public static final String STAGE = "deserialize";
+
+    private DeadLetterPublisher publisher;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object publisher = configs.get(DeadLetterPublisher.CONFIG);
+        if (!(publisher instanceof DeadLetterPublisher)) {
+            throw new ConfigException(DeadLetterPublisher.CONFIG, publisher, "DeadLetterPublisher instance is required");
+        }
+        this.publisher = (DeadLetterPublisher) publisher;
+    }
+
+    @Override
+    public DeserializationHandlerResponse handle(ProcessorContext context, ConsumerRecord<byte[], byte[]> record, Exception exception) {
+        try {
+            publisher.publish(record.topic(), record.partition(), record.offset(), record.timestamp(), STAGE,
+                    record.key(), record.value(), record.headers(), exception);
+            return DeserializationHandlerResponse.CONTINUE;
+        } catch (RuntimeException e) {
+            log.error("Can't send unreadable record {}-{}@{} to dead letter topic", record.topic(), record.partition(), record.offset(), e);
+            return DeserializationHandlerResponse.FAIL;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.kafkaExercise.util;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+// 뒤의 단계 (filter, 상품 분리 등) 에서 예외가 날 record 를 미리 검사해서 dead letter Topic 으로 보내고 버립니다.
+// Kafka 3.3 에는 처리 중 예외의 handler 가 없어, 예외가 그대로 올라가면 stream thread 가 죽고 같은 record 에서 다시 멈춥니다.
+// value 는 이미 읽은 VO 이므로 source 의 serializer 로 다시 만든 byte 를 보냅니다.
+// key 를 바꾸지 않는 processValues 용이라 뒤의 stateful 단계에 repartition 을 만들지 않습니다. (co-partitioned-sources)
+public class DeadLetterProcessor<V> implements FixedKeyProcessor<String, V, V> {
+
+    private final DeadLetterPublisher publisher;
+    private final String stage;
+    private final Consumer<V> validator;
+    private final Serializer<V> valueSerializer;
+
+    private FixedKeyProcessorContext<String, V> context;
+
+    DeadLetterProcessor(DeadLetterPublisher publisher, String stage, Consumer<V> validator, Serializer<V> valueSerializer) {
+        this.publisher = publisher;
+        this.stage = stage;
+        this.validator = validator;
+        this.valueSerializer = valueSerializer;
+    }
+
+    // validator 가 예외를 던지면 dead letter 로 보냅니다. stage 는 processor 이름과 dead letter header (dlq.stage) 에 씁니다.
+    public static <V> FixedKeyProcessorSupplier<String, V, V> supplier(DeadLetterPublisher publisher, String stage,
+                                                                   Consumer<V> validator, Serializer<V> valueSerializer) {
+        return () -> new DeadLetterProcessor<>(publisher, stage, validator, valueSerializer);
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, V> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, V> record) {
+        try {
+            if (record.value() != null) {
+                validator.accept(record.value());
+            }
+        } catch (RuntimeException e) {
+            RecordMetadata metadata = context.recordMetadata().orElse(null);
+            String topic = metadata == null ? "unknown" : metadata.topic();
+            publisher.publish(topic, metadata == null ? -1 : metadata.partition(), metadata == null ? -1 : metadata.offset(),
+                    record.timestamp(), stage,
+                    record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8),
+                    valueSerializer.serialize(topic, record.value()), record.headers(), e);
+            return;
+        }
+        context.forward(record);
+    }
+}
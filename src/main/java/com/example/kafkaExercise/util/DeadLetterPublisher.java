@@ -0,0 +1,155 @@
+package com.example.kafkaExercise.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.streams.errors.StreamsException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// 처리하지 못한 record 를 {source topic}{suffix} Topic 으로 보냅니다. 원래의 key / value / header 에 오류 정보를 header 로 붙입니다.
+// DeadLetterDeserializationExceptionHandler (읽기 실패) 와 DeadLetterProcessor (처리 실패) 가 같이 씁니다.
+// send 는 ack 를 받을 때까지 기다립니다. 실패 record 는 드물고, dead letter 에 남기 전에 입력 offset 이 commit 되면 안 되기 때문입니다.
+//
+// metric : dead.letter.records (tag source, stage)
+@Slf4j
+public class DeadLetterPublisher implements AutoCloseable {
+
+    // Streams 설정에 이 key 로 instance 를 넣어두면 DeadLetterDeserializationExceptionHandler 가 꺼내 씁니다.
+    public static final String CONFIG = "dead.letter.publisher";
+
+    public static final String HEADER_PREFIX = "dlq.";
+    public static final String SOURCE_TOPIC = HEADER_PREFIX + "source.topic";
+    public static final String SOURCE_PARTITION = HEADER_PREFIX + "source.partition";
+    public static final String SOURCE_OFFSET = HEADER_PREFIX + "source.offset";
+    public static final String STAGE = HEADER_PREFIX + "stage";
+    public static final String ERROR_CLASS = HEADER_PREFIX + "error.class";
+    public static final String ERROR_MESSAGE = HEADER_PREFIX + "error.message";
+    public static final String FAILED_AT = HEADER_PREFIX + "failed.at";
+    // DeadLetterReplayService 가 source Topic 에 다시 넣은 횟수. 다시 실패해도 그대로 따라갑니다.
+    public static final String REPLAY_COUNT = HEADER_PREFIX + "replay.count";
+
+    static final int MAX_MESSAGE_LENGTH = 1000;
+    static final long SEND_TIMEOUT_MS = 30_000;
+
+    private final Supplier<Producer<byte[], byte[]>> producerFactory;
+    private final String topicSuffix;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile Producer<byte[], byte[]> producer;
+
+    // producer 는 첫 실패 record 에서 만듭니다.
+    public DeadLetterPublisher(Supplier<Producer<byte[], byte[]>> producerFactory, String topicSuffix, MeterRegistry meterRegistry) {
+        this.producerFactory = producerFactory;
+        this.topicSuffix = topicSuffix;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public String topicFor(String sourceTopic) {
+        return sourceTopic + topicSuffix;
+    }
+
+    // timestamp 는 원래 record 의 timestamp 입니다. replay 한 record 가 원래 시각으로 다시 처리되도록 그대로 둡니다. (모르면 음수)
+    public void publish(String sourceTopic, int partition, long offset, long timestamp, String stage,
+                        byte[] key, byte[] value, Headers headers, Exception error) {
+        Headers dlqHeaders = new RecordHeaders();
+        if (headers != null) {
+            for (Header header : headers) {
+                if (!header.key().startsWith(HEADER_PREFIX)) {
+                    dlqHeaders.add(header);
+                }
+            }
+        }
+        dlqHeaders.add(SOURCE_TOPIC, bytes(sourceTopic));
+        dlqHeaders.add(SOURCE_PARTITION, bytes(String.valueOf(partition)));
+        dlqHeaders.add(SOURCE_OFFSET, bytes(String.valueOf(offset)));
+        dlqHeaders.add(STAGE, bytes(stage));
+        dlqHeaders.add(ERROR_CLASS, bytes(error.getClass().getName()));
+        dlqHeaders.add(ERROR_MESSAGE, bytes(truncate(String.valueOf(error.getMessage()))));
+        dlqHeaders.add(FAILED_AT, bytes(String.valueOf(System.currentTimeMillis())));
+        dlqHeaders.add(REPLAY_COUNT, bytes(String.valueOf(replayCount(headers))));
+
+        String topic = topicFor(sourceTopic);
+        try {
+            send(new ProducerRecord<>(topic, null, timestamp >= 0 ? timestamp : null, key, value, dlqHeaders));
+        } catch (Exception e) {
+            // dead letter 에도 남기지 못하면 record 를 잃지 않도록 stream thread 를 멈춥니다. (uncaught-exception-response 를 따릅니다.)
+            throw new StreamsException("Failed to send record " + sourceTopic + "-" + partition + "@" + offset + " to " + topic, e);
+        }
+        count(sourceTopic, stage);
+        log.warn("Sent {}-{}@{} to {} ({} : {})", sourceTopic, partition, offset, topic, stage, error.toString());
+    }
+
+    // ack 를 받을 때까지 기다립니다. DeadLetterReplayService 도 같은 producer 를 씁니다.
+    public void send(ProducerRecord<byte[], byte[]> record) throws Exception {
+        producer().send(record).get(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public long count(String sourceTopic) {
+        return counts.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(sourceTopic + "/"))
+                .mapToLong(e -> e.getValue().sum())
+                .sum();
+    }
+
+    private void count(String sourceTopic, String stage) {
+        counts.computeIfAbsent(sourceTopic + "/" + stage, k -> new LongAdder()).increment();
+        if (meterRegistry != null) {
+            Counter.builder("dead.letter.records").tag("source", sourceTopic).tag("stage", stage)
+                    .register(meterRegistry).increment();
+        }
+    }
+
+    private Producer<byte[], byte[]> producer() {
+        if (producer == null) {
+            synchronized (this) {
+                if (producer == null) {
+                    producer = producerFactory.get();
+                }
+            }
+        }
+        return producer;
+    }
+
+    public static int replayCount(Headers headers) {
+        Header header = headers == null ? null : headers.lastHeader(REPLAY_COUNT);
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public static String header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    @Override
+    public void close() {
+        if (producer != null) {
+            producer.close();
+        }
+    }
+}
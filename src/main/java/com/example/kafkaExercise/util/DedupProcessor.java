@@ -0,0 +1,178 @@
+package com.example.kafkaExercise.util;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.metrics.stats.Value;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+// 같은 id 의 record 가 window 안에 다시 들어오면 버립니다. (producer retry, SDK 재전송)
+// 처음 본 시각을 id 별로 window store 에 남기고, store 는 window 가 지난 segment 를 지우므로 크기가 window 만큼으로 제한됩니다.
+// Bloom filter 를 켜면 filter 에 없는 id (대부분의 record) 는 store 조회 없이 통과합니다.
+//
+// metric (group stream-dedup-metrics, tag dedup-id = store 이름, task-id)
+//   processed-rate/total, duplicate-rate/total, bloom-filter-bytes
+public class DedupProcessor<V> implements Processor<String, V, String, V> {
+
+    static final String SCOPE = "dedup";
+
+    private final String storeName;
+    private final Function<V, String> idOf;
+    private final long windowMs;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final boolean useBloomFilter;
+
+    private ProcessorContext<String, V> context;
+    private WindowStore<String, Long> store;
+    private RollingBloomFilter bloomFilter;
+    private long rotatedAt = -1;
+    private Sensor processedSensor;
+    private Sensor duplicateSensor;
+    private Sensor bloomFilterBytesSensor;
+
+    DedupProcessor(String storeName, Function<V, String> idOf, Duration window,
+                   boolean useBloomFilter, long expectedInsertions, double falsePositiveRate) {
+        this.storeName = storeName;
+        this.idOf = idOf;
+        this.windowMs = window.toMillis();
+        this.useBloomFilter = useBloomFilter;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    // store 는 window 만큼만 보관합니다. (window size 는 쓰지 않으므로 최소값)
+    public static StoreBuilder<WindowStore<String, Long>> storeBuilder(String storeName, Duration window) {
+        return Stores.windowStoreBuilder(
+                Stores.persistentWindowStore(storeName, window, Duration.ofMillis(1), false),
+                Serdes.String(), Serdes.Long());
+    }
+
+    // KStream#process 에 넘길 supplier 입니다. storeBuilder 를 sb.addStateStore 로 먼저 등록해야 합니다.
+    // key 를 바꾸지 않지만 processValues 는 3.3 에서 연결한 store 를 processor 에 넘겨주지 않아 process 를 씁니다.
+    public static <V> ProcessorSupplier<String, V, String, V> supplier(String storeName, Function<V, String> idOf, Duration window,
+                                                                       boolean useBloomFilter, long expectedInsertions, double falsePositiveRate) {
+        return () -> new DedupProcessor<>(storeName, idOf, window, useBloomFilter, expectedInsertions, falsePositiveRate);
+    }
+
+    @Override
+    public void init(ProcessorContext<String, V> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+
+        processedSensor = rateTotalSensor("processed", "처리한 record");
+        duplicateSensor = rateTotalSensor("duplicate", "중복으로 버린 record");
+
+        if (useBloomFilter) {
+            bloomFilter = new RollingBloomFilter(expectedInsertions, falsePositiveRate);
+            // 재시작/rebalance 후에는 store 에 남은 id 로 filter 를 다시 채웁니다. (store 는 window 만큼만 보관합니다.)
+            try (KeyValueIterator<Windowed<String>, Long> it = store.all()) {
+                while (it.hasNext()) {
+                    bloomFilter.put(it.next().key.key());
+                }
+            }
+            bloomFilterBytesSensor = taskSensor("bloom-filter-bytes");
+            bloomFilterBytesSensor.add(metricName("bloom-filter-bytes", "Bloom filter 가 차지하는 byte 수"), new Value());
+            bloomFilterBytesSensor.record(bloomFilter.sizeInBytes());
+        }
+    }
+
+    // sensor 는 task 마다 따로 둡니다. thread 단위 sensor (addRateTotalSensor) 는 같은 thread 의 task 가 함께 쓰므로
+    // 한 task 가 revoke 되어 close 에서 지우면 남은 task 의 metric 까지 없어집니다.
+    private Sensor rateTotalSensor(String name, String description) {
+        Sensor sensor = taskSensor(name);
+        sensor.add(metricName(name + "-rate", description + " 수 (초당)"), new Rate());
+        sensor.add(metricName(name + "-total", description + " 수"), new CumulativeCount());
+        return sensor;
+    }
+
+    private Sensor taskSensor(String name) {
+        return context.metrics().addSensor(context.taskId() + "." + storeName + "." + name, Sensor.RecordingLevel.INFO);
+    }
+
+    private MetricName metricName(String name, String description) {
+        return new MetricName(name, "stream-" + SCOPE + "-metrics", description, Map.of(
+                "thread-id", Thread.currentThread().getName(),
+                "task-id", context.taskId().toString(),
+                SCOPE + "-id", storeName));
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        processedSensor.record();
+        String id = record.value() == null ? null : idOf.apply(record.value());
+        if (id == null) {
+            // id 를 만들 수 없는 record 는 판단하지 않고 넘깁니다.
+            context.forward(record);
+            return;
+        }
+        long timestamp = record.timestamp();
+        rotateIfNeeded(timestamp);
+
+        if (isDuplicate(id, timestamp)) {
+            duplicateSensor.record();
+            return;
+        }
+        store.put(id, timestamp, timestamp);
+        if (bloomFilter != null) {
+            bloomFilter.put(id);
+        }
+        context.forward(record);
+    }
+
+    private boolean isDuplicate(String id, long timestamp) {
+        if (bloomFilter != null && !bloomFilter.mightContain(id)) {
+            return false;
+        }
+        try (WindowStoreIterator<Long> it = store.fetch(id, timestamp - windowMs, timestamp + windowMs)) {
+            return it.hasNext();
+        }
+    }
+
+    // filter 는 stream time 으로 window 마다 한 세대씩 넘깁니다. 들어간 id 는 최소 window 동안 남습니다.
+    private void rotateIfNeeded(long timestamp) {
+        if (bloomFilter == null) {
+            return;
+        }
+        if (rotatedAt < 0) {
+            rotatedAt = timestamp;
+        } else if (timestamp - rotatedAt >= windowMs) {
+            bloomFilter.rotate();
+            rotatedAt = timestamp;
+        }
+    }
+
+    @Override
+    public void close() {
+        context.metrics().removeSensor(processedSensor);
+        context.metrics().removeSensor(duplicateSensor);
+        if (bloomFilterBytesSensor != null) {
+            context.metrics().removeSensor(bloomFilterBytesSensor);
+        }
+    }
+
+    // WatchingAdLog 처럼 고유 id 가 없는 record 는 필드 전체의 64bit hash 를 id 로 씁니다.
+    public static String fieldHash(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (String field : fields) {
+            // null 과 "" 를 구분하고 필드 경계가 섞이지 않도록 구분자를 둡니다.
+            sb.append(field == null ? "\u0001" : field).append('\u0000');
+        }
+        return Long.toHexString(RollingBloomFilter.hash64(sb.toString(), 0x5F3759DFL));
+    }
+}
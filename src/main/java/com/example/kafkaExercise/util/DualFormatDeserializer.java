@@ -0,0 +1,39 @@
+package com.example.kafkaExercise.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.ByteBuffer;
+
+// binary(FORMAT_V1) 와 기존 JSON 을 첫 byte 로 구분해서 둘 다 읽습니다.
+// 전환 기간 동안 같은 Topic 에 두 형식이 섞여 들어와도 pipeline 이 그대로 동작합니다.
+public abstract class DualFormatDeserializer<T> implements Deserializer<T> {
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Class<T> type;
+
+    protected DualFormatDeserializer(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (BinaryCodec.isBinary(data)) {
+                ByteBuffer buf = ByteBuffer.wrap(data);
+                buf.get();
+                return read(buf);
+            }
+            return objectMapper.readValue(data, type);
+        } catch (Exception e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic + " as " + type.getSimpleName(), e);
+        }
+    }
+
+    protected abstract T read(ByteBuffer buf);
+}
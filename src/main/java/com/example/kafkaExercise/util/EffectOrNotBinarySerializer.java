@@ -0,0 +1,32 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.EffectOrNot;
+
+import java.nio.ByteBuffer;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class EffectOrNotBinarySerializer extends BinarySerializer<EffectOrNot> {
+
+    @Override
+    protected int sizeOf(EffectOrNot data) {
+        return sizeOfString(data.getAdId())
+                + sizeOfString(data.getUserId())
+                + sizeOfString(data.getOrderId())
+                + 1
+                + (data.getProductInfo() == null ? 0 : sizeOfProduct(data.getProductInfo()))
+                + sizeOfAdType(data.getAdType());
+    }
+
+    @Override
+    protected void write(ByteBuffer buf, EffectOrNot data) {
+        writeString(buf, data.getAdId());
+        writeString(buf, data.getUserId());
+        writeString(buf, data.getOrderId());
+        buf.put((byte) (data.getProductInfo() == null ? 0 : 1));
+        if (data.getProductInfo() != null) {
+            writeProduct(buf, data.getProductInfo());
+        }
+        // 나중에 추가된 필드라 맨 뒤에 씁니다.
+        writeAdType(buf, data.getAdType());
+    }
+}
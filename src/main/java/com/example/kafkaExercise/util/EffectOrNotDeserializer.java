@@ -0,0 +1,33 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.EffectOrNot;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class EffectOrNotDeserializer extends DualFormatDeserializer<EffectOrNot> {
+
+    public EffectOrNotDeserializer() {
+        super(EffectOrNot.class);
+    }
+
+    @Override
+    protected EffectOrNot read(ByteBuffer buf) {
+        EffectOrNot data = new EffectOrNot();
+        data.setAdId(readString(buf));
+        data.setUserId(readString(buf));
+        data.setOrderId(readString(buf));
+        if (buf.get() != 0) {
+            Map<String, String> prodInfo = new HashMap<>(4);
+            readProduct(buf, prodInfo);
+            data.setProductInfo(prodInfo);
+        }
+        // adType 이 추가되기 전에 쓰인 record 에는 없습니다.
+        if (buf.hasRemaining()) {
+            data.setAdType(readAdType(buf));
+        }
+        return data;
+    }
+}
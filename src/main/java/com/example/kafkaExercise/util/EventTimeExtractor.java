@@ -0,0 +1,75 @@
+package com.example.kafkaExercise.util;
+
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+// watchingDt / purchasedDt (yyyyMMddHHmmss) 를 record 의 event time 으로 사용합니다.
+// 값이 없거나 형식이 다르면 record timestamp 를 그대로 씁니다.
+public class EventTimeExtractor implements TimestampExtractor {
+
+    private final ZoneRules zoneRules;
+
+    public EventTimeExtractor(ZoneId zoneId) {
+        this.zoneRules = zoneId.getRules();
+    }
+
+    @Override
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        Object value = record.value();
+        String eventDt = null;
+        if (value instanceof WatchingAdLog) {
+            eventDt = ((WatchingAdLog) value).getWatchingDt();
+        } else if (value instanceof PurchaseLog) {
+            eventDt = ((PurchaseLog) value).getPurchasedDt();
+        } else if (value instanceof PurchaseLogOneProduct) {
+            eventDt = ((PurchaseLogOneProduct) value).getPurchasedDt();
+        }
+        long eventTime = toEpochMilli(eventDt);
+        return eventTime >= 0 ? eventTime : record.timestamp();
+    }
+
+    // 변환할 수 없으면 -1
+    // record 마다 불리므로 DateTimeFormatter (parse 중간 객체들) 대신 숫자를 직접 읽습니다.
+    // gap / overlap 시각은 atZone 과 같은 offset (전환 이전 offset) 을 씁니다.
+    public long toEpochMilli(String eventDt) {
+        if (eventDt == null || eventDt.length() != 14) {
+            return -1;
+        }
+        int year = digits(eventDt, 0, 4);
+        int month = digits(eventDt, 4, 6);
+        int day = digits(eventDt, 6, 8);
+        int hour = digits(eventDt, 8, 10);
+        int minute = digits(eventDt, 10, 12);
+        int second = digits(eventDt, 12, 14);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return -1;
+        }
+        try {
+            LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+            return dateTime.toEpochSecond(zoneRules.getOffset(dateTime)) * 1000;
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    // 숫자가 아니면 -1
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.kafkaExercise.util;
+
+import java.nio.ByteBuffer;
+
+// 고유 사용자 수를 2^precision 개의 register (1 byte) 로 추정합니다. 들어온 id 수와 관계없이 크기가 고정입니다.
+// precision 12 : 4 KB, 표준오차 약 1.04 / sqrt(4096) = 1.6%
+// 같은 precision 끼리 merge (register 별 max) 하면 두 집합의 합집합을 추정합니다. (window, partition 을 합칠 때)
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + " : " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public HyperLogLog add(String id) {
+        if (id == null) {
+            return this;
+        }
+        long hash = RollingBloomFilter.hash64(id, SEED);
+        int index = (int) (hash >>> (64 - precision));
+        // 남은 bit 의 앞쪽 0 개수 + 1. 모두 0 이면 최대값입니다.
+        long rest = hash << precision;
+        int rank = rest == 0 ? 64 - precision + 1 : Long.numberOfLeadingZeros(rest) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+        return this;
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Can't merge HyperLogLog of precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        // 작은 값에서는 비어있는 register 비율로 계산합니다. (linear counting)
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public int sizeInBytes() {
+        return 1 + registers.length;
+    }
+
+    // [precision 1 byte][register 2^precision byte]
+    public byte[] toBytes() {
+        ByteBuffer buf = ByteBuffer.allocate(sizeInBytes());
+        buf.put((byte) precision);
+        buf.put(registers);
+        return buf.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] data) {
+        int precision = data[0];
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION || data.length != 1 + (1 << precision)) {
+            throw new IllegalArgumentException("Not a HyperLogLog of " + data.length + " bytes");
+        }
+        byte[] registers = new byte[1 << precision];
+        System.arraycopy(data, 1, registers, 0, registers.length);
+        return new HyperLogLog(precision, registers);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.kafkaExercise.util;
+
+// 광고이력과 상품별 구매이력을 잇는 join key (userId_productId) 입니다.
+// repartition topic 과 adStore / purchaseLogStore 의 key 형식이므로 바꾸면 state 를 다시 만들어야 합니다.
+// Producer 도 이 key 로 보내므로 (Producer.keyOf) adLog / purchaseLogOneProduct Topic 의 key 형식이기도 합니다.
+public final class JoinKeys {
+
+    private JoinKeys() {
+    }
+
+    public static String of(String userId, String productId) {
+        return userId + "_" + productId;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.kafkaExercise.util;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+// KTable-KTable join 은 어느 쪽이 바뀌어도 결과를 다시 내보냅니다. (같은 key 의 광고를 다시 본 경우 등)
+// key (join key) 별로 마지막으로 넘긴 id (주문번호) 를 store 에 두고 같은 id 의 결과는 버려, 구매 쪽의 새 record 만 넘깁니다.
+// store 의 key 수는 join 의 purchaseLogStore 와 같습니다.
+public class JoinUpdateFilter<V> implements Processor<String, V, String, V> {
+
+    private final String storeName;
+    private final Function<V, String> idOf;
+
+    private ProcessorContext<String, V> context;
+    private KeyValueStore<String, String> store;
+
+    JoinUpdateFilter(String storeName, Function<V, String> idOf) {
+        this.storeName = storeName;
+        this.idOf = idOf;
+    }
+
+    public static StoreBuilder<KeyValueStore<String, String>> storeBuilder(String storeName) {
+        return Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(storeName), Serdes.String(), Serdes.String());
+    }
+
+    // KStream#process 에 넘길 supplier 입니다. storeBuilder 를 sb.addStateStore 로 먼저 등록해야 합니다.
+    public static <V> ProcessorSupplier<String, V, String, V> supplier(String storeName, Function<V, String> idOf) {
+        return () -> new JoinUpdateFilter<>(storeName, idOf);
+    }
+
+    @Override
+    public void init(ProcessorContext<String, V> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+        String id = idOf.apply(record.value());
+        if (Objects.equals(store.get(record.key()), id)) {
+            return;
+        }
+        store.put(record.key(), id);
+        context.forward(record);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.ProductCatalog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+// catalog 는 상품 서비스가 JSON 으로만 보내므로 binary 형식은 읽지 않습니다. tombstone (null) 은 상품 삭제입니다.
+public class ProductCatalogDeserializer implements Deserializer<ProductCatalog> {
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public ProductCatalog deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(data, ProductCatalog.class);
+        } catch (Exception e) {
+            throw new SerializationException("Can't deserialize data from topic " + topic + " as ProductCatalog", e);
+        }
+    }
+}
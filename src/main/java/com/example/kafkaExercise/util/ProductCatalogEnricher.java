@@ -0,0 +1,133 @@
+package com.example.kafkaExercise.util;
+
+import com.example.kafkaExercise.config.PipelineMetrics;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.ProductCatalog;
+import com.example.kafkaExercise.vo.ProductInfo;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// join 결과의 productInfo 에 GlobalKTable (productCatalog) 의 category, brand, margin 을 붙입니다.
+// global store 는 모든 instance 가 전체를 들고 있어 key 를 바꾸거나 repartition 하지 않고 processValues 로 조회합니다.
+// store 조회는 RocksDB 읽기와 역직렬화라, 자주 팔리는 상품은 task 별 LRU (near cache) 에 둡니다.
+// task 의 stream thread 만 쓰므로 lock 이 필요 없습니다. catalog 변경은 near cache 에 알려지지 않으므로 ttl 이 지나야 반영됩니다.
+// catalog 에 없는 상품은 그대로 내보냅니다. (없다는 결과는 cache 하지 않아 catalog 가 늦게 들어와도 바로 붙습니다.)
+public class ProductCatalogEnricher implements FixedKeyProcessor<String, EffectOrNot, EffectOrNot> {
+
+    static final class Cached {
+        final ProductCatalog catalog;
+        final long loadedAt;
+
+        Cached(ProductCatalog catalog, long loadedAt) {
+            this.catalog = catalog;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final String storeName;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final PipelineMetrics metrics;
+    private final LongSupplier clock;
+    private final Map<String, Cached> nearCache;
+
+    private FixedKeyProcessorContext<String, EffectOrNot> context;
+    private TimestampedKeyValueStore<String, ProductCatalog> store;
+
+    ProductCatalogEnricher(String storeName, int maxEntries, Duration ttl, PipelineMetrics metrics, LongSupplier clock) {
+        this.storeName = storeName;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttl.toMillis();
+        this.metrics = metrics;
+        this.clock = clock;
+        // access order 라 가장 오래 안 쓴 상품부터 내보냅니다.
+        this.nearCache = maxEntries <= 0 ? null : new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > ProductCatalogEnricher.this.maxEntries;
+            }
+        };
+    }
+
+    // maxEntries 가 0 이하면 near cache 없이 매번 store 를 읽습니다.
+    public static FixedKeyProcessorSupplier<String, EffectOrNot, EffectOrNot> supplier(String storeName, int maxEntries, Duration ttl,
+                                                                                   PipelineMetrics metrics) {
+        return () -> new ProductCatalogEnricher(storeName, maxEntries, ttl, metrics, System::currentTimeMillis);
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, EffectOrNot> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, EffectOrNot> record) {
+        EffectOrNot value = record.value();
+        if (value != null && value.getProductInfo() != null) {
+            ProductCatalog catalog = lookup(value.getProductInfo().get(ProductInfo.PRODUCT_ID));
+            if (catalog == null) {
+                metrics.catalogMissing();
+            } else {
+                value.setProductInfo(withCatalog(value.getProductInfo(), catalog));
+            }
+        }
+        context.forward(record);
+    }
+
+    ProductCatalog lookup(String productId) {
+        if (productId == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (nearCache != null) {
+            Cached cached = nearCache.get(productId);
+            if (cached != null && now - cached.loadedAt < ttlMs) {
+                metrics.catalogLookup(true);
+                return cached.catalog;
+            }
+        }
+        metrics.catalogLookup(false);
+        ValueAndTimestamp<ProductCatalog> stored = store.get(productId);
+        ProductCatalog catalog = stored == null ? null : stored.value();
+        if (nearCache != null) {
+            if (catalog == null) {
+                nearCache.remove(productId);
+            } else {
+                nearCache.put(productId, new Cached(catalog, now));
+            }
+        }
+        return catalog;
+    }
+
+    int nearCacheSize() {
+        return nearCache == null ? 0 : nearCache.size();
+    }
+
+    // joiner 가 만든 ProductInfo 가 아니면 (이미 역직렬화된 HashMap) key 를 더한 사본을 만듭니다.
+    private static Map<String, String> withCatalog(Map<String, String> productInfo, ProductCatalog catalog) {
+        if (productInfo instanceof ProductInfo) {
+            return ((ProductInfo) productInfo).withCatalog(catalog);
+        }
+        Map<String, String> copy = new LinkedHashMap<>(productInfo);
+        putIfNotNull(copy, ProductInfo.CATEGORY, catalog.getCategory());
+        putIfNotNull(copy, ProductInfo.BRAND, catalog.getBrand());
+        putIfNotNull(copy, ProductInfo.MARGIN, catalog.getMargin());
+        return copy;
+    }
+
+    private static void putIfNotNull(Map<String, String> map, String key, String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
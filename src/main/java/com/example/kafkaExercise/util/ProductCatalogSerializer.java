@@ -0,0 +1,32 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.ProductCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+public class ProductCatalogSerializer implements Serializer<ProductCatalog> {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public byte[] serialize(String topic, ProductCatalog data) {
+        try {
+            if (data == null){
+                return null;
+            }
+            return objectMapper.writeValueAsBytes(data);
+        } catch (Exception e) {
+            throw new SerializationException("Can't serialize ProductCatalog for topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.PurchaseLog;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class PurchaseLogBinarySerializer extends BinarySerializer<PurchaseLog> {
+
+    @Override
+    protected int sizeOf(PurchaseLog data) {
+        int size = sizeOfString(data.getOrderId())
+                + sizeOfString(data.getUserId())
+                + sizeOfNumber(data.getPurchasedDt());
+        List<Map<String, String>> productInfo = data.getProductInfo();
+        // 상품 개수 (null 이면 0, 아니면 개수 + 1)
+        size += sizeOfVarInt(productInfo == null ? 0 : productInfo.size() + 1);
+        if (productInfo != null) {
+            for (Map<String, String> prodInfo : productInfo) {
+                size += sizeOfProduct(prodInfo);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    protected void write(ByteBuffer buf, PurchaseLog data) {
+        writeString(buf, data.getOrderId());
+        writeString(buf, data.getUserId());
+        writeNumber(buf, data.getPurchasedDt());
+        List<Map<String, String>> productInfo = data.getProductInfo();
+        writeVarInt(buf, productInfo == null ? 0 : productInfo.size() + 1);
+        if (productInfo != null) {
+            for (Map<String, String> prodInfo : productInfo) {
+                writeProduct(buf, prodInfo);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.PurchaseLog;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class PurchaseLogDeserializer extends DualFormatDeserializer<PurchaseLog> {
+
+    public PurchaseLogDeserializer() {
+        super(PurchaseLog.class);
+    }
+
+    @Override
+    protected PurchaseLog read(ByteBuffer buf) {
+        PurchaseLog data = new PurchaseLog();
+        data.setOrderId(readString(buf));
+        data.setUserId(readString(buf));
+        data.setPurchasedDt(readNumber(buf));
+        int count = readVarInt(buf) - 1;
+        if (count >= 0) {
+            ArrayList<Map<String, String>> productInfo = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Map<String, String> prodInfo = new HashMap<>(4);
+                readProduct(buf, prodInfo);
+                productInfo.add(prodInfo);
+            }
+            data.setProductInfo(productInfo);
+        }
+        return data;
+    }
+}
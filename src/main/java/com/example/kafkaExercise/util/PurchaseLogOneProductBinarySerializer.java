@@ -0,0 +1,27 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+
+import java.nio.ByteBuffer;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class PurchaseLogOneProductBinarySerializer extends BinarySerializer<PurchaseLogOneProduct> {
+
+    @Override
+    protected int sizeOf(PurchaseLogOneProduct data) {
+        return sizeOfString(data.getOrderId())
+                + sizeOfString(data.getUserId())
+                + sizeOfString(data.getProductId())
+                + sizeOfNumber(data.getPurchasedDt())
+                + sizeOfNumber(data.getPrice());
+    }
+
+    @Override
+    protected void write(ByteBuffer buf, PurchaseLogOneProduct data) {
+        writeString(buf, data.getOrderId());
+        writeString(buf, data.getUserId());
+        writeString(buf, data.getProductId());
+        writeNumber(buf, data.getPurchasedDt());
+        writeNumber(buf, data.getPrice());
+    }
+}
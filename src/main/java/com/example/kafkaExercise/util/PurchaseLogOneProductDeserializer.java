@@ -0,0 +1,24 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+
+import java.nio.ByteBuffer;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class PurchaseLogOneProductDeserializer extends DualFormatDeserializer<PurchaseLogOneProduct> {
+
+    public PurchaseLogOneProductDeserializer() {
+        super(PurchaseLogOneProduct.class);
+    }
+
+    @Override
+    protected PurchaseLogOneProduct read(ByteBuffer buf) {
+        PurchaseLogOneProduct data = new PurchaseLogOneProduct();
+        data.setOrderId(readString(buf));
+        data.setUserId(readString(buf));
+        data.setProductId(readString(buf));
+        data.setPurchasedDt(readNumber(buf));
+        data.setPrice(readNumber(buf));
+        return data;
+    }
+}
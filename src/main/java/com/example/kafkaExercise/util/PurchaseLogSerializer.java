@@ -1,6 +1,7 @@
 package com.example.kafkaExercise.util;
 import com.example.kafkaExercise.vo.PurchaseLog;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.serialization.Serializer;
 
 import java.util.Map;
@@ -20,7 +21,7 @@ public class PurchaseLogSerializer implements Serializer<PurchaseLog> {
             }
             return objectMapper.writeValueAsBytes(data);
         } catch (Exception e) {
-            throw new SecurityException("Exception Occured");
+            throw new SerializationException("Can't serialize PurchaseLog for topic " + topic, e);
         }
     }
 
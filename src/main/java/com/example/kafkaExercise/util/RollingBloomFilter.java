@@ -0,0 +1,74 @@
+package com.example.kafkaExercise.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// 최근 id 를 기억하는 Bloom filter 2세대(current, previous) 입니다.
+// rotate() 때마다 previous 를 버리고 current 를 previous 로 넘기므로 메모리는 2세대 크기로 고정됩니다.
+// mightContain 이 false 면 확실히 처음 보는 id 이고, true 면 (오탐일 수 있으므로) store 를 확인해야 합니다.
+public class RollingBloomFilter {
+
+    private final int bits;
+    private final int hashes;
+    private long[] current;
+    private long[] previous;
+
+    public RollingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, optimalBits));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.current = new long[(bits + 63) / 64];
+        this.previous = new long[current.length];
+    }
+
+    public void put(String id) {
+        long h1 = hash64(id, 0x9E3779B97F4A7C15L);
+        long h2 = hash64(id, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bits);
+            current[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String id) {
+        long h1 = hash64(id, 0x9E3779B97F4A7C15L);
+        long h2 = hash64(id, 0xC2B2AE3D27D4EB4FL);
+        return contains(current, h1, h2) || contains(previous, h1, h2);
+    }
+
+    public void rotate() {
+        long[] recycled = previous;
+        Arrays.fill(recycled, 0L);
+        previous = current;
+        current = recycled;
+    }
+
+    // 두 세대의 bit 배열 크기
+    public long sizeInBytes() {
+        return 2L * current.length * Long.BYTES;
+    }
+
+    private boolean contains(long[] generation, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((generation[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // UTF-8 byte 에 대한 64bit hash (murmur3 finalizer 로 섞습니다)
+    public static long hash64(String s, long seed) {
+        long h = seed;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
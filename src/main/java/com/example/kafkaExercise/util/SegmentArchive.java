@@ -0,0 +1,187 @@
+package com.example.kafkaExercise.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// record 를 memory-mapped segment 파일에 이어 씁니다. (SegmentArchiveReader 로 다시 읽습니다.)
+// segment 는 segmentBytes 크기로 미리 map 하고 (sparse file 이라 쓴 만큼만 disk 를 씁니다) 다 차면 다음 segment 로 넘어갑니다.
+// 파일 이름은 segment 첫 record 의 sequence (archive 안에서 0 부터 1씩 증가) 입니다. 00000000000000000000.seg / .idx
+//
+// record : [length int][timestamp long][partition int][offset long][key 길이 int][key][value 길이 int][value]  (길이 -1 은 null)
+// length 는 나머지를 다 쓴 뒤 마지막에 씁니다. 0 이면 segment 의 끝이라 쓰다가 죽어도 반쯤 쓴 record 는 읽히지 않습니다.
+//
+// index : indexIntervalBytes 마다 [앞 record 들의 최대 timestamp long][sequence long][position int] 를 씁니다.
+// 최대 timestamp 가 from 보다 작은 entry 의 위치부터 읽으면 그 앞에는 from 이후의 record 가 없습니다.
+// segment 를 닫을 때 끝 위치에 segment 전체의 최대 timestamp 를 남겨 segment 를 통째로 건너뛸 수 있게 합니다.
+//
+// 한 directory 에는 writer 가 하나여야 합니다. (stream task 별 directory 를 씁니다.)
+public class SegmentArchive implements Closeable {
+
+    public static final String SEGMENT_SUFFIX = ".seg";
+    public static final String INDEX_SUFFIX = ".idx";
+    static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    static final int INDEX_ENTRY_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private FileChannel index;
+    private long nextSequence;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private int bytesSinceIndex;
+
+    private SegmentArchive(Path dir, int segmentBytes, int indexIntervalBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+    }
+
+    // 마지막 segment 가 있으면 그 끝에 이어 씁니다.
+    public static SegmentArchive open(Path dir, int segmentBytes, int indexIntervalBytes) throws IOException {
+        Files.createDirectories(dir);
+        SegmentArchive archive = new SegmentArchive(dir, segmentBytes, indexIntervalBytes);
+        List<Path> segments = segments(dir);
+        if (segments.isEmpty()) {
+            archive.roll(0, segmentBytes);
+        } else {
+            archive.reopen(segments.get(segments.size() - 1));
+        }
+        return archive;
+    }
+
+    public synchronized void append(long timestamp, int partition, long offset, byte[] key, byte[] value) throws IOException {
+        int size = RECORD_OVERHEAD + (key == null ? 0 : key.length) + (value == null ? 0 : value.length);
+        // 끝 표시 (length 0) 자리를 남겨둡니다.
+        if (segment.remaining() < size + Integer.BYTES) {
+            closeSegment();
+            roll(nextSequence, Math.max(segmentBytes, size + Integer.BYTES));
+        }
+        int position = segment.position();
+        if (position == 0 || bytesSinceIndex >= indexIntervalBytes) {
+            writeIndex(maxTimestamp, nextSequence, position);
+            bytesSinceIndex = 0;
+        }
+        segment.position(position + Integer.BYTES);
+        segment.putLong(timestamp);
+        segment.putInt(partition);
+        segment.putLong(offset);
+        putBytes(key);
+        putBytes(value);
+        segment.putInt(position, size - Integer.BYTES);
+
+        nextSequence++;
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        bytesSinceIndex += size;
+    }
+
+    // page cache 의 내용을 disk 로 내립니다. process 가 죽어도 map 한 내용은 OS 가 쓰므로 machine 장애 대비용입니다.
+    public synchronized void flush() throws IOException {
+        segment.force();
+        index.force(false);
+    }
+
+    public long nextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segmentChannel != null) {
+            segment.force();
+            index.force(false);
+            segmentChannel.close();
+            index.close();
+            segmentChannel = null;
+        }
+    }
+
+    private void putBytes(byte[] bytes) {
+        if (bytes == null) {
+            segment.putInt(-1);
+        } else {
+            segment.putInt(bytes.length);
+            segment.put(bytes);
+        }
+    }
+
+    private void writeIndex(long maxTimestamp, long sequence, int position) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putLong(maxTimestamp).putLong(sequence).putInt(position).flip();
+        while (entry.hasRemaining()) {
+            index.write(entry);
+        }
+    }
+
+    // 다음 segment 에서 건너뛸 수 있도록 이 segment 의 최대 timestamp 를 끝 위치에 남깁니다.
+    private void closeSegment() throws IOException {
+        writeIndex(maxTimestamp, nextSequence, segment.position());
+        segment.force();
+        segmentChannel.close();
+        index.close();
+    }
+
+    private void roll(long baseSequence, int size) throws IOException {
+        segmentChannel = FileChannel.open(dir.resolve(fileName(baseSequence, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        index = FileChannel.open(dir.resolve(fileName(baseSequence, INDEX_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        maxTimestamp = Long.MIN_VALUE;
+        bytesSinceIndex = 0;
+    }
+
+    private void reopen(Path file) throws IOException {
+        long baseSequence = sequenceOf(file);
+        segmentChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentChannel.size());
+        index = FileChannel.open(dir.resolve(fileName(baseSequence, INDEX_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        long count = 0;
+        int position = 0;
+        while (position + Integer.BYTES <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length <= 0) {
+                break;
+            }
+            maxTimestamp = Math.max(maxTimestamp, segment.getLong(position + Integer.BYTES));
+            position += Integer.BYTES + length;
+            count++;
+        }
+        segment.position(position);
+        nextSequence = baseSequence + count;
+        // 마지막 index entry 이후에 쓴 양은 모르므로 다음 record 에 index 를 남깁니다.
+        bytesSinceIndex = indexIntervalBytes;
+    }
+
+    static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static String fileName(long sequence, String suffix) {
+        return String.format("%020d", sequence) + suffix;
+    }
+}
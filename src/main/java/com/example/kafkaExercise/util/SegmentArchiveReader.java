@@ -0,0 +1,285 @@
+package com.example.kafkaExercise.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// SegmentArchive 로 쓴 segment 를 READ_ONLY 로 map 해서 읽습니다.
+// key / value 는 map 한 buffer 의 slice 라 읽는 동안 복사하지 않습니다. (byte[] 가 필요하면 쓰는 쪽에서 한 번 복사합니다.)
+// slice 는 다음 segment 로 넘어간 뒤에도 유효하지만, 쓰는 중인 segment 는 map 한 시점까지 쓴 record 만 읽습니다.
+public class SegmentArchiveReader {
+
+    public static class ArchivedRecord {
+        private final String topic;
+        private final long sequence;
+        private final long timestamp;
+        private final int partition;
+        private final long offset;
+        private final ByteBuffer key;
+        private final ByteBuffer value;
+
+        ArchivedRecord(String topic, long sequence, long timestamp, int partition, long offset, ByteBuffer key, ByteBuffer value) {
+            this.topic = topic;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.partition = partition;
+            this.offset = offset;
+            this.key = key;
+            this.value = value;
+        }
+
+        public String topic() {
+            return topic;
+        }
+
+        public long sequence() {
+            return sequence;
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        public int partition() {
+            return partition;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        // 읽기 전용 slice 입니다. null record 는 null 입니다.
+        public ByteBuffer key() {
+            return key == null ? null : key.duplicate();
+        }
+
+        public ByteBuffer value() {
+            return value == null ? null : value.duplicate();
+        }
+
+        public byte[] keyBytes() {
+            return copy(key);
+        }
+
+        public byte[] valueBytes() {
+            return copy(value);
+        }
+
+        private static byte[] copy(ByteBuffer buffer) {
+            if (buffer == null) {
+                return null;
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return bytes;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(ArchivedRecord record) throws Exception;
+    }
+
+    private SegmentArchiveReader() {
+    }
+
+    // directory 하나 (topic 의 partition 하나) 의 record 를 쓴 순서대로 읽습니다. timestamp 가 from 보다 작은 record 는 건너뜁니다.
+    public static Iterator<ArchivedRecord> read(String topic, Path dir, long fromTimestamp) throws IOException {
+        return new SegmentIterator(topic, SegmentArchive.segments(dir), fromTimestamp);
+    }
+
+    // root/<topic>/partition-N 을 모두 읽어 [from, to) 의 record 를 timestamp 순으로 handler 에 넘깁니다.
+    // partition 안에서는 쓴 순서를 지키고, partition 사이는 다음 record 의 timestamp 가 가장 작은 쪽을 먼저 넘깁니다. (Streams task 가 partition 을 고르는 방식)
+    // timestamp 가 같으면 topics 의 순서 (광고 이력을 구매 이력보다 먼저 넣는 등) 를 따릅니다.
+    public static long replay(Path root, List<String> topics, long fromTimestamp, long toTimestamp, RecordHandler handler) throws Exception {
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>(Comparator
+                .comparingLong((PeekingIterator it) -> it.peek().timestamp())
+                .thenComparingInt(it -> it.topicOrder)
+                .thenComparingInt(it -> it.peek().partition())
+                .thenComparingLong(it -> it.peek().sequence()));
+        for (int i = 0; i < topics.size(); i++) {
+            for (Path dir : partitionDirs(root.resolve(topics.get(i)))) {
+                PeekingIterator it = new PeekingIterator(i, read(topics.get(i), dir, fromTimestamp), toTimestamp);
+                if (it.hasNext()) {
+                    heads.add(it);
+                }
+            }
+        }
+        long count = 0;
+        while (!heads.isEmpty()) {
+            PeekingIterator it = heads.poll();
+            handler.handle(it.next());
+            count++;
+            if (it.hasNext()) {
+                heads.add(it);
+            }
+        }
+        return count;
+    }
+
+    static List<Path> partitionDirs(Path topicDir) throws IOException {
+        if (!Files.isDirectory(topicDir)) {
+            return List.of();
+        }
+        try (Stream<Path> dirs = Files.list(topicDir)) {
+            return dirs.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        }
+    }
+
+    // index 에서 최대 timestamp 가 from 보다 작은 마지막 entry 의 [position, sequence] 를 찾습니다. 그 앞의 record 는 모두 from 보다 이릅니다.
+    // 최대 timestamp 는 앞에서부터 커지기만 하므로 binary search 할 수 있습니다.
+    // segment 를 닫을 때 남긴 끝 entry 를 찾으면 segment 의 끝 (length 0) 을 가리키므로 segment 를 읽지 않고 넘어갑니다.
+    static long[] seek(Path index, long baseSequence, long fromTimestamp) throws IOException {
+        long[] found = {0, baseSequence};
+        if (fromTimestamp == Long.MIN_VALUE || !Files.exists(index)) {
+            return found;
+        }
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(index));
+        for (int lo = 0, hi = entries.capacity() / SegmentArchive.INDEX_ENTRY_BYTES - 1; lo <= hi; ) {
+            int mid = (lo + hi) >>> 1;
+            int at = mid * SegmentArchive.INDEX_ENTRY_BYTES;
+            if (entries.getLong(at) < fromTimestamp) {
+                found[0] = entries.getInt(at + Long.BYTES + Long.BYTES);
+                found[1] = entries.getLong(at + Long.BYTES);
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static class SegmentIterator implements Iterator<ArchivedRecord> {
+        private final String topic;
+        private final Iterator<Path> segments;
+        private final long fromTimestamp;
+        private MappedByteBuffer segment;
+        private long sequence;
+        private ArchivedRecord next;
+
+        SegmentIterator(String topic, List<Path> segments, long fromTimestamp) {
+            this.topic = topic;
+            this.segments = segments.iterator();
+            this.fromTimestamp = fromTimestamp;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (segment == null || !advance()) {
+                    if (!segments.hasNext()) {
+                        return false;
+                    }
+                    open(segments.next());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public ArchivedRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ArchivedRecord record = next;
+            next = null;
+            return record;
+        }
+
+        // 다음 record 를 읽어 next 에 둡니다. segment 가 끝나면 false 입니다.
+        private boolean advance() {
+            while (segment.remaining() >= Integer.BYTES) {
+                int position = segment.position();
+                int length = segment.getInt(position);
+                if (length <= 0 || position + Integer.BYTES + length > segment.limit()) {
+                    break;
+                }
+                segment.position(position + Integer.BYTES);
+                long timestamp = segment.getLong();
+                int partition = segment.getInt();
+                long offset = segment.getLong();
+                ByteBuffer key = slice();
+                ByteBuffer value = slice();
+                long recordSequence = sequence++;
+                if (timestamp >= fromTimestamp) {
+                    next = new ArchivedRecord(topic, recordSequence, timestamp, partition, offset, key, value);
+                    return true;
+                }
+            }
+            segment = null;
+            return false;
+        }
+
+        private ByteBuffer slice() {
+            int length = segment.getInt();
+            if (length < 0) {
+                return null;
+            }
+            ByteBuffer slice = segment.slice(segment.position(), length).asReadOnlyBuffer();
+            segment.position(segment.position() + length);
+            return slice;
+        }
+
+        private void open(Path file) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                String name = file.getFileName().toString();
+                Path index = file.resolveSibling(name.substring(0, name.length() - SegmentArchive.SEGMENT_SUFFIX.length())
+                        + SegmentArchive.INDEX_SUFFIX);
+                long[] start = seek(index, SegmentArchive.sequenceOf(file), fromTimestamp);
+                mapped.position((int) start[0]);
+                sequence = start[1];
+                segment = mapped;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class PeekingIterator {
+        final int topicOrder;
+        final Iterator<ArchivedRecord> records;
+        final long toTimestamp;
+        ArchivedRecord head;
+
+        PeekingIterator(int topicOrder, Iterator<ArchivedRecord> records, long toTimestamp) {
+            this.topicOrder = topicOrder;
+            this.records = records;
+            this.toTimestamp = toTimestamp;
+        }
+
+        // timestamp 가 to 이후인 record 는 건너뜁니다. (partition 안의 timestamp 가 순서대로라는 보장이 없어 끝까지 읽습니다.)
+        boolean hasNext() {
+            while (head == null && records.hasNext()) {
+                ArchivedRecord record = records.next();
+                if (record.timestamp() < toTimestamp) {
+                    head = record;
+                }
+            }
+            return head != null;
+        }
+
+        ArchivedRecord peek() {
+            return head;
+        }
+
+        ArchivedRecord next() {
+            ArchivedRecord record = head;
+            head = null;
+            return record;
+        }
+    }
+}
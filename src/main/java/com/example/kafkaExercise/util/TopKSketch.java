@@ -0,0 +1,131 @@
+package com.example.kafkaExercise.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 가장 많이 나온 key k 개 (heavy hitters) 를 CountMinSketch 와 후보 k 개만으로 찾습니다.
+// 새 key 의 추정 count 가 후보 중 가장 작은 것보다 크면 그 후보를 내보냅니다. 크기는 k 와 sketch 크기로 고정입니다.
+// merge 는 sketch 를 합친 뒤 양쪽 후보를 합친 sketch 로 다시 추정해 k 개를 고릅니다.
+public class TopKSketch {
+
+    private final int k;
+    private final CountMinSketch sketch;
+    // key -> 추정 count
+    private final Map<String, Long> candidates;
+
+    public TopKSketch(int k, int width, int depth) {
+        this(k, new CountMinSketch(width, depth), new HashMap<>());
+    }
+
+    private TopKSketch(int k, CountMinSketch sketch, Map<String, Long> candidates) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be >= 1 : " + k);
+        }
+        this.k = k;
+        this.sketch = sketch;
+        this.candidates = candidates;
+    }
+
+    public TopKSketch add(String key) {
+        if (key == null) {
+            return this;
+        }
+        long estimate = sketch.add(key, 1);
+        offer(key, estimate);
+        return this;
+    }
+
+    private void offer(String key, long estimate) {
+        if (candidates.containsKey(key) || candidates.size() < k) {
+            candidates.put(key, estimate);
+            return;
+        }
+        String smallest = null;
+        long smallestCount = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (candidate.getValue() < smallestCount) {
+                smallest = candidate.getKey();
+                smallestCount = candidate.getValue();
+            }
+        }
+        if (estimate > smallestCount) {
+            candidates.remove(smallest);
+            candidates.put(key, estimate);
+        }
+    }
+
+    public TopKSketch merge(TopKSketch other) {
+        sketch.merge(other.sketch);
+        List<String> keys = new ArrayList<>(candidates.keySet());
+        for (String key : other.candidates.keySet()) {
+            if (!candidates.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        candidates.clear();
+        for (String key : keys) {
+            offer(key, sketch.estimate(key));
+        }
+        return this;
+    }
+
+    // 추정 count 가 큰 순서
+    public Map<String, Long> top(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        candidates.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    public long total() {
+        return sketch.total();
+    }
+
+    // [k int][sketch][후보 수 int][(key 길이 short, key UTF-8, count long) ...]
+    public byte[] toBytes() {
+        List<byte[]> keys = new ArrayList<>(candidates.size());
+        int size = Integer.BYTES + sketch.sizeInBytes() + Integer.BYTES;
+        for (String key : candidates.keySet()) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            keys.add(bytes);
+            size += Short.BYTES + bytes.length + Long.BYTES;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(k);
+        sketch.write(buf);
+        buf.putInt(candidates.size());
+        int i = 0;
+        for (Long count : candidates.values()) {
+            byte[] key = keys.get(i++);
+            buf.putShort((short) key.length);
+            buf.put(key);
+            buf.putLong(count);
+        }
+        return buf.array();
+    }
+
+    public static TopKSketch fromBytes(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        int k = buf.getInt();
+        CountMinSketch sketch = CountMinSketch.read(buf);
+        int count = buf.getInt();
+        Map<String, Long> candidates = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[buf.getShort() & 0xFFFF];
+            buf.get(key);
+            candidates.put(new String(key, StandardCharsets.UTF_8), buf.getLong());
+        }
+        return new TopKSketch(k, sketch, candidates);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.kafkaExercise.util;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties.WireFormat;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 값의 class 로 serializer 를 골라주는 value serializer 입니다.
+// 한 KafkaProducer 로 여러 VO 를 보낼 수 있어 Topic/VO 마다 producer 를 따로 만들지 않아도 됩니다.
+public class TypeDispatchingSerializer implements Serializer<Object> {
+
+    private final Map<Class<?>, Serializer<Object>> registry = new ConcurrentHashMap<>();
+
+    // wireFormat 에 맞춰 이 프로젝트의 VO 와 String 을 등록합니다.
+    public static TypeDispatchingSerializer forWireFormat(WireFormat wireFormat) {
+        boolean binary = wireFormat == WireFormat.BINARY;
+        return new TypeDispatchingSerializer()
+                .register(String.class, new StringSerializer())
+                .register(WatchingAdLog.class, binary ? new WatchingAdLogBinarySerializer() : new WatchingAdLogSerializer())
+                .register(PurchaseLog.class, binary ? new PurchaseLogBinarySerializer() : new PurchaseLogSerializer())
+                .register(PurchaseLogOneProduct.class, binary ? new PurchaseLogOneProductBinarySerializer() : new PurchaseLogOneProductSerializer())
+                .register(EffectOrNot.class, binary ? new EffectOrNotBinarySerializer() : new JsonSerializer<EffectOrNot>());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> TypeDispatchingSerializer register(Class<T> type, Serializer<? super T> serializer) {
+        registry.put(type, (Serializer<Object>) serializer);
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        return serializerFor(data.getClass()).serialize(topic, data);
+    }
+
+    // 등록되지 않은 하위 class 는 상위 class 의 serializer 를 찾아 함께 등록해둡니다.
+    private Serializer<Object> serializerFor(Class<?> type) {
+        Serializer<Object> serializer = registry.get(type);
+        if (serializer != null) {
+            return serializer;
+        }
+        for (Class<?> parent = type.getSuperclass(); parent != null; parent = parent.getSuperclass()) {
+            serializer = registry.get(parent);
+            if (serializer != null) {
+                registry.put(type, serializer);
+                return serializer;
+            }
+        }
+        throw new SerializationException("No serializer registered for " + type.getName());
+    }
+
+    @Override
+    public void close() {
+        registry.values().stream().distinct().forEach(Serializer::close);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+
+import java.nio.ByteBuffer;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class WatchingAdLogBinarySerializer extends BinarySerializer<WatchingAdLog> {
+
+    @Override
+    protected int sizeOf(WatchingAdLog data) {
+        return sizeOfString(data.getUserId())
+                + sizeOfString(data.getProductId())
+                + sizeOfString(data.getAdId())
+                + sizeOfAdType(data.getAdType())
+                + sizeOfNumber(data.getWatchingTime())
+                + sizeOfNumber(data.getWatchingDt());
+    }
+
+    @Override
+    protected void write(ByteBuffer buf, WatchingAdLog data) {
+        writeString(buf, data.getUserId());
+        writeString(buf, data.getProductId());
+        writeString(buf, data.getAdId());
+        writeAdType(buf, data.getAdType());
+        writeNumber(buf, data.getWatchingTime());
+        writeNumber(buf, data.getWatchingDt());
+    }
+}
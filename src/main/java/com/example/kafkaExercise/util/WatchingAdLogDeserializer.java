@@ -0,0 +1,25 @@
+package com.example.kafkaExercise.util;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+
+import java.nio.ByteBuffer;
+
+import static com.example.kafkaExercise.util.BinaryCodec.*;
+
+public class WatchingAdLogDeserializer extends DualFormatDeserializer<WatchingAdLog> {
+
+    public WatchingAdLogDeserializer() {
+        super(WatchingAdLog.class);
+    }
+
+    @Override
+    protected WatchingAdLog read(ByteBuffer buf) {
+        WatchingAdLog data = new WatchingAdLog();
+        data.setUserId(readString(buf));
+        data.setProductId(readString(buf));
+        data.setAdId(readString(buf));
+        data.setAdType(readAdType(buf));
+        data.setWatchingTime(readNumber(buf));
+        data.setWatchingDt(readNumber(buf));
+        return data;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// adId / adType 별 window 집계값
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdStats {
+
+    long views;   // 광고 시청 수 (WatchingAdLog)
+    long orders;  // 광고에 귀속된 구매 수 (EffectOrNot)
+    long revenue; // 귀속된 구매의 price 합계
+
+    public AdStats add(AdStats other) {
+        views += other.views;
+        orders += other.orders;
+        revenue += other.revenue;
+        return this;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// /stats 조회 결과 1건 (window 1개)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdStatsWindow {
+
+    String key;        // adId 또는 adType
+    long windowStart;  // epoch ms
+    long windowEnd;
+    long views;
+    long orders;
+    long revenue;
+    double conversionRate; // orders / views, 시청이 없으면 0
+}
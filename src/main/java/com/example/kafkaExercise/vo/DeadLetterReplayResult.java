@@ -0,0 +1,17 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetterReplayResult {
+
+    String topic;           // 다시 넣은 source Topic
+    String deadLetterTopic;
+    long replayed;          // source Topic 으로 다시 보낸 record 수
+    long exhausted;         // maxReplays 만큼 이미 다시 넣었던 record 수. dead letter Topic 에만 남습니다.
+    long remaining;         // 이번에 읽지 않고 남은 record 수
+}
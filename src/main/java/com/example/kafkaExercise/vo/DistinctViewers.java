@@ -0,0 +1,18 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// /sketches/.../viewers 조회 결과. from ~ to 에 걸친 window 들을 합친 고유 시청자 수입니다.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DistinctViewers {
+
+    String key;            // adId 또는 adType
+    long from;             // 합친 첫 window 시작 (epoch ms), window 가 없으면 요청한 from
+    long to;               // 합친 마지막 window 끝
+    int windows;           // 합친 window 수
+    long distinctViewers;  // HyperLogLog 추정값 (precision 12 기준 오차 약 1.6%)
+}
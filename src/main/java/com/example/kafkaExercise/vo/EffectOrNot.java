@@ -17,4 +17,5 @@ public class EffectOrNot {
     String userId; //
     String orderId;
     Map<String, String> productInfo;
+    String adType; // banner, clip, main, live (광고 종류별 집계에 사용)
 }
@@ -0,0 +1,31 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestAck {
+
+    String topic;
+    long received;     // body 에서 읽은 record 수
+    long acked;        // broker 가 ack 한 record 수
+    long failed;       // 파싱 실패 + send 실패
+    boolean throttled; // buffer 부족으로 중간에 멈춘 경우 true, 클라이언트는 received 이후부터 다시 보내면 됩니다.
+    boolean timedOut;  // ackTimeout 안에 모든 결과를 받지 못한 경우 true
+    Map<Integer, OffsetRange> offsets; // partition 별 offset 범위
+    List<String> errors;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class OffsetRange {
+        long first;
+        long last;
+    }
+}
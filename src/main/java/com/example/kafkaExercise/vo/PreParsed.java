@@ -0,0 +1,35 @@
+package com.example.kafkaExercise.vo;
+
+// VO 의 숫자 String 필드를 setter (JSON / binary deserialize) 에서 한 번만 parse 해두기 위한 함수입니다.
+final class PreParsed {
+
+    // 숫자가 아니어서 parse 하지 못한 값
+    static final int INVALID = Integer.MIN_VALUE;
+
+    private PreParsed() {
+    }
+
+    static int parseInt(String s) {
+        if (s == null || s.isEmpty()) {
+            return INVALID;
+        }
+        int i = s.charAt(0) == '-' ? 1 : 0;
+        if (i == s.length() || s.length() - i > 9) {
+            // 10자리 이상은 overflow 판단을 Integer.parseInt 에 맡깁니다.
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                return INVALID;
+            }
+        }
+        int value = 0;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return s.charAt(0) == '-' ? -value : value;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductCatalog {
+
+    // SAMPLE DATA (productCatalog Topic, key = productId)
+    // {"productId": "pg-0001", "category": "shoes", "brand": "acme", "margin": "0.23"}
+
+    String productId; // pg-0001
+    String category;
+    String brand;
+    String margin; // 매출 대비 이익률
+}
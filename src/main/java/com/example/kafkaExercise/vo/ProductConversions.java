@@ -0,0 +1,15 @@
+package com.example.kafkaExercise.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// /sketches/products/top 조회 결과 1건
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductConversions {
+
+    String productId;
+    long conversions; // 광고에 귀속된 구매 수 추정값 (CountMinSketch, 실제보다 작지 않습니다)
+}
@@ -0,0 +1,147 @@
+package com.example.kafkaExercise.vo;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// join 결과 (EffectOrNot.productInfo) 의 {"productId", "price"} 입니다.
+// join 마다 HashMap (table, node) 을 만들지 않도록 두 값을 field 로 들고 있는 읽기 전용 Map 입니다.
+// JSON / binary 직렬화와 equals 는 같은 내용의 HashMap 과 같습니다.
+// catalog 를 붙이면 category, brand, margin 중 값이 있는 key 가 더해집니다. (binary 에서는 extra key 로 씁니다.)
+public final class ProductInfo extends AbstractMap<String, String> {
+
+    public static final String PRODUCT_ID = "productId";
+    public static final String PRICE = "price";
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String MARGIN = "margin";
+
+    private static final String[] KEYS = {PRODUCT_ID, PRICE, CATEGORY, BRAND, MARGIN};
+
+    private final String productId;
+    private final String price;
+    // price 를 parse 해둔 값 (집계에서 다시 parse 하지 않습니다.)
+    private final int priceValue;
+    private final ProductCatalog catalog;
+    private final int size;
+
+    private ProductInfo(String productId, String price, int priceValue, ProductCatalog catalog) {
+        this.productId = productId;
+        this.price = price;
+        this.priceValue = priceValue;
+        this.catalog = catalog;
+        int size = 0;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (present(i)) {
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    public static ProductInfo of(PurchaseLogOneProduct product) {
+        return new ProductInfo(product.getProductId(), product.getPrice(), product.priceValue, null);
+    }
+
+    // catalog 의 값을 붙인 사본을 돌려줍니다. catalog 가 null 이면 자기 자신입니다.
+    public ProductInfo withCatalog(ProductCatalog catalog) {
+        return catalog == null ? this : new ProductInfo(productId, price, priceValue, catalog);
+    }
+
+    public boolean hasPriceValue() {
+        return priceValue != PreParsed.INVALID;
+    }
+
+    public int priceValue() {
+        return priceValue;
+    }
+
+    private String value(int index) {
+        switch (index) {
+            case 0:
+                return productId;
+            case 1:
+                return price;
+            case 2:
+                return catalog == null ? null : catalog.getCategory();
+            case 3:
+                return catalog == null ? null : catalog.getBrand();
+            case 4:
+                return catalog == null ? null : catalog.getMargin();
+            default:
+                return null;
+        }
+    }
+
+    // productId, price 는 값이 null 이어도 key 가 있습니다. (기존 직렬화와 같게)
+    private boolean present(int index) {
+        return index < 2 || value(index) != null;
+    }
+
+    private static int indexOf(Object key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : value(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = indexOf(key);
+        return index >= 0 && present(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    int next = skip(0);
+
+                    private int skip(int from) {
+                        while (from < KEYS.length && !present(from)) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < KEYS.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (next >= KEYS.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(KEYS[next], value(next));
+                        next = skip(next + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
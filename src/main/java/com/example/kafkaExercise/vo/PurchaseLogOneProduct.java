@@ -1,6 +1,10 @@
 package com.example.kafkaExercise.vo;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public class PurchaseLogOneProduct {
@@ -10,4 +14,23 @@ public class PurchaseLogOneProduct {
     String productId; // pg-0001
     String purchasedDt; // 20230201070000
     String price; // 24000
+
+    // price 를 숫자로 parse 해둔 값. 직렬화 형식에는 들어가지 않습니다.
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) @ToString.Exclude
+    transient int priceValue = PreParsed.INVALID;
+
+    public void setPrice(String price) {
+        setPrice(price, PreParsed.parseInt(price));
+    }
+
+    // 이미 parse 한 값이 있으면 (상품 split) 다시 parse 하지 않습니다.
+    public void setPrice(String price, int priceValue) {
+        this.price = price;
+        this.priceValue = priceValue;
+    }
+
+    // 숫자가 아니면 NumberFormatException 을 던집니다.
+    public int priceValue() {
+        return priceValue != PreParsed.INVALID ? priceValue : Integer.parseInt(price);
+    }
 }
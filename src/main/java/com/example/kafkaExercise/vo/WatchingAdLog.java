@@ -1,6 +1,10 @@
 package com.example.kafkaExercise.vo;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public class WatchingAdLog {
@@ -14,4 +18,18 @@ public class WatchingAdLog {
     String adType; // banner, clip, main, live
     String watchingTime; // 머문시간
     String watchingDt; // 20230201070000
+
+    // watchingTime 을 숫자로 parse 해둔 값. 직렬화 형식에는 들어가지 않습니다.
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) @ToString.Exclude
+    transient int watchingSeconds = PreParsed.INVALID;
+
+    public void setWatchingTime(String watchingTime) {
+        this.watchingTime = watchingTime;
+        this.watchingSeconds = PreParsed.parseInt(watchingTime);
+    }
+
+    // 숫자가 아니면 기존과 같이 NumberFormatException 을 던집니다.
+    public int watchingSeconds() {
+        return watchingSeconds != PreParsed.INVALID ? watchingSeconds : Integer.parseInt(watchingTime);
+    }
 }
@@ -0,0 +1,9 @@
+-- JdbcEffectOrNotSink (kafka.consumer.jdbc.enabled=true) 가 쓰는 table. 내장 DB 일 때만 기동 시 실행됩니다.
+CREATE TABLE IF NOT EXISTS ad_evaluation_complete (
+    order_id   VARCHAR(64),
+    ad_id      VARCHAR(64),
+    user_id    VARCHAR(64),
+    ad_type    VARCHAR(16),
+    product_id VARCHAR(64),
+    price      VARCHAR(32)
+);
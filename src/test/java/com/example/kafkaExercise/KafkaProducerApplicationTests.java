@@ -1,13 +1,24 @@
 package com.example.kafkaExercise;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 class KafkaProducerApplicationTests {
 
+    @Autowired
+    ApplicationContext context;
+
     @Test
     void contextLoads() {
+        // kafka.consumer.jdbc.enabled=false 면 DataSource (내장 DB 포함) 를 만들지 않습니다.
+        assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
     }
 
 }
@@ -0,0 +1,100 @@
+package com.example.kafkaExercise.config;
+
+import com.example.kafkaExercise.service.ConsumerService;
+import com.example.kafkaExercise.util.DeadLetterPublisher;
+import com.example.kafkaExercise.util.EffectOrNotDeserializer;
+import com.example.kafkaExercise.util.TypeDispatchingSerializer;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KafkaConfigTest {
+
+    static final TopicPartition PARTITION = new TopicPartition("AdEvaluationComplete", 0);
+
+    @Test
+    void failedBatchIsRetriedUpToMaxAttemptsThenDeadLettered() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        DefaultErrorHandler errorHandler = errorHandler(producer);
+        AtomicInteger retries = new AtomicInteger();
+
+        errorHandler.handleBatch(new TransientDataAccessResourceException("db down"), batch(), consumer(), container(), () -> {
+            retries.incrementAndGet();
+            throw new TransientDataAccessResourceException("db down");
+        });
+
+        // 첫 시도는 listener 가 이미 했으므로 2번 더 넘긴 뒤 batch 전체를 보냅니다.
+        assertThat(retries).hasValue(2);
+        assertThat(producer.history()).extracting(ProducerRecord::topic).containsExactly("AdEvaluationComplete-dlq", "AdEvaluationComplete-dlq");
+        // Streams 의 dead letter 와 같은 header 라 DeadLetterReplayService 로 다시 넣을 수 있습니다.
+        ProducerRecord<byte[], byte[]> deadLetter = producer.history().get(1);
+        assertThat(DeadLetterPublisher.header(deadLetter.headers(), DeadLetterPublisher.SOURCE_TOPIC)).isEqualTo("AdEvaluationComplete");
+        assertThat(DeadLetterPublisher.header(deadLetter.headers(), DeadLetterPublisher.SOURCE_OFFSET)).isEqualTo("1");
+        assertThat(DeadLetterPublisher.header(deadLetter.headers(), DeadLetterPublisher.STAGE)).isEqualTo(ConsumerService.DEAD_LETTER_STAGE);
+        assertThat(DeadLetterPublisher.header(deadLetter.headers(), DeadLetterPublisher.ERROR_CLASS))
+                .isEqualTo(TransientDataAccessResourceException.class.getName());
+        assertThat(new String(deadLetter.key(), StandardCharsets.UTF_8)).isEqualTo("uid-1_pg-1");
+        assertThat(new EffectOrNotDeserializer().deserialize("AdEvaluationComplete", deadLetter.value()).getUserId()).isEqualTo("uid-1");
+    }
+
+    @Test
+    void nonTransientSinkErrorIsDeadLetteredWithoutRetry() {
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        DefaultErrorHandler errorHandler = errorHandler(producer);
+        AtomicInteger retries = new AtomicInteger();
+
+        errorHandler.handleBatch(new DataIntegrityViolationException("duplicate"), batch(), consumer(), container(), retries::incrementAndGet);
+
+        assertThat(retries).hasValue(0);
+        assertThat(producer.history()).hasSize(2);
+    }
+
+    // max-attempts 3, 간격 0
+    private static DefaultErrorHandler errorHandler(MockProducer<byte[], byte[]> producer) {
+        ConsumerProperties properties = new ConsumerProperties();
+        properties.setMaxAttempts(3);
+        properties.setRetryBackoffMs(0);
+        return KafkaConfig.effectOrNotErrorHandler(new DeadLetterPublisher(() -> producer, "-dlq", null),
+                TypeDispatchingSerializer.forWireFormat(AdEvaluationProperties.WireFormat.JSON), properties);
+    }
+
+    private static ConsumerRecords<String, EffectOrNot> batch() {
+        EffectOrNot value = new EffectOrNot("ad-1", "uid-1", "od-1", Map.of("productId", "pg-1", "price", "12000"), "banner");
+        return new ConsumerRecords<>(Map.of(PARTITION, List.of(
+                new ConsumerRecord<>(PARTITION.topic(), 0, 0, "uid-1_pg-1", value),
+                new ConsumerRecord<>(PARTITION.topic(), 0, 1, "uid-1_pg-1", value))));
+    }
+
+    private static MockConsumer<String, EffectOrNot> consumer() {
+        MockConsumer<String, EffectOrNot> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        return consumer;
+    }
+
+    private static MessageListenerContainer container() {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        return container;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.kafkaExercise.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProducerProfilePropertiesTest {
+
+    @Test
+    void topicsUseMappedProfileOrDefault() {
+        ProducerProfileProperties properties = new ProducerProfileProperties();
+        ProducerProfileProperties.Profile highThroughput = new ProducerProfileProperties.Profile();
+        highThroughput.setLingerMs(20);
+        highThroughput.setCompressionType("lz4");
+        properties.getProfiles().put("high-throughput", highThroughput);
+        properties.getTopics().put("adLog", "high-throughput");
+
+        properties.validate();
+
+        assertThat(properties.profileFor("adLog").toProducerConfig())
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 20L)
+                .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        assertThat(properties.profileNameFor("AdEvaluationComplete")).isEqualTo(ProducerProfileProperties.LOW_LATENCY);
+        assertThat(properties.profileFor("AdEvaluationComplete").toProducerConfig())
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 0L);
+    }
+
+    @Test
+    void invalidProfilesAreReportedTogether() {
+        ProducerProfileProperties properties = new ProducerProfileProperties();
+        ProducerProfileProperties.Profile broken = new ProducerProfileProperties.Profile();
+        broken.setCompressionType("brotli");
+        broken.setAcks("1");
+        broken.setBufferMemory(1024);
+        properties.getProfiles().put("broken", broken);
+        properties.getTopics().put("purchaseLog", "missing");
+
+        assertThatThrownBy(properties::validate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("topics.purchaseLog refers to undefined profile 'missing'")
+                .hasMessageContaining("profiles.broken.compression-type")
+                .hasMessageContaining("profiles.broken.buffer-memory")
+                .hasMessageContaining("profiles.broken.enable-idempotence requires acks=all");
+    }
+}
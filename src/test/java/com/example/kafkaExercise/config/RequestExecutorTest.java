@@ -0,0 +1,80 @@
+package com.example.kafkaExercise.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestExecutorTest {
+
+    @Test
+    void asyncModeRunsOnDispatchPoolAndRejectsWhenQueueIsFull() throws Exception {
+        WebExecutionProperties properties = new WebExecutionProperties();
+        properties.setMode(WebExecutionProperties.Mode.ASYNC);
+        properties.setDispatchThreads(1);
+        properties.setDispatchQueueCapacity(1);
+        RequestExecutor executor = new RequestExecutor(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> ack = new CompletableFuture<>();
+            CompletableFuture<String> running = executor.submit(() -> {
+                await(release);
+                return ack;
+            });
+            CompletableFuture<String> queued = executor.submit(() -> CompletableFuture.completedFuture("queued"));
+            CompletableFuture<String> rejected = executor.submit(() -> CompletableFuture.completedFuture("rejected"));
+
+            assertThat(rejected).isCompletedExceptionally();
+            assertThat(rejected.handle((v, ex) -> ex).get()).isInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+            assertThat(queued.get()).isEqualTo("queued");
+            // ack 전에는 응답이 완료되지 않고, ack callback 에서 이어서 완료됩니다.
+            assertThat(running).isNotDone();
+            ack.complete("acked");
+            assertThat(running.get()).isEqualTo("acked");
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    void blockingModeWaitsForAckOnCallerThread() {
+        RequestExecutor executor = new RequestExecutor(new WebExecutionProperties());
+
+        CompletableFuture<String> result = executor.submit(() -> CompletableFuture.supplyAsync(() -> "acked"));
+        CompletableFuture<String> failed = executor.submit(() -> CompletableFuture.failedFuture(new IllegalStateException("nack")));
+
+        assertThat(result).isCompletedWithValue("acked");
+        assertThat(failed.handle((v, ex) -> ex).join()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void virtualModeFallsBackToAsyncWithoutVirtualThreads() {
+        WebExecutionProperties properties = new WebExecutionProperties();
+        properties.setMode(WebExecutionProperties.Mode.VIRTUAL);
+        RequestExecutor executor = new RequestExecutor(properties);
+        try {
+            if (RequestExecutor.newVirtualThreadPerTaskExecutor() == null) {
+                assertThat(executor.mode()).isEqualTo(WebExecutionProperties.Mode.ASYNC);
+                assertThat(executor.virtualExecutor()).isNull();
+            } else {
+                assertThat(executor.mode()).isEqualTo(WebExecutionProperties.Mode.VIRTUAL);
+                assertThat(executor.virtualExecutor()).isNotNull();
+            }
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
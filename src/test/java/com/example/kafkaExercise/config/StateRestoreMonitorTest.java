@@ -0,0 +1,86 @@
+package com.example.kafkaExercise.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.KafkaStreams;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateRestoreMonitorTest {
+
+    @Test
+    void reportsRestoreProgressEtaAndReadiness() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AtomicLong now = new AtomicLong();
+        StateRestoreMonitor monitor = new StateRestoreMonitor(registry, true, now::get);
+        TopicPartition adStore = new TopicPartition("lecture-6-adStore-changelog", 0);
+        TopicPartition purchaseLogStore = new TopicPartition("lecture-6-purchaseLogStore-changelog", 0);
+
+        monitor.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.CREATED);
+        monitor.onRestoreStart(adStore, "adStore", 0, 100_000);
+        monitor.onRestoreStart(purchaseLogStore, "purchaseLogStore", 50_000, 150_000);
+        assertThat(monitor.remainingRecords()).isEqualTo(200_000);
+        assertThat(monitor.etaSeconds()).isEqualTo(-1);
+
+        // 2초에 50,000 건 복구 -> 남은 150,000 건은 6초
+        now.set(TimeUnit.SECONDS.toNanos(2));
+        monitor.onBatchRestored(adStore, "adStore", 30_000, 30_000);
+        monitor.onBatchRestored(purchaseLogStore, "purchaseLogStore", 70_000, 20_000);
+        assertThat(monitor.remainingRecords()).isEqualTo(150_000);
+        assertThat(monitor.etaSeconds()).isEqualTo(6);
+        assertThat(registry.get("kafka.streams.restore.remaining").gauge().value()).isEqualTo(150_000);
+        assertThat(registry.get("kafka.streams.restore.records").tag("store", "adStore").counter().count()).isEqualTo(30_000);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.DOWN);
+
+        monitor.onRestoreEnd(adStore, "adStore", 100_000);
+        monitor.onRestoreEnd(purchaseLogStore, "purchaseLogStore", 100_000);
+        assertThat(monitor.remainingRecords()).isZero();
+        assertThat(registry.get("kafka.streams.restore.partitions").gauge().value()).isZero();
+        assertThat(registry.get("kafka.streams.restore.duration").tag("store", "adStore").timer().count()).isEqualTo(1);
+        // 복구가 끝나도 RUNNING 이 되기 전에는 ready 가 아닙니다.
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.DOWN);
+
+        monitor.onChange(KafkaStreams.State.RUNNING, KafkaStreams.State.REBALANCING);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void staysReadyWhileRebalancingAfterFirstRunning() {
+        StateRestoreMonitor monitor = new StateRestoreMonitor(new SimpleMeterRegistry(), true, () -> 0L);
+        TopicPartition adStore = new TopicPartition("lecture-6-adStore-changelog", 0);
+
+        // 처음 RUNNING 이 되기 전의 REBALANCING 은 ready 가 아닙니다.
+        monitor.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.CREATED);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.DOWN);
+
+        monitor.onChange(KafkaStreams.State.RUNNING, KafkaStreams.State.REBALANCING);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.UP);
+
+        monitor.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.RUNNING);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.UP);
+
+        // rebalance 로 받은 active task 를 복구하는 동안에는 DOWN
+        monitor.onRestoreStart(adStore, "adStore", 0, 1_000);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.DOWN);
+        monitor.onRestoreEnd(adStore, "adStore", 1_000);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.UP);
+
+        monitor.onChange(KafkaStreams.State.RUNNING, KafkaStreams.State.REBALANCING);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.UP);
+
+        monitor.onChange(KafkaStreams.State.PENDING_SHUTDOWN, KafkaStreams.State.RUNNING);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void readyWhenAdEvaluationPipelineIsNotStarted() {
+        // 시작하지 않은 pipeline 은 CREATED 에 머물러도 readiness 를 막지 않습니다.
+        StateRestoreMonitor monitor = new StateRestoreMonitor(new SimpleMeterRegistry(), false, () -> 0L);
+        assertThat(monitor.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
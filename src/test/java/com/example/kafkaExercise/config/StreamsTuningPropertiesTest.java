@@ -0,0 +1,69 @@
+package com.example.kafkaExercise.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamsTuningPropertiesTest {
+
+    @Test
+    void commitIntervalDefaultsFollowProcessingGuarantee() {
+        StreamsTuningProperties properties = new StreamsTuningProperties();
+        assertThat(properties.effectiveCommitIntervalMs()).isEqualTo(30000);
+
+        properties.setProcessingGuarantee(StreamsTuningProperties.ProcessingGuarantee.EXACTLY_ONCE_V2);
+        assertThat(properties.effectiveCommitIntervalMs()).isEqualTo(100);
+        properties.validate();
+
+        properties.setCommitIntervalMs(500L);
+        assertThat(properties.effectiveCommitIntervalMs()).isEqualTo(500);
+    }
+
+    @Test
+    void transactionTimeoutMustExceedCommitInterval() {
+        StreamsTuningProperties properties = new StreamsTuningProperties();
+        properties.setProcessingGuarantee(StreamsTuningProperties.ProcessingGuarantee.EXACTLY_ONCE_V2);
+        properties.setCommitIntervalMs(30000L);
+
+        assertThatThrownBy(properties::validate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("transaction-timeout-ms");
+    }
+
+    @Test
+    void restoreSettingsAreValidated() {
+        StreamsTuningProperties properties = new StreamsTuningProperties();
+        properties.validate();
+
+        properties.getRestore().setProbingRebalanceInterval(Duration.ofSeconds(30));
+        properties.getRestore().setMaxPollRecords(0);
+        assertThatThrownBy(properties::validate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("probing-rebalance-interval")
+                .hasMessageContaining("max-poll-records");
+    }
+
+    @Test
+    void pipelinesFallBackToSharedSettingsAndNeedDistinctApplicationIds() {
+        StreamsTuningProperties properties = new StreamsTuningProperties();
+        properties.setNumStreamThreads(2);
+        assertThat(properties.applicationId(StreamsTuningProperties.Pipeline.AD_EVALUATION)).isEqualTo("lecture-6");
+        assertThat(properties.pipeline("stream-join").isEnabled()).isFalse();
+
+        StreamsTuningProperties.Pipeline streamJoin = new StreamsTuningProperties.Pipeline();
+        streamJoin.setNumStreamThreads(4);
+        properties.getPipelines().put("stream-join", streamJoin);
+        assertThat(properties.applicationId("stream-join")).isEqualTo("stream-join");
+        assertThat(properties.numStreamThreads("stream-join")).isEqualTo(4);
+        assertThat(properties.numStreamThreads(StreamsTuningProperties.Pipeline.AD_EVALUATION)).isEqualTo(2);
+        properties.validate();
+
+        streamJoin.setApplicationId("lecture-6");
+        assertThatThrownBy(properties::validate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("pipelines.stream-join.application-id");
+    }
+}
@@ -0,0 +1,804 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.config.BoundedMemoryRocksDBConfig;
+import com.example.kafkaExercise.config.PipelineMetrics;
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import com.example.kafkaExercise.util.DeadLetterDeserializationExceptionHandler;
+import com.example.kafkaExercise.util.DeadLetterPublisher;
+import com.example.kafkaExercise.util.EffectOrNotDeserializer;
+import com.example.kafkaExercise.util.HyperLogLog;
+import com.example.kafkaExercise.util.ProductCatalogSerializer;
+import com.example.kafkaExercise.util.PurchaseLogBinarySerializer;
+import com.example.kafkaExercise.util.PurchaseLogOneProductSerializer;
+import com.example.kafkaExercise.util.PurchaseLogSerializer;
+import com.example.kafkaExercise.util.SegmentArchiveReader;
+import com.example.kafkaExercise.util.TopKSketch;
+import com.example.kafkaExercise.util.WatchingAdLogBinarySerializer;
+import com.example.kafkaExercise.util.WatchingAdLogDeserializer;
+import com.example.kafkaExercise.util.WatchingAdLogSerializer;
+import com.example.kafkaExercise.vo.AdStats;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.ProductCatalog;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class AdEvaluationServiceTest {
+
+    static final DateTimeFormatter EVENT_DT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    @TempDir
+    File stateDir;
+
+    // foreach 안에서 produce 되는 메세지를 Topic 대신 담아둡니다.
+    static class RecordingProducer extends Producer {
+        final List<PurchaseLogOneProduct> sent = new ArrayList<>();
+
+        @Override
+        public void sendJoinedMsg(String topicNm, Object msg) {
+            sent.add((PurchaseLogOneProduct) msg);
+        }
+    }
+
+    @Test
+    void flatMapSplitProducesSameOutputAsRepublish() {
+        List<WatchingAdLog> ads = new ArrayList<>();
+        List<PurchaseLog> purchases = new ArrayList<>();
+        generate(new Random(42), 300, ads, purchases);
+
+        List<KeyValue<String, EffectOrNot>> republished = runRepublish(ads, purchases);
+        List<KeyValue<String, EffectOrNot>> flatMapped = runFlatMap(ads, purchases);
+
+        assertThat(republished).isNotEmpty();
+        assertThat(flatMapped).containsExactlyElementsOf(republished);
+    }
+
+    @Test
+    void exactlyOnceRepublishSplitsThroughStreamsProducer() {
+        List<WatchingAdLog> ads = new ArrayList<>();
+        List<PurchaseLog> purchases = new ArrayList<>();
+        generate(new Random(42), 100, ads, purchases);
+        List<KeyValue<String, EffectOrNot>> republished = runRepublish(ads, purchases);
+
+        RecordingProducer producer = new RecordingProducer();
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.REPUBLISH);
+        StreamsTuningProperties tuning = new StreamsTuningProperties();
+        tuning.setProcessingGuarantee(StreamsTuningProperties.ProcessingGuarantee.EXACTLY_ONCE_V2);
+        Properties exactlyOnce = new Properties();
+        exactlyOnce.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+
+        try (TopologyTestDriver driver = driver(new AdEvaluationService(producer, properties, tuning), exactlyOnce)) {
+            pipeAds(driver, ads);
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            for (PurchaseLog purchase : purchases) {
+                purchaseLog.pipeInput(purchase);
+            }
+            // 나눈 상품은 KafkaTemplate 이 아니라 topology 의 sink 로 나가고, driver 가 purchaseLogOneProduct 로 다시 읽습니다.
+            assertThat(producer.sent).isEmpty();
+            assertThat(output(driver).readKeyValuesToList()).containsExactlyElementsOf(republished);
+        }
+    }
+
+    @Test
+    void binaryWireFormatReadsMixedInputAndProducesSameOutput() {
+        List<WatchingAdLog> ads = new ArrayList<>();
+        List<PurchaseLog> purchases = new ArrayList<>();
+        generate(new Random(3), 200, ads, purchases);
+
+        List<KeyValue<String, EffectOrNot>> json = runFlatMap(ads, purchases);
+
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.setWireFormat(AdEvaluationProperties.WireFormat.BINARY);
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties)) {
+            // 전환 기간처럼 JSON 과 binary 가 한 Topic 에 섞여 들어옵니다.
+            TestInputTopic<String, WatchingAdLog> adLogJson = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, WatchingAdLog> adLogBinary = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogBinarySerializer());
+            for (int i = 0; i < ads.size(); i++) {
+                (i % 2 == 0 ? adLogJson : adLogBinary).pipeInput(ads.get(i));
+            }
+            TestInputTopic<String, PurchaseLog> purchaseLogJson = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLogBinary = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogBinarySerializer());
+            for (int i = 0; i < purchases.size(); i++) {
+                (i % 2 == 0 ? purchaseLogBinary : purchaseLogJson).pipeInput(purchases.get(i));
+            }
+
+            assertThat(output(driver).readKeyValuesToList()).containsExactlyElementsOf(json);
+        }
+    }
+
+    @Test
+    void adStoreTypesAndBoundedRocksDBProduceSameOutput() {
+        List<WatchingAdLog> ads = new ArrayList<>();
+        List<PurchaseLog> purchases = new ArrayList<>();
+        generate(new Random(11), 150, ads, purchases);
+        List<KeyValue<String, EffectOrNot>> expected = runFlatMap(ads, purchases);
+
+        for (AdEvaluationProperties.StoreType storeType : AdEvaluationProperties.StoreType.values()) {
+            AdEvaluationProperties properties = new AdEvaluationProperties();
+            properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+            properties.setAdStoreType(storeType);
+            Properties extra = new Properties();
+            extra.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfig.class);
+            extra.putAll(BoundedMemoryRocksDBConfig.toStreamsConfig(new StreamsTuningProperties.RocksDb()));
+
+            try (TopologyTestDriver driver = driver(new RecordingProducer(), properties, extra)) {
+                pipeAds(driver, ads);
+                TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                        new StringSerializer(), new PurchaseLogSerializer());
+                purchases.forEach(purchaseLog::pipeInput);
+
+                assertThat(output(driver).readKeyValuesToList()).as(storeType.name()).containsExactlyElementsOf(expected);
+            }
+        }
+        // purchaseLogStore 는 항상 RocksDB 이므로 공유 block cache 가 만들어져 있어야 합니다.
+        assertThat(BoundedMemoryRocksDBConfig.sharedCacheCapacity()).isPositive();
+    }
+
+    @Test
+    void windowedJoinOnlyCreditsPurchasesWithinAttributionWindow() {
+        AdEvaluationProperties properties = windowedProperties();
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+
+            adLog.pipeInput(ad("uid-1", "pg-1", "ad-in-window", "20230201070000"));
+            adLog.pipeInput(ad("uid-2", "pg-2", "ad-too-old", "20230201070000"));
+            adLog.pipeInput(ad("uid-3", "pg-3", "ad-after-purchase", "20230201090000"));
+            purchaseLog.pipeInput(purchase("od-1", "uid-1", "pg-1", "20230201090000"));
+            purchaseLog.pipeInput(purchase("od-3", "uid-3", "pg-3", "20230201080000"));
+            purchaseLog.pipeInput(purchase("od-2", "uid-2", "pg-2", "20230203090000"));
+
+            assertThat(output(driver).readValuesToList()).extracting(EffectOrNot::getAdId).containsExactly("ad-in-window");
+        }
+    }
+
+    @Test
+    void windowedJoinStoreSizeStaysFlatOverLongReplay() {
+        Properties inMemory = new Properties();
+        inMemory.put(StreamsConfig.DEFAULT_DSL_STORE_CONFIG, StreamsConfig.IN_MEMORY);
+
+        AdEvaluationProperties tableProperties = new AdEvaluationProperties();
+        tableProperties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        List<Long> windowedSizes = replayDays(windowedProperties(), inMemory, 30);
+        List<Long> tableSizes = replayDays(tableProperties, inMemory, 30);
+
+        // window(1일) + grace 가 찬 뒤에는 더 늘지 않습니다.
+        long afterWindow = windowedSizes.get(2);
+        assertThat(afterWindow).isPositive();
+        assertThat(windowedSizes.subList(2, windowedSizes.size())).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(afterWindow * 3 / 2));
+        // KTable join 은 지금까지의 모든 key 를 보관합니다.
+        assertThat(tableSizes.get(tableSizes.size() - 1)).isGreaterThan(tableSizes.get(2) * 5);
+    }
+
+    @Test
+    void statsAggregateViewsOrdersAndRevenuePerAdAndAdType() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getStats().setEnabled(true);
+        Properties inMemory = new Properties();
+        inMemory.put(StreamsConfig.DEFAULT_DSL_STORE_CONFIG, StreamsConfig.IN_MEMORY);
+        Instant hour = Instant.parse("2023-02-01T07:00:00Z");
+
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties, inMemory)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+
+            adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201160000"), hour);
+            adLog.pipeInput(null, ad("uid-2", "pg-2", "ad-1", "20230201160000"), hour.plusSeconds(60));
+            WatchingAdLog shortView = ad("uid-3", "pg-3", "ad-1", "20230201160000");
+            shortView.setWatchingTime("5");
+            adLog.pipeInput(null, shortView, hour.plusSeconds(120));
+            WatchingAdLog clip = ad("uid-4", "pg-4", "ad-2", "20230201160000");
+            clip.setAdType("clip");
+            adLog.pipeInput(null, clip, hour.plusSeconds(180));
+            purchaseLog.pipeInput(null, purchase("od-1", "uid-1", "pg-1", "20230201161000"), hour.plusSeconds(600));
+            purchaseLog.pipeInput(null, purchase("od-3", "uid-3", "pg-3", "20230201161000"), hour.plusSeconds(660));
+            purchaseLog.pipeInput(null, purchase("od-4", "uid-4", "pg-4", "20230201161000"), hour.plusSeconds(720));
+
+            WindowStore<String, AdStats> byAd = driver.getWindowStore(AdEvaluationService.AD_STATS_BY_AD + AdEvaluationService.TUMBLING);
+            assertThat(byAd.fetch("ad-1", hour.toEpochMilli())).isEqualTo(new AdStats(3, 1, 24000));
+            assertThat(byAd.fetch("ad-2", hour.toEpochMilli())).isEqualTo(new AdStats(1, 1, 24000));
+
+            WindowStore<String, AdStats> byAdType = driver.getWindowStore(AdEvaluationService.AD_STATS_BY_AD_TYPE + AdEvaluationService.TUMBLING);
+            assertThat(byAdType.fetch("banner", hour.toEpochMilli())).isEqualTo(new AdStats(3, 1, 24000));
+            assertThat(byAdType.fetch("clip", hour.toEpochMilli())).isEqualTo(new AdStats(1, 1, 24000));
+
+            // 24시간 hopping window 는 1시간마다 시작하므로 같은 시청이 24개 window 에 들어갑니다.
+            WindowStore<String, AdStats> hopping = driver.getWindowStore(AdEvaluationService.AD_STATS_BY_AD + AdEvaluationService.HOPPING);
+            try (WindowStoreIterator<AdStats> windows = hopping.fetch("ad-1", hour.minus(Duration.ofHours(23)), hour)) {
+                int count = 0;
+                while (windows.hasNext()) {
+                    assertThat(windows.next().value).isEqualTo(new AdStats(3, 1, 24000));
+                    count++;
+                }
+                assertThat(count).isEqualTo(24);
+            }
+        }
+    }
+
+    @Test
+    void statsCountEachOrderOnceWhenJoinReEmits() {
+        AdEvaluationProperties table = new AdEvaluationProperties();
+        table.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        Properties inMemory = new Properties();
+        inMemory.put(StreamsConfig.DEFAULT_DSL_STORE_CONFIG, StreamsConfig.IN_MEMORY);
+        Instant hour = Instant.parse("2023-02-01T07:00:00Z");
+
+        for (AdEvaluationProperties properties : List.of(table, windowedProperties())) {
+            properties.getStats().setEnabled(true);
+            try (TopologyTestDriver driver = driver(new RecordingProducer(), properties, inMemory)) {
+                TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                        new StringSerializer(), new WatchingAdLogSerializer());
+                TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                        new StringSerializer(), new PurchaseLogSerializer());
+
+                // TABLE 은 구매 뒤 같은 key 의 광고를 다시 보면 od-1 을 다시 내보내고, WINDOWED 는 구매 전 시청마다 내보냅니다.
+                adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201160000"), hour);
+                adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201160500"), hour.plusSeconds(300));
+                purchaseLog.pipeInput(null, purchase("od-1", "uid-1", "pg-1", "20230201161000"), hour.plusSeconds(600));
+                adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201161500"), hour.plusSeconds(900));
+                purchaseLog.pipeInput(null, purchase("od-2", "uid-1", "pg-1", "20230201162000"), hour.plusSeconds(1200));
+                assertThat(output(driver).getQueueSize()).isGreaterThan(2);
+
+                WindowStore<String, AdStats> byAd = driver.getWindowStore(AdEvaluationService.AD_STATS_BY_AD + AdEvaluationService.TUMBLING);
+                assertThat(byAd.fetch("ad-1", hour.toEpochMilli())).as(properties.getJoinMode().name()).isEqualTo(new AdStats(3, 2, 48000));
+            }
+        }
+    }
+
+    @Test
+    void sketchesCountDistinctViewersAndTopProductsPerWindow() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getSketches().setEnabled(true);
+        properties.getSketches().setProductShards(1);
+        Properties inMemory = new Properties();
+        inMemory.put(StreamsConfig.DEFAULT_DSL_STORE_CONFIG, StreamsConfig.IN_MEMORY);
+        Instant day = Instant.parse("2023-02-01T00:00:00Z");
+
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties, inMemory)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            // ad-1 은 사용자 50명이 두 번씩, ad-2 는 3명이 봅니다. pg-1 은 3건, pg-2 는 1건 팔립니다.
+            for (int i = 0; i < 100; i++) {
+                adLog.pipeInput(null, ad("uid-" + (i % 50), "pg-0", "ad-1", "20230201070000"), day.plusSeconds(i));
+            }
+            for (int i = 0; i < 3; i++) {
+                WatchingAdLog clip = ad("uid-" + i, i == 0 ? "pg-2" : "pg-1", "ad-2", "20230201070000");
+                clip.setAdType("clip");
+                adLog.pipeInput(null, clip, day.plusSeconds(200 + i));
+                purchaseLog.pipeInput(null, purchase("od-" + i, "uid-" + i, i == 0 ? "pg-2" : "pg-1", "20230201071000"), day.plusSeconds(300 + i));
+            }
+            adLog.pipeInput(null, ad("uid-99", "pg-1", "ad-3", "20230201070000"), day.plusSeconds(400));
+            purchaseLog.pipeInput(null, purchase("od-99", "uid-99", "pg-1", "20230201071000"), day.plusSeconds(410));
+
+            WindowStore<String, HyperLogLog> byAd = driver.getWindowStore(AdEvaluationService.AD_VIEWERS_BY_AD);
+            assertThat(byAd.fetch("ad-1", day.toEpochMilli()).estimate()).isEqualTo(50);
+            assertThat(byAd.fetch("ad-2", day.toEpochMilli()).estimate()).isEqualTo(3);
+            WindowStore<String, HyperLogLog> byAdType = driver.getWindowStore(AdEvaluationService.AD_VIEWERS_BY_AD_TYPE);
+            assertThat(byAdType.fetch("banner", day.toEpochMilli()).estimate()).isEqualTo(51);
+            assertThat(byAdType.fetch("clip", day.toEpochMilli()).estimate()).isEqualTo(3);
+
+            WindowStore<String, TopKSketch> products = driver.getWindowStore(AdEvaluationService.PRODUCT_CONVERSIONS);
+            assertThat(products.fetch("0", day.toEpochMilli()).top(10)).containsExactly(entry("pg-1", 3L), entry("pg-2", 1L));
+        }
+    }
+
+    @Test
+    void dedupDropsReplayedRecordsWithinWindow() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getDedup().setEnabled(true);
+        properties.getDedup().setExpectedInsertions(1000);
+        Instant t = Instant.parse("2023-02-01T07:00:00Z");
+
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+
+            // producer retry 로 같은 광고 시청, 같은 주문이 한 번 더 들어옵니다.
+            adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201070000"), t);
+            adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201070000"), t.plusSeconds(1));
+            purchaseLog.pipeInput(null, purchase("od-1", "uid-1", "pg-1", "20230201071000"), t.plusSeconds(600));
+            purchaseLog.pipeInput(null, purchase("od-1", "uid-1", "pg-1", "20230201071000"), t.plusSeconds(601));
+            assertThat(output(driver).readValuesToList()).extracting(EffectOrNot::getOrderId).containsExactly("od-1");
+
+            // window(1h) 가 지난 뒤에 다시 온 같은 orderId 는 새 record 로 봅니다.
+            purchaseLog.pipeInput(null, purchase("od-1", "uid-1", "pg-1", "20230201091000"), t.plus(Duration.ofHours(2)));
+            assertThat(output(driver).readValuesToList()).hasSize(1);
+
+            assertThat(dedupMetric(driver, "purchaseLogDedup", "processed-total")).isEqualTo(3.0);
+            assertThat(dedupMetric(driver, "purchaseLogDedup", "duplicate-total")).isEqualTo(1.0);
+            assertThat(dedupMetric(driver, "adLogDedup", "duplicate-total")).isEqualTo(1.0);
+            assertThat(dedupMetric(driver, "adLogDedup", "bloom-filter-bytes")).isPositive();
+        }
+    }
+
+    @Test
+    void deadLetterRoutesBadRecordsAndKeepsProcessing() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getDeadLetter().setEnabled(true);
+        MockProducer<byte[], byte[]> dlqProducer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        DeadLetterPublisher publisher = new DeadLetterPublisher(() -> dlqProducer, "-dlq", null);
+        Properties deadLetter = new Properties();
+        deadLetter.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG, DeadLetterDeserializationExceptionHandler.class);
+        deadLetter.put(DeadLetterPublisher.CONFIG, publisher);
+
+        AdEvaluationService service = new AdEvaluationService(new RecordingProducer(), properties, new StreamsTuningProperties(), publisher);
+        byte[] brokenJson = "{\"userId\": \"uid-1\", ".getBytes(StandardCharsets.UTF_8);
+        try (TopologyTestDriver driver = driver(service, deadLetter)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, byte[]> rawAdLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new ByteArraySerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+
+            rawAdLog.pipeInput("broken", brokenJson);
+            WatchingAdLog badWatchingTime = ad("uid-1", "pg-1", "ad-1", "20230201070000");
+            badWatchingTime.setWatchingTime("30s");
+            adLog.pipeInput(badWatchingTime);
+            PurchaseLog missingPrice = purchase("od-0", "uid-1", "pg-1", "20230201071000");
+            missingPrice.getProductInfo().get(0).remove("price");
+            purchaseLog.pipeInput(missingPrice);
+
+            // 앞의 실패한 record 들과 상관없이 이후 record 는 계속 join 됩니다.
+            adLog.pipeInput(ad("uid-1", "pg-1", "ad-1", "20230201070000"));
+            purchaseLog.pipeInput(purchase("od-1", "uid-1", "pg-1", "20230201071000"));
+            assertThat(output(driver).readValuesToList()).extracting(EffectOrNot::getOrderId).containsExactly("od-1");
+        }
+
+        List<ProducerRecord<byte[], byte[]>> sent = dlqProducer.history();
+        assertThat(sent).extracting(ProducerRecord::topic).containsExactly("adLog-dlq", "adLog-dlq", "purchaseLog-dlq");
+        assertThat(sent).extracting(r -> DeadLetterPublisher.header(r.headers(), DeadLetterPublisher.STAGE))
+                .containsExactly("deserialize", "adLogValidate", "purchaseLogValidate");
+        // 읽지 못한 record 는 받은 byte 그대로, 나머지는 source offset 과 오류 정보가 header 로 붙습니다.
+        assertThat(sent.get(0).value()).isEqualTo(brokenJson);
+        assertThat(DeadLetterPublisher.header(sent.get(1).headers(), DeadLetterPublisher.SOURCE_OFFSET)).isEqualTo("1");
+        assertThat(DeadLetterPublisher.header(sent.get(1).headers(), DeadLetterPublisher.ERROR_CLASS))
+                .isEqualTo(NumberFormatException.class.getName());
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", sent.get(1).value()).getWatchingTime()).isEqualTo("30s");
+        assertThat(publisher.count("adLog")).isEqualTo(2);
+        assertThat(publisher.count("purchaseLog")).isEqualTo(1);
+    }
+
+    @Test
+    void replayedDeadLetterIsJoinedWithDedupEnabled() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getDeadLetter().setEnabled(true);
+        properties.getDedup().setEnabled(true);
+        properties.getDedup().setExpectedInsertions(1000);
+        MockProducer<byte[], byte[]> dlqProducer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        DeadLetterPublisher publisher = new DeadLetterPublisher(() -> dlqProducer, "-dlq", null);
+        Instant t = Instant.parse("2023-02-01T07:00:00Z");
+
+        AdEvaluationService service = new AdEvaluationService(new RecordingProducer(), properties, new StreamsTuningProperties(), publisher);
+        try (TopologyTestDriver driver = driver(service, new Properties())) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            TestInputTopic<byte[], byte[]> rawPurchaseLog = driver.createInputTopic("purchaseLog",
+                    new ByteArraySerializer(), new ByteArraySerializer());
+
+            adLog.pipeInput(null, ad("uid-1", "pg-1", "ad-1", "20230201070000"), t);
+            PurchaseLog missingPrice = purchase("od-1", "uid-1", "pg-1", "20230201071000");
+            missingPrice.getProductInfo().get(0).remove("price");
+            purchaseLog.pipeInput(null, missingPrice, t.plusSeconds(600));
+            assertThat(output(driver).isEmpty()).isTrue();
+
+            ProducerRecord<byte[], byte[]> dead = dlqProducer.history().get(0);
+            assertThat(dead.timestamp()).isEqualTo(t.plusSeconds(600).toEpochMilli());
+
+            // 원인을 고친 뒤 (여기서는 가격을 채운 같은 주문) dedup window 안에 dead letter 에서 다시 넣어도 중복으로 버려지지 않습니다.
+            byte[] fixed = new PurchaseLogSerializer().serialize("purchaseLog", purchase("od-1", "uid-1", "pg-1", "20230201071000"));
+            ConsumerRecord<byte[], byte[]> fromDeadLetter = new ConsumerRecord<>(dead.topic(), 0, 0L, dead.timestamp(),
+                    TimestampType.CREATE_TIME, 0, 0, dead.key(), fixed, dead.headers(), Optional.empty());
+            ProducerRecord<byte[], byte[]> replayed = DeadLetterReplayService.toSource("purchaseLog", fromDeadLetter, 1);
+            assertThat(replayed.timestamp()).isEqualTo(dead.timestamp());
+            rawPurchaseLog.pipeInput(replayed.key(), replayed.value(), replayed.timestamp());
+
+            assertThat(output(driver).readValuesToList()).extracting(EffectOrNot::getOrderId).containsExactly("od-1");
+            assertThat(dedupMetric(driver, "purchaseLogDedup", "duplicate-total")).isZero();
+        }
+    }
+
+    @Test
+    void coPartitionedSourcesJoinWithoutRepartitionTopics() {
+        List<WatchingAdLog> ads = new ArrayList<>();
+        List<PurchaseLog> purchases = new ArrayList<>();
+        generate(new Random(42), 300, ads, purchases);
+        List<KeyValue<String, EffectOrNot>> republished = runRepublish(ads, purchases);
+
+        RecordingProducer producer = new RecordingProducer();
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.REPUBLISH);
+        properties.setCoPartitionedSources(true);
+        properties.getDeadLetter().setEnabled(true);
+        DeadLetterPublisher publisher = new DeadLetterPublisher(
+                () -> new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer()), "-dlq", null);
+        AdEvaluationService service = new AdEvaluationService(producer, properties, new StreamsTuningProperties(), publisher);
+
+        StreamsBuilder sb = new StreamsBuilder();
+        service.buildPipeline(sb);
+        // 광고이력과 상품별 구매이력 모두 Producer 의 key 를 그대로 써서 repartition topic 이 없습니다.
+        assertThat(sb.build().describe().toString()).doesNotContain("-repartition");
+
+        try (TopologyTestDriver driver = driver(service, new Properties())) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            for (WatchingAdLog ad : ads) {
+                adLog.pipeInput(Producer.keyOf(ad), ad);
+            }
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            TestInputTopic<String, PurchaseLogOneProduct> purchaseLogOneProduct = driver.createInputTopic("purchaseLogOneProduct",
+                    new StringSerializer(), new PurchaseLogOneProductSerializer());
+            for (PurchaseLog purchase : purchases) {
+                purchaseLog.pipeInput(Producer.keyOf(purchase), purchase);
+                for (PurchaseLogOneProduct one : producer.sent) {
+                    purchaseLogOneProduct.pipeInput(Producer.keyOf(one), one);
+                }
+                producer.sent.clear();
+            }
+            assertThat(output(driver).readKeyValuesToList()).containsExactlyElementsOf(republished);
+        }
+    }
+
+    @Test
+    void pipelineMetricsCountFilteredSplitAndJoinedRecords() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PipelineMetrics metrics = new PipelineMetrics(registry, 1, properties.getEventTimeZone());
+        AdEvaluationService service = new AdEvaluationService(new RecordingProducer(), properties, new StreamsTuningProperties(), null, metrics);
+
+        try (TopologyTestDriver driver = driver(service, new Properties())) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+
+            WatchingAdLog shortWatch = ad("uid-2", "pg-1", "ad-1", "20230201070000");
+            shortWatch.setWatchingTime("5");
+            adLog.pipeInput(shortWatch);
+            adLog.pipeInput(ad("uid-1", "pg-1", "ad-1", "20230201070000"));
+            PurchaseLog purchase = purchase("od-1", "uid-1", "pg-1", "20230201071000");
+            purchase.getProductInfo().add(new HashMap<>(Map.of("productId", "pg-2", "price", "2000000")));
+            purchaseLog.pipeInput(purchase);
+            assertThat(output(driver).getQueueSize()).isEqualTo(1);
+        }
+
+        assertThat(registry.get("ad.evaluation.filtered").tag("stage", "watch-time").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ad.evaluation.filtered").tag("stage", "price").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ad.evaluation.split.fanout").summary().totalAmount()).isEqualTo(1);
+        assertThat(registry.get("ad.evaluation.joins").counter().count()).isEqualTo(1);
+        // timerSampleEvery=1 이므로 모든 record 의 시간을 잽니다.
+        assertThat(registry.get("ad.evaluation.stage.latency").tag("stage", "join").timer().count()).isEqualTo(1);
+        assertThat(registry.get("ad.evaluation.event.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void catalogEnrichesJoinedProductInfoThroughNearCache() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getCatalog().setEnabled(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PipelineMetrics metrics = new PipelineMetrics(registry, 0, properties.getEventTimeZone());
+        AdEvaluationService service = new AdEvaluationService(new RecordingProducer(), properties, new StreamsTuningProperties(), null, metrics);
+
+        try (TopologyTestDriver driver = driver(service, new Properties())) {
+            driver.createInputTopic("productCatalog", new StringSerializer(), new ProductCatalogSerializer())
+                    .pipeInput("pg-1", new ProductCatalog("pg-1", "shoes", "acme", "0.23"));
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            for (int i = 1; i <= 3; i++) {
+                adLog.pipeInput(ad("uid-" + i, i == 3 ? "pg-9" : "pg-1", "ad-1", "20230201070000"));
+                purchaseLog.pipeInput(purchase("od-" + i, "uid-" + i, i == 3 ? "pg-9" : "pg-1", "20230201071000"));
+            }
+
+            List<EffectOrNot> joined = output(driver).readValuesToList();
+            assertThat(joined).hasSize(3);
+            assertThat(joined.get(0).getProductInfo())
+                    .isEqualTo(Map.of("productId", "pg-1", "price", "24000", "category", "shoes", "brand", "acme", "margin", "0.23"));
+            assertThat(joined.get(1).getProductInfo()).isEqualTo(joined.get(0).getProductInfo());
+            // catalog 에 없는 상품은 그대로 내보냅니다.
+            assertThat(joined.get(2).getProductInfo()).isEqualTo(Map.of("productId", "pg-9", "price", "24000"));
+        }
+
+        // pg-1 은 처음만 store 를 읽고 두 번째는 near cache 에서 찾습니다. pg-9 는 없다는 결과를 cache 하지 않습니다.
+        assertThat(registry.get("ad.evaluation.catalog.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ad.evaluation.catalog.lookups").tag("result", "miss").counter().count()).isEqualTo(2);
+        assertThat(registry.get("ad.evaluation.catalog.missing").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void archivedSourcesReplayIntoFreshTopologyWithSameOutput() throws Exception {
+        List<WatchingAdLog> ads = new ArrayList<>();
+        List<PurchaseLog> purchases = new ArrayList<>();
+        generate(new Random(11), 200, ads, purchases);
+        File archiveDir = new File(stateDir, "archive");
+        Instant t = Instant.parse("2023-02-01T07:00:00Z");
+
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.getArchive().setEnabled(true);
+        properties.getArchive().setDir(archiveDir.getAbsolutePath());
+        // segment 여러 개에 나뉘어 쓰이도록 작게 둡니다.
+        properties.getArchive().setSegmentBytes(16 * 1024);
+        List<KeyValue<String, EffectOrNot>> expected;
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            for (int i = 0; i < ads.size(); i++) {
+                adLog.pipeInput(null, ads.get(i), t.plusMillis(i));
+            }
+            for (int i = 0; i < purchases.size(); i++) {
+                purchaseLog.pipeInput(purchases.get(i).getOrderId(), purchases.get(i), t.plusSeconds(60).plusMillis(i));
+            }
+            expected = output(driver).readKeyValuesToList();
+        }
+        assertThat(expected).isNotEmpty();
+        assertThat(new File(archiveDir, "adLog/partition-0").list((dir, name) -> name.endsWith(".seg")).length).isGreaterThan(1);
+
+        // broker 없이 archive 만으로 archive 를 끈 새 topology 에 다시 넣습니다.
+        properties.getArchive().setEnabled(false);
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties)) {
+            Map<String, TestInputTopic<byte[], byte[]>> inputs = Map.of(
+                    "adLog", driver.createInputTopic("adLog", new ByteArraySerializer(), new ByteArraySerializer()),
+                    "purchaseLog", driver.createInputTopic("purchaseLog", new ByteArraySerializer(), new ByteArraySerializer()));
+            long replayed = SegmentArchiveReader.replay(archiveDir.toPath(), List.of("adLog", "purchaseLog"), Long.MIN_VALUE, Long.MAX_VALUE,
+                    r -> inputs.get(r.topic()).pipeInput(r.keyBytes(), r.valueBytes(), r.timestamp()));
+
+            assertThat(replayed).isEqualTo(ads.size() + purchases.size());
+            assertThat(output(driver).readKeyValuesToList()).isEqualTo(expected);
+        }
+    }
+
+    private static double dedupMetric(TopologyTestDriver driver, String storeName, String name) {
+        return driver.metrics().values().stream()
+                .filter(m -> m.metricName().group().equals("stream-dedup-metrics")
+                        && m.metricName().name().equals(name)
+                        && storeName.equals(m.metricName().tags().get("dedup-id")))
+                .mapToDouble(m -> ((Number) m.metricValue()).doubleValue())
+                .sum();
+    }
+
+    // 하루 20건의 광고 시청과 2시간 뒤 구매를 days 일 동안 흘려보내고, 매일 끝에 전체 store 의 entry 수를 기록합니다.
+    private List<Long> replayDays(AdEvaluationProperties properties, Properties extra, int days) {
+        List<Long> sizes = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2023, 2, 1, 0, 0);
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties, extra)) {
+            TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                    new StringSerializer(), new WatchingAdLogSerializer());
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            int user = 0;
+            for (int day = 0; day < days; day++) {
+                for (int i = 0; i < 20; i++, user++) {
+                    LocalDateTime watched = start.plusDays(day).plusMinutes(i * 60L);
+                    adLog.pipeInput(ad("uid-" + user, "pg-1", "ad-" + user, EVENT_DT.format(watched)));
+                    purchaseLog.pipeInput(purchase("od-" + user, "uid-" + user, "pg-1", EVENT_DT.format(watched.plusHours(2))));
+                }
+                long entries = 0;
+                for (String name : driver.getAllStateStores().keySet()) {
+                    WindowStore<Object, Object> windowStore = driver.getWindowStore(name);
+                    if (windowStore != null) {
+                        try (KeyValueIterator<Windowed<Object>, Object> all = windowStore.all()) {
+                            while (all.hasNext()) {
+                                all.next();
+                                entries++;
+                            }
+                        }
+                    } else {
+                        KeyValueStore<Object, Object> keyValueStore = driver.getKeyValueStore(name);
+                        entries += keyValueStore == null ? 0 : keyValueStore.approximateNumEntries();
+                    }
+                }
+                sizes.add(entries);
+            }
+            assertThat(output(driver).getQueueSize()).isEqualTo(20L * days);
+        }
+        return sizes;
+    }
+
+    private static AdEvaluationProperties windowedProperties() {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+        properties.setJoinMode(AdEvaluationProperties.JoinMode.WINDOWED);
+        properties.setAttributionWindow(Duration.ofDays(1));
+        properties.setAttributionGrace(Duration.ofHours(1));
+        return properties;
+    }
+
+    private static WatchingAdLog ad(String userId, String productId, String adId, String watchingDt) {
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId(userId);
+        ad.setProductId(productId);
+        ad.setAdId(adId);
+        ad.setAdType("banner");
+        ad.setWatchingTime("30");
+        ad.setWatchingDt(watchingDt);
+        return ad;
+    }
+
+    private static PurchaseLog purchase(String orderId, String userId, String productId, String purchasedDt) {
+        Map<String, String> prod = new HashMap<>();
+        prod.put("productId", productId);
+        prod.put("price", "24000");
+        PurchaseLog purchase = new PurchaseLog();
+        purchase.setOrderId(orderId);
+        purchase.setUserId(userId);
+        purchase.setProductInfo(new ArrayList<>(List.of(prod)));
+        purchase.setPurchasedDt(purchasedDt);
+        return purchase;
+    }
+
+    private List<KeyValue<String, EffectOrNot>> runRepublish(List<WatchingAdLog> ads, List<PurchaseLog> purchases) {
+        RecordingProducer producer = new RecordingProducer();
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.REPUBLISH);
+
+        try (TopologyTestDriver driver = driver(producer, properties)) {
+            pipeAds(driver, ads);
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            TestInputTopic<String, PurchaseLogOneProduct> purchaseLogOneProduct = driver.createInputTopic("purchaseLogOneProduct",
+                    new StringSerializer(), new PurchaseLogOneProductSerializer());
+            for (PurchaseLog purchase : purchases) {
+                purchaseLog.pipeInput(purchase);
+                // KafkaTemplate 으로 나갔던 메세지를 다시 읽어들이는 것과 같습니다.
+                for (PurchaseLogOneProduct one : producer.sent) {
+                    purchaseLogOneProduct.pipeInput(one);
+                }
+                producer.sent.clear();
+            }
+            return output(driver).readKeyValuesToList();
+        }
+    }
+
+    private List<KeyValue<String, EffectOrNot>> runFlatMap(List<WatchingAdLog> ads, List<PurchaseLog> purchases) {
+        AdEvaluationProperties properties = new AdEvaluationProperties();
+        properties.setSplitMode(AdEvaluationProperties.SplitMode.FLAT_MAP);
+
+        try (TopologyTestDriver driver = driver(new RecordingProducer(), properties)) {
+            pipeAds(driver, ads);
+            TestInputTopic<String, PurchaseLog> purchaseLog = driver.createInputTopic("purchaseLog",
+                    new StringSerializer(), new PurchaseLogSerializer());
+            for (PurchaseLog purchase : purchases) {
+                purchaseLog.pipeInput(purchase);
+            }
+            return output(driver).readKeyValuesToList();
+        }
+    }
+
+    private TopologyTestDriver driver(Producer producer, AdEvaluationProperties properties) {
+        return driver(producer, properties, new Properties());
+    }
+
+    private TopologyTestDriver driver(Producer producer, AdEvaluationProperties properties, Properties extra) {
+        return driver(new AdEvaluationService(producer, properties), extra);
+    }
+
+    private TopologyTestDriver driver(AdEvaluationService service, Properties extra) {
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "ad-evaluation-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.getAbsolutePath());
+        config.putAll(extra);
+
+        // default.dsl.store 등 topology 설정이 store 에 적용되도록 StreamsBuilder 에도 넘겨줍니다.
+        StreamsBuilder sb = new StreamsBuilder(new TopologyConfig(new StreamsConfig(config)));
+        service.buildPipeline(sb);
+        return new TopologyTestDriver(sb.build(), config);
+    }
+
+    private void pipeAds(TopologyTestDriver driver, List<WatchingAdLog> ads) {
+        TestInputTopic<String, WatchingAdLog> adLog = driver.createInputTopic("adLog",
+                new StringSerializer(), new WatchingAdLogSerializer());
+        for (WatchingAdLog ad : ads) {
+            adLog.pipeInput(ad);
+        }
+    }
+
+    private TestOutputTopic<String, EffectOrNot> output(TopologyTestDriver driver) {
+        return driver.createOutputTopic("AdEvaluationComplete",
+                new StringDeserializer(), new EffectOrNotDeserializer());
+    }
+
+    // VO 주석의 SAMPLE DATA 형태로 광고/구매 이력을 생성합니다.
+    static void generate(Random rd, int count, List<WatchingAdLog> ads, List<PurchaseLog> purchases) {
+        for (int i = 0; i < count; i++) {
+            String userId = "uid-" + String.format("%05d", rd.nextInt(200));
+            String orderId = "od-" + String.format("%05d", i);
+
+            ArrayList<Map<String, String>> productInfo = new ArrayList<>();
+            int prodCnt = rd.nextInt(5) + 1;
+            for (int p = 0; p < prodCnt; p++) {
+                String productId = "pg-" + String.format("%05d", rd.nextInt(50));
+                Map<String, String> prod = new HashMap<>();
+                prod.put("productId", productId);
+                // 일부 상품은 100만원 이상으로 join 대상에서 빠집니다.
+                prod.put("price", String.valueOf(rd.nextInt(10) == 0 ? 1500000 : rd.nextInt(90000) + 10000));
+                productInfo.add(prod);
+
+                WatchingAdLog ad = new WatchingAdLog();
+                ad.setUserId(userId);
+                ad.setProductId(productId);
+                ad.setAdId("ad-" + String.format("%05d", rd.nextInt(100)));
+                ad.setAdType("banner");
+                ad.setWatchingTime(String.valueOf(rd.nextInt(55) + 5));
+                ad.setWatchingDt("20230201070000");
+                ads.add(ad);
+            }
+
+            PurchaseLog purchase = new PurchaseLog();
+            purchase.setOrderId(orderId);
+            purchase.setUserId(userId);
+            purchase.setProductInfo(productInfo);
+            purchase.setPurchasedDt("20230201080000");
+            purchases.add(purchase);
+        }
+    }
+}
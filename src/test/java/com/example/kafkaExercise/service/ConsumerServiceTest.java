@@ -0,0 +1,85 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.ConsumerProperties;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsumerServiceTest {
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true)
+                .addScript("schema.sql").build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void writesWholeBatchToJdbcSinkAndSkipsUnreadableRecords() throws Exception {
+        ConsumerService service = new ConsumerService(jdbcSink(), new ConsumerProperties(), registry);
+
+        List<ConsumerRecord<String, EffectOrNot>> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(record(i, effectOrNot("od-" + i)));
+        }
+        batch.add(record(500, null));
+        service.consume(batch);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ad_evaluation_complete", Long.class)).isEqualTo(500);
+        assertThat(jdbcTemplate.queryForMap("SELECT * FROM ad_evaluation_complete WHERE order_id = 'od-7'"))
+                .containsEntry("AD_ID", "ad-1").containsEntry("PRODUCT_ID", "pg-1").containsEntry("PRICE", "12000");
+        assertThat(registry.get("ad.evaluation.consumer.records").counter().count()).isEqualTo(500);
+        assertThat(registry.get("ad.evaluation.consumer.skipped").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ad.evaluation.consumer.batch.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedSinkWriteRollsBackAndPropagatesSoOffsetsAreNotCommitted() {
+        // table 이 없으면 batch insert 가 실패합니다.
+        JdbcEffectOrNotSink missingTable = new JdbcEffectOrNotSink(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database)), "missing_table");
+        ConsumerService service = new ConsumerService(missingTable, new ConsumerProperties(), registry);
+
+        assertThatThrownBy(() -> service.consume(List.of(record(0, effectOrNot("od-0")))))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(registry.get("ad.evaluation.consumer.records").counter().count()).isZero();
+    }
+
+    private JdbcEffectOrNotSink jdbcSink() {
+        return new JdbcEffectOrNotSink(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(database)),
+                new ConsumerProperties().getJdbc().getTable());
+    }
+
+    private static ConsumerRecord<String, EffectOrNot> record(long offset, EffectOrNot value) {
+        return new ConsumerRecord<>("AdEvaluationComplete", 0, offset, "uid-1_pg-1", value);
+    }
+
+    private static EffectOrNot effectOrNot(String orderId) {
+        return new EffectOrNot("ad-1", "uid-1", orderId, Map.of("productId", "pg-1", "price", "12000"), "banner");
+    }
+}
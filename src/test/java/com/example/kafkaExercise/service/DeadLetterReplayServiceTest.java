@@ -0,0 +1,78 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties;
+import com.example.kafkaExercise.util.DeadLetterPublisher;
+import com.example.kafkaExercise.vo.DeadLetterReplayResult;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadLetterReplayServiceTest {
+
+    static final TopicPartition DLQ = new TopicPartition("adLog-dlq", 0);
+
+    @Test
+    void replaysUntilMaxReplaysAndResumesFromCommittedOffset() throws Exception {
+        AdEvaluationProperties.DeadLetter properties = new AdEvaluationProperties.DeadLetter();
+        properties.setMaxReplays(3);
+        MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        DeadLetterPublisher publisher = new DeadLetterPublisher(() -> producer, "-dlq", null);
+
+        MockConsumer<byte[], byte[]> first = consumer(List.of(dead(0, "a", 0), dead(1, "b", 3), dead(2, "c", 1)), 0);
+        DeadLetterReplayResult result = new DeadLetterReplayService(properties, publisher, () -> first).replay("adLog", 2);
+
+        // 두 건만 읽고, 이미 3번 다시 넣은 b 는 건너뜁니다.
+        assertThat(result).isEqualTo(new DeadLetterReplayResult("adLog", "adLog-dlq", 1, 1, 1));
+        assertThat(producer.history()).extracting(ProducerRecord::topic).containsExactly("adLog");
+        ProducerRecord<byte[], byte[]> replayed = producer.history().get(0);
+        assertThat(new String(replayed.value(), StandardCharsets.UTF_8)).isEqualTo("a");
+        assertThat(DeadLetterPublisher.replayCount(replayed.headers())).isEqualTo(1);
+        assertThat(replayed.headers().lastHeader(DeadLetterPublisher.ERROR_CLASS)).isNull();
+        assertThat(replayed.headers().lastHeader("trace-id")).isNotNull();
+
+        // 다음 호출은 commit 된 offset 부터 이어서 읽습니다.
+        MockConsumer<byte[], byte[]> second = consumer(List.of(dead(2, "c", 1)), 2);
+        result = new DeadLetterReplayService(properties, publisher, () -> second).replay("adLog", 100);
+
+        assertThat(result).isEqualTo(new DeadLetterReplayResult("adLog", "adLog-dlq", 1, 0, 0));
+        assertThat(DeadLetterPublisher.replayCount(producer.history().get(1).headers())).isEqualTo(2);
+    }
+
+    // committed 부터 records 를 돌려주는 dead letter Topic (partition 1개, end offset 3)
+    private static MockConsumer<byte[], byte[]> consumer(List<ConsumerRecord<byte[], byte[]>> records, long committed) {
+        MockConsumer<byte[], byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DLQ.topic(), List.of(new PartitionInfo(DLQ.topic(), 0, Node.noNode(), new Node[0], new Node[0])));
+        consumer.updateBeginningOffsets(Map.of(DLQ, 0L));
+        consumer.updateEndOffsets(Map.of(DLQ, 3L));
+        consumer.schedulePollTask(() -> {
+            consumer.seek(DLQ, committed);
+            records.forEach(consumer::addRecord);
+        });
+        return consumer;
+    }
+
+    private static ConsumerRecord<byte[], byte[]> dead(long offset, String value, int replayCount) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("trace-id", "t-1".getBytes(StandardCharsets.UTF_8));
+        headers.add(DeadLetterPublisher.ERROR_CLASS, NumberFormatException.class.getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(DeadLetterPublisher.REPLAY_COUNT, String.valueOf(replayCount).getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(DLQ.topic(), 0, offset, 0L, TimestampType.CREATE_TIME, 0, 0, null,
+                value.getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.IngestProperties;
+import com.example.kafkaExercise.util.WatchingAdLogBinarySerializer;
+import com.example.kafkaExercise.vo.IngestAck;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestServiceTest {
+
+    // 짝수 번째 send 는 partition 0, 홀수 번째는 partition 1 에 순서대로 ack 합니다.
+    static class StubProducer extends Producer {
+        long sent;
+        double bufferAvailableRatio = 1.0;
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> sendMsgForWatchingAdLog(String topicNm, Object msg) {
+            int partition = (int) (sent % 2);
+            long offset = sent++ / 2;
+            RecordMetadata metadata = new RecordMetadata(new TopicPartition(topicNm, partition), offset, 0, 0, 0, 0);
+            return CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>(topicNm, msg), metadata));
+        }
+
+        @Override
+        public double bufferAvailableRatio(String topicNm) {
+            return bufferAvailableRatio;
+        }
+    }
+
+    @Test
+    void ndjsonBatchIsAckedWithOffsetsAndParseFailures() throws IOException {
+        StubProducer producer = new StubProducer();
+        String body = "{\"userId\": \"uid-0005\", \"productId\": \"pg-0022\", \"adId\": \"ad-101\", \"adType\": \"banner\", \"watchingTime\": \"30\", \"watchingDt\": \"20230201070000\"}\n"
+                + "{\"userId\": \"uid-0006\", \"productId\": \"pg-0023\"}\n"
+                + "\n"
+                + "not-json\n"
+                + "{\"userId\": \"uid-0007\"}\n";
+
+        IngestAck ack = new IngestService(producer, new IngestProperties())
+                .ingestNdjson("adLog", new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(ack.getReceived()).isEqualTo(4);
+        assertThat(ack.getAcked()).isEqualTo(3);
+        assertThat(ack.getFailed()).isEqualTo(1);
+        assertThat(ack.getErrors()).singleElement().asString().startsWith("record 2 :");
+        assertThat(ack.getOffsets()).containsEntry(0, new IngestAck.OffsetRange(0, 1))
+                .containsEntry(1, new IngestAck.OffsetRange(0, 0));
+        assertThat(ack.isThrottled()).isFalse();
+    }
+
+    @Test
+    void binaryBatchIsThrottledWhenProducerBufferIsNearlyFull() throws IOException {
+        StubProducer producer = new StubProducer();
+        producer.bufferAvailableRatio = 0.01;
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId("uid-0005");
+        byte[] record = new WatchingAdLogBinarySerializer().serialize("adLog", ad);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeInt(record.length);
+        out.write(record);
+
+        IngestAck ack = new IngestService(producer, new IngestProperties())
+                .ingestBinary("adLog", new ByteArrayInputStream(body.toByteArray()));
+
+        assertThat(ack.isThrottled()).isTrue();
+        assertThat(ack.getReceived()).isZero();
+        assertThat(producer.sent).isZero();
+    }
+
+    @Test
+    void truncatedBinaryBodyReturnsAckForRecordsAlreadySent() throws IOException {
+        StubProducer producer = new StubProducer();
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId("uid-0005");
+        byte[] record = new WatchingAdLogBinarySerializer().serialize("adLog", ad);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        for (int i = 0; i < 2; i++) {
+            out.writeInt(record.length);
+            out.write(record);
+        }
+        // 세 번째 record 는 중간에 끊깁니다.
+        out.writeInt(record.length);
+        out.write(record, 0, record.length / 2);
+
+        IngestAck ack = new IngestService(producer, new IngestProperties())
+                .ingestBinary("adLog", new ByteArrayInputStream(body.toByteArray()));
+
+        assertThat(ack.getReceived()).isEqualTo(3);
+        assertThat(ack.getAcked()).isEqualTo(2);
+        assertThat(ack.getFailed()).isEqualTo(1);
+        assertThat(ack.getErrors()).singleElement().asString().startsWith("record 2 :").contains("Truncated record");
+        assertThat(producer.sent).isEqualTo(2);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamThreadAutoscalerTest {
+
+    @Test
+    void scalesByLagWithinThreadAndTaskLimits() {
+        StreamsTuningProperties.Autoscale autoscale = new StreamsTuningProperties.Autoscale();
+        autoscale.setMinThreads(1);
+        autoscale.setMaxThreads(4);
+        autoscale.setScaleUpLag(10000);
+        autoscale.setScaleDownLag(1000);
+
+        assertThat(StreamThreadAutoscaler.decide(1, 6, 50000, autoscale)).isEqualTo(1);
+        // max-threads 또는 할당된 task 수에 도달하면 더 늘리지 않습니다.
+        assertThat(StreamThreadAutoscaler.decide(4, 6, 50000, autoscale)).isZero();
+        assertThat(StreamThreadAutoscaler.decide(2, 2, 50000, autoscale)).isZero();
+        // scale-down-lag 와 scale-up-lag 사이에서는 유지합니다.
+        assertThat(StreamThreadAutoscaler.decide(3, 6, 5000, autoscale)).isZero();
+        assertThat(StreamThreadAutoscaler.decide(3, 6, 10, autoscale)).isEqualTo(-1);
+        assertThat(StreamThreadAutoscaler.decide(1, 6, 10, autoscale)).isZero();
+    }
+
+    @Test
+    void inputLagSumsMainConsumerPartitionsAndSkipsChangelogs() {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        put(metrics, "consumer-fetch-manager-metrics", "records-lag", "adLog", 0, 700.0);
+        put(metrics, "consumer-fetch-manager-metrics", "records-lag", "adLog", 1, 300.0);
+        put(metrics, "consumer-fetch-manager-metrics", "records-lag", "purchaseLog", 0, 50.0);
+        put(metrics, "consumer-fetch-manager-metrics", "records-lag", "purchaseLog", 1, Double.NaN);
+        put(metrics, "consumer-fetch-manager-metrics", "records-lag", "lecture-6-adStore-changelog", 0, 99999.0);
+        put(metrics, "consumer-fetch-manager-metrics", "records-lag-max", "adLog", 0, 700.0);
+
+        assertThat(StreamThreadAutoscaler.inputLag(metrics)).isEqualTo(1050);
+    }
+
+    private static void put(Map<MetricName, Metric> metrics, String group, String name, String topic, int partition, double value) {
+        MetricName metricName = new MetricName(name, group, "",
+                Map.of("client-id", "lecture-6-StreamThread-1-consumer", "topic", topic, "partition", String.valueOf(partition)));
+        metrics.put(metricName, new Metric() {
+            @Override
+            public MetricName metricName() {
+                return metricName;
+            }
+
+            @Override
+            public Object metricValue() {
+                return value;
+            }
+        });
+    }
+}
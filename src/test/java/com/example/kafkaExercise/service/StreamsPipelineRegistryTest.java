@@ -0,0 +1,118 @@
+package com.example.kafkaExercise.service;
+
+import com.example.kafkaExercise.config.StreamsTuningProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamsPipelineRegistryTest {
+
+    @TempDir
+    File stateDir;
+
+    @Test
+    void enabledPipelinesGetTheirOwnApplicationIdThreadsAndStateDir() {
+        StreamsTuningProperties properties = new StreamsTuningProperties();
+        StreamsTuningProperties.Pipeline streamJoin = new StreamsTuningProperties.Pipeline();
+        streamJoin.setNumStreamThreads(3);
+        streamJoin.setStateDir(stateDir.getAbsolutePath());
+        properties.getPipelines().put(StreamService.NAME, streamJoin);
+        StreamsTuningProperties.Pipeline tableJoin = new StreamsTuningProperties.Pipeline();
+        tableJoin.setEnabled(false);
+        properties.getPipelines().put(KTableService.NAME, tableJoin);
+
+        Map<String, Object> base = new HashMap<>(StreamsPipelineRegistry.pipelineConfig(StreamsTuningProperties.Pipeline.AD_EVALUATION, properties));
+        base.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        base.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        base.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        KafkaStreamsConfiguration baseConfig = new KafkaStreamsConfiguration(base);
+
+        StreamsPipelineRegistry registry = new StreamsPipelineRegistry(new StreamsBuilderFactoryBean(baseConfig),
+                List.of(new StreamService(), new KTableService()), baseConfig, properties, new SimpleMeterRegistry());
+
+        // 시작 전에는 DOWN 이고, 꺼진 table-join 은 보이지 않습니다.
+        Health health = registry.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsOnlyKeys(StreamsTuningProperties.Pipeline.AD_EVALUATION, StreamService.NAME);
+        assertThat(detail(health, StreamsTuningProperties.Pipeline.AD_EVALUATION).get("applicationId")).isEqualTo("lecture-6");
+        assertThat(detail(health, StreamService.NAME).get("applicationId")).isEqualTo(StreamService.NAME);
+        assertThat(detail(health, StreamService.NAME).get("state")).isEqualTo("NOT_STARTED");
+
+        Map<String, Object> config = StreamsPipelineRegistry.pipelineConfig(StreamService.NAME, properties);
+        assertThat(config).containsEntry(StreamsConfig.NUM_STREAM_THREADS_CONFIG, 3)
+                .containsEntry(StreamsConfig.STATE_DIR_CONFIG, stateDir.getAbsolutePath());
+    }
+
+    @Test
+    void otherPipelinesCopyOnlyAllowListedBaseConfigs() {
+        StreamsTuningProperties properties = new StreamsTuningProperties();
+        properties.setStateDir(stateDir.getAbsolutePath());
+        properties.getPipelines().put(StreamService.NAME, new StreamsTuningProperties.Pipeline());
+
+        Map<String, Object> base = new HashMap<>();
+        base.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        base.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        base.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        base.put(StreamsConfig.APPLICATION_ID_CONFIG, "lecture-6");
+        base.put(StreamsConfig.STATE_DIR_CONFIG, "/ad-evaluation");
+        base.put(StreamsConfig.APPLICATION_SERVER_CONFIG, "localhost:8080");
+        base.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        base.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, "setter");
+
+        Map<String, Object> config = StreamsPipelineRegistry.streamsConfig(StreamService.NAME, new KafkaStreamsConfiguration(base), properties);
+        assertThat(config).containsOnlyKeys(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG,
+                        StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, StreamsConfig.APPLICATION_ID_CONFIG,
+                        StreamsConfig.NUM_STREAM_THREADS_CONFIG, StreamsConfig.STATE_DIR_CONFIG)
+                .containsEntry(StreamsConfig.APPLICATION_ID_CONFIG, StreamService.NAME)
+                .containsEntry(StreamsConfig.STATE_DIR_CONFIG, stateDir.getAbsolutePath());
+    }
+
+    @Test
+    void streamAndTableJoinPipelinesWriteJoinedMessages() {
+        // outer join 은 window 가 닫힐 때까지 짝이 없는 결과 (left-1<null) 를 내보내지 않습니다.
+        assertThat(run(new StreamService())).containsExactly("[StringJoiner]left-1-right-1", "[StringOuterJoiner]left-1<right-1");
+        assertThat(run(new KTableService())).containsExactly("[StringJoiner]left-1-right-1");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> detail(Health health, String pipeline) {
+        return (Map<String, Object>) health.getDetails().get(pipeline);
+    }
+
+    private List<String> run(StreamsPipeline pipeline) {
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, pipeline.name());
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.getAbsolutePath());
+        config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        config.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        StreamsBuilder sb = new StreamsBuilder();
+        pipeline.buildPipeline(sb);
+        try (TopologyTestDriver driver = new TopologyTestDriver(sb.build(), config)) {
+            TestInputTopic<String, String> left = driver.createInputTopic("leftTopic", new StringSerializer(), new StringSerializer());
+            TestInputTopic<String, String> right = driver.createInputTopic("rightTopic", new StringSerializer(), new StringSerializer());
+            left.pipeInput("1", "left-1");
+            right.pipeInput("1", "right-1");
+            return driver.createOutputTopic("joinedMsg", new StringDeserializer(), new StringDeserializer()).readValuesToList();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.kafkaExercise.util;
+
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryCodecTest {
+
+    @Test
+    void watchingAdLogRoundTripAndLegacyJson() {
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId("uid-0005");
+        ad.setProductId("pg-0022");
+        ad.setAdId("ad-101");
+        ad.setAdType("banner");
+        ad.setWatchingTime("30");
+        ad.setWatchingDt("20230201070000");
+
+        byte[] binary = new WatchingAdLogBinarySerializer().serialize("adLog", ad);
+        byte[] json = new WatchingAdLogSerializer().serialize("adLog", ad);
+
+        assertThat(binary[0]).isEqualTo(BinaryCodec.FORMAT_V1);
+        assertThat(binary.length).isLessThan(json.length / 2);
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", binary)).isEqualTo(ad);
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", json)).isEqualTo(ad);
+        // watchingTime 은 deserialize 하면서 숫자로도 parse 해둡니다.
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", binary).watchingSeconds()).isEqualTo(30);
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", json).watchingSeconds()).isEqualTo(30);
+    }
+
+    @Test
+    void valuesThatAreNotPlainNumbersSurviveRoundTrip() {
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId("사용자-1");
+        ad.setAdType("popup");
+        ad.setWatchingTime("007");
+        ad.setWatchingDt("-");
+
+        byte[] binary = new WatchingAdLogBinarySerializer().serialize("adLog", ad);
+
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", binary)).isEqualTo(ad);
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", binary).watchingSeconds()).isEqualTo(7);
+    }
+
+    @Test
+    void watchingTimeThatIsNotANumberStillFailsOnUse() {
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setWatchingTime("+12");
+        assertThat(ad.watchingSeconds()).isEqualTo(12);
+
+        ad.setWatchingTime("30s");
+        assertThatThrownBy(ad::watchingSeconds).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void purchaseLogRoundTrip() {
+        PurchaseLog purchase = new PurchaseLog();
+        purchase.setOrderId("od-0005");
+        purchase.setUserId("uid-0005");
+        purchase.setPurchasedDt("20230201070000");
+        ArrayList<Map<String, String>> productInfo = new ArrayList<>();
+        productInfo.add(product("pg-0023", "12000"));
+        Map<String, String> withExtra = product("pg-0022", "13500");
+        withExtra.put("category", "food");
+        productInfo.add(withExtra);
+        purchase.setProductInfo(productInfo);
+
+        byte[] binary = new PurchaseLogBinarySerializer().serialize("purchaseLog", purchase);
+        byte[] json = new PurchaseLogSerializer().serialize("purchaseLog", purchase);
+
+        assertThat(new PurchaseLogDeserializer().deserialize("purchaseLog", binary)).isEqualTo(purchase);
+        assertThat(new PurchaseLogDeserializer().deserialize("purchaseLog", json)).isEqualTo(purchase);
+    }
+
+    @Test
+    void purchaseLogOneProductAndEffectOrNotRoundTrip() {
+        PurchaseLogOneProduct one = new PurchaseLogOneProduct();
+        one.setOrderId("od-0005");
+        one.setUserId("uid-0005");
+        one.setProductId("pg-0023");
+        one.setPurchasedDt("20230201070000");
+        one.setPrice("12000");
+
+        byte[] binary = new PurchaseLogOneProductBinarySerializer().serialize("purchaseLogOneProduct", one);
+        assertThat(new PurchaseLogOneProductDeserializer().deserialize("purchaseLogOneProduct", binary)).isEqualTo(one);
+
+        EffectOrNot effect = new EffectOrNot("ad-101", "uid-0005", "od-0005", product("pg-0023", "12000"), "clip");
+        binary = new EffectOrNotBinarySerializer().serialize("AdEvaluationComplete", effect);
+        assertThat(new EffectOrNotDeserializer().deserialize("AdEvaluationComplete", binary)).isEqualTo(effect);
+
+        // adType 이 없던 때 쓰인 record 도 읽을 수 있습니다.
+        effect.setAdType(null);
+        byte[] withoutAdType = Arrays.copyOf(binary, binary.length - 1);
+        assertThat(new EffectOrNotDeserializer().deserialize("AdEvaluationComplete", withoutAdType)).isEqualTo(effect);
+    }
+
+    @Test
+    void malformedInputThrowsSerializationException() {
+        byte[] truncated = {BinaryCodec.FORMAT_V1, 5, 'u'};
+        byte[] notJson = "not-json".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> new WatchingAdLogDeserializer().deserialize("adLog", truncated))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> new WatchingAdLogDeserializer().deserialize("adLog", notJson))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static Map<String, String> product(String productId, String price) {
+        Map<String, String> prod = new HashMap<>();
+        prod.put("productId", productId);
+        prod.put("price", price);
+        return prod;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.kafkaExercise.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTimeExtractorTest {
+
+    @Test
+    void sameEpochMilliAsDateTimeFormatterIncludingDstTransitions() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        EventTimeExtractor extractor = new EventTimeExtractor(zone);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+        // 평상시, gap (02:30 은 없는 시각), overlap (01:30 이 두 번), 윤일
+        for (String dt : new String[]{"20230201070000", "20230312023000", "20231105013000", "20240229235959"}) {
+            long expected = LocalDateTime.parse(dt, format).atZone(zone).toInstant().toEpochMilli();
+            assertThat(extractor.toEpochMilli(dt)).as(dt).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void invalidValuesReturnMinusOne() {
+        EventTimeExtractor extractor = new EventTimeExtractor(ZoneId.of("Asia/Seoul"));
+
+        assertThat(extractor.toEpochMilli(null)).isEqualTo(-1);
+        assertThat(extractor.toEpochMilli("2023020107000")).isEqualTo(-1);
+        assertThat(extractor.toEpochMilli("2023-02-01T0700")).isEqualTo(-1);
+        assertThat(extractor.toEpochMilli("20230230070000")).isEqualTo(-1);
+        assertThat(extractor.toEpochMilli("20230201250000")).isEqualTo(-1);
+    }
+}
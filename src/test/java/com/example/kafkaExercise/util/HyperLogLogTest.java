@@ -0,0 +1,46 @@
+package com.example.kafkaExercise.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesDistinctIdsWithinErrorAtFixedSize() {
+        HyperLogLog small = new HyperLogLog(12);
+        for (int i = 0; i < 100; i++) {
+            small.add("uid-" + i);
+            small.add("uid-" + i);
+        }
+        assertThat(small.estimate()).isCloseTo(100L, within(2L));
+
+        HyperLogLog large = new HyperLogLog(12);
+        for (int i = 0; i < 200_000; i++) {
+            large.add("uid-" + i);
+        }
+        // 표준오차 1.6% 의 3배 안
+        assertThat((double) large.estimate()).isCloseTo(200_000, within(200_000 * 0.05));
+        assertThat(large.toBytes()).hasSize(4097);
+        assertThat(HyperLogLog.fromBytes(large.toBytes()).estimate()).isEqualTo(large.estimate());
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            left.add("uid-" + i);
+            union.add("uid-" + i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            right.add("uid-" + i);
+            union.add("uid-" + i);
+        }
+        assertThat(left.merge(right).estimate()).isEqualTo(union.estimate());
+        assertThatThrownBy(() -> left.merge(new HyperLogLog(10))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.kafkaExercise.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollingBloomFilterTest {
+
+    @Test
+    void keepsIdsForOneRotationAndStaysNearTargetFalsePositiveRate() {
+        RollingBloomFilter filter = new RollingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("od-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain("od-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+
+        // 한 번 넘긴 뒤에는 previous 세대에 남아 있고, 두 번 넘기면 사라집니다.
+        filter.rotate();
+        assertThat(filter.mightContain("od-1")).isTrue();
+        filter.rotate();
+        assertThat(filter.mightContain("od-1")).isFalse();
+        assertThat(filter.sizeInBytes()).isLessThan(2 * 12_500);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.kafkaExercise.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rollsSegmentsAndReopensAtEnd() throws Exception {
+        Path partition = dir.resolve("adLog").resolve("partition-0");
+        try (SegmentArchive archive = SegmentArchive.open(partition, 1024, 128)) {
+            for (int i = 0; i < 50; i++) {
+                archive.append(1000 + i, 0, i, key(i), value(i));
+            }
+        }
+        assertThat(SegmentArchive.segments(partition)).hasSizeGreaterThan(1);
+
+        // 다시 열면 마지막 segment 의 끝에 이어 씁니다.
+        try (SegmentArchive archive = SegmentArchive.open(partition, 1024, 128)) {
+            assertThat(archive.nextSequence()).isEqualTo(50);
+            archive.append(1050, 0, 50, null, value(50));
+        }
+
+        List<SegmentArchiveReader.ArchivedRecord> records = readAll(SegmentArchiveReader.read("adLog", partition, Long.MIN_VALUE));
+        assertThat(records).hasSize(51);
+        for (int i = 0; i < 50; i++) {
+            assertThat(records.get(i).sequence()).isEqualTo(i);
+            assertThat(records.get(i).offset()).isEqualTo(i);
+            assertThat(records.get(i).timestamp()).isEqualTo(1000 + i);
+            assertThat(records.get(i).keyBytes()).isEqualTo(key(i));
+            assertThat(records.get(i).valueBytes()).isEqualTo(value(i));
+        }
+        assertThat(records.get(50).key()).isNull();
+        assertThat(records.get(50).valueBytes()).isEqualTo(value(50));
+    }
+
+    @Test
+    void seeksByTimestampThroughIndex() throws Exception {
+        Path partition = dir.resolve("purchaseLog").resolve("partition-0");
+        try (SegmentArchive archive = SegmentArchive.open(partition, 4096, 64)) {
+            for (int i = 0; i < 500; i++) {
+                archive.append(i * 10L, 0, i, key(i), value(i));
+            }
+        }
+
+        // index 로 건너뛴 뒤에도 sequence 는 이어지고, from 이전 record 는 나오지 않습니다.
+        List<SegmentArchiveReader.ArchivedRecord> records = readAll(SegmentArchiveReader.read("purchaseLog", partition, 3005));
+        assertThat(records).hasSize(199);
+        assertThat(records.get(0).timestamp()).isEqualTo(3010);
+        assertThat(records.get(0).sequence()).isEqualTo(301);
+        assertThat(records.get(0).valueBytes()).isEqualTo(value(301));
+
+        assertThat(readAll(SegmentArchiveReader.read("purchaseLog", partition, 5000))).isEmpty();
+    }
+
+    @Test
+    void replayMergesPartitionsAndTopicsByTimestamp() throws Exception {
+        try (SegmentArchive ad0 = SegmentArchive.open(dir.resolve("adLog").resolve("partition-0"), 1024, 128);
+             SegmentArchive ad1 = SegmentArchive.open(dir.resolve("adLog").resolve("partition-1"), 1024, 128);
+             SegmentArchive purchase0 = SegmentArchive.open(dir.resolve("purchaseLog").resolve("partition-0"), 1024, 128)) {
+            ad0.append(10, 0, 0, null, value(0));
+            ad0.append(30, 0, 1, null, value(1));
+            ad1.append(20, 1, 0, null, value(2));
+            purchase0.append(20, 0, 0, null, value(3));
+            purchase0.append(40, 0, 1, null, value(4));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        long count = SegmentArchiveReader.replay(dir, List.of("adLog", "purchaseLog"), 15, 40,
+                r -> replayed.add(r.topic() + "-" + r.partition() + "@" + r.timestamp()));
+
+        // 같은 timestamp 는 topics 순서 (광고 먼저) 를 따르고 [from, to) 밖은 빠집니다.
+        assertThat(replayed).containsExactly("adLog-1@20", "purchaseLog-0@20", "adLog-0@30");
+        assertThat(count).isEqualTo(3);
+    }
+
+    private static List<SegmentArchiveReader.ArchivedRecord> readAll(Iterator<SegmentArchiveReader.ArchivedRecord> it) {
+        List<SegmentArchiveReader.ArchivedRecord> records = new ArrayList<>();
+        it.forEachRemaining(records::add);
+        return records;
+    }
+
+    private static byte[] key(int i) {
+        return ("uid-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(int i) {
+        return ("{\"seq\":" + i + ",\"payload\":\"" + "x".repeat(i % 7) + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.kafkaExercise.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKSketchTest {
+
+    @Test
+    void findsHeavyHittersAmongLongTail() {
+        TopKSketch sketch = new TopKSketch(10, 1024, 4);
+        long hot = feed(sketch, new Random(1), 100_000);
+
+        Map<String, Long> top = sketch.top(3);
+        assertThat(top.keySet()).containsExactly("pg-hot-0", "pg-hot-1", "pg-hot-2");
+        // CountMinSketch 는 실제보다 작게 추정하지 않습니다.
+        assertThat(top.get("pg-hot-0")).isGreaterThanOrEqualTo(hot);
+        assertThat(sketch.total()).isEqualTo(100_000);
+
+        TopKSketch copy = TopKSketch.fromBytes(sketch.toBytes());
+        assertThat(copy.top(10)).isEqualTo(sketch.top(10));
+    }
+
+    @Test
+    void mergeOfWindowsKeepsHeavyHitters() {
+        TopKSketch first = new TopKSketch(10, 1024, 4);
+        TopKSketch second = new TopKSketch(10, 1024, 4);
+        feed(first, new Random(2), 50_000);
+        feed(second, new Random(3), 50_000);
+        // 두 번째 window 에만 많이 팔린 상품
+        for (int i = 0; i < 20_000; i++) {
+            second.add("pg-new");
+        }
+
+        Map<String, Long> top = first.merge(second).top(4);
+        assertThat(top.keySet()).containsExactly("pg-hot-0", "pg-new", "pg-hot-1", "pg-hot-2");
+        assertThat(first.total()).isEqualTo(120_000);
+    }
+
+    // 상위 3개 상품이 30%, 20%, 10% 이고 나머지 40% 는 상품 10,000 개에 흩어집니다. pg-hot-0 의 실제 건수를 돌려줍니다.
+    private static long feed(TopKSketch sketch, Random random, int count) {
+        long hot = 0;
+        for (int i = 0; i < count; i++) {
+            int p = random.nextInt(100);
+            sketch.add(p < 30 ? "pg-hot-0" : p < 50 ? "pg-hot-1" : p < 60 ? "pg-hot-2" : "pg-" + random.nextInt(10_000));
+            hot += p < 30 ? 1 : 0;
+        }
+        return hot;
+    }
+}
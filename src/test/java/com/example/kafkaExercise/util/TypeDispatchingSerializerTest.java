@@ -0,0 +1,53 @@
+package com.example.kafkaExercise.util;
+
+import com.example.kafkaExercise.config.AdEvaluationProperties.WireFormat;
+import com.example.kafkaExercise.vo.EffectOrNot;
+import com.example.kafkaExercise.vo.PurchaseLog;
+import com.example.kafkaExercise.vo.PurchaseLogOneProduct;
+import com.example.kafkaExercise.vo.WatchingAdLog;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TypeDispatchingSerializerTest {
+
+    @Test
+    void eachVoIsWrittenWithItsOwnSerializer() {
+        TypeDispatchingSerializer serializer = TypeDispatchingSerializer.forWireFormat(WireFormat.BINARY);
+        WatchingAdLog ad = new WatchingAdLog();
+        ad.setUserId("uid-0005");
+        PurchaseLog purchase = new PurchaseLog();
+        purchase.setOrderId("od-0001");
+        purchase.setProductInfo(new ArrayList<>());
+        PurchaseLogOneProduct one = new PurchaseLogOneProduct();
+        one.setOrderId("od-0001");
+        EffectOrNot effect = new EffectOrNot();
+        effect.setAdId("ad-101");
+
+        assertThat(new WatchingAdLogDeserializer().deserialize("adLog", serializer.serialize("adLog", ad))).isEqualTo(ad);
+        assertThat(new PurchaseLogDeserializer().deserialize("purchaseLog", serializer.serialize("purchaseLog", purchase))).isEqualTo(purchase);
+        assertThat(new PurchaseLogOneProductDeserializer().deserialize("purchaseLogOneProduct", serializer.serialize("purchaseLogOneProduct", one))).isEqualTo(one);
+        assertThat(new EffectOrNotDeserializer().deserialize("AdEvaluationComplete", serializer.serialize("AdEvaluationComplete", effect))).isEqualTo(effect);
+        assertThat(serializer.serialize("adLog", ad)[0]).isEqualTo(BinaryCodec.FORMAT_V1);
+        assertThat(serializer.serialize("defaultTopic", "hello")).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+        assertThat(serializer.serialize("adLog", null)).isNull();
+    }
+
+    @Test
+    void subclassUsesParentSerializerAndUnknownTypeFails() {
+        TypeDispatchingSerializer serializer = TypeDispatchingSerializer.forWireFormat(WireFormat.JSON);
+        WatchingAdLog ad = new WatchingAdLog() {
+        };
+        ad.setUserId("uid-0005");
+
+        assertThat(new String(serializer.serialize("adLog", ad), StandardCharsets.UTF_8)).contains("\"userId\":\"uid-0005\"");
+        assertThatThrownBy(() -> serializer.serialize("adLog", 42))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("java.lang.Integer");
+    }
+}